@@ -0,0 +1,57 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the connection table benchmarks
+ * 					- all the routers' next hop rows, parallel and sequential
+ * 					- sizes stop where n squared entries still fit in memory
+ *
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class AllPairsBenchmark {
+
+	@Param({ "grid", "random", "ba", "dense" })
+	public String shape;
+
+	@Param({ "8", "1000", "5000" })
+	public int size;
+
+	CsrGraph graph;
+
+	@Setup
+	public void setup() {
+		graph = new TopologyGenerator(shape, size, 42).generate();
+	}
+
+	@Benchmark
+	public int[][] parallel() {
+		return ConnectionTables.compute(graph);
+	}
+
+	@Benchmark
+	public int[][] sequential() {
+		return ConnectionTables.computeSequential(graph);
+	}
+}
@@ -0,0 +1,26 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the entry point of benchmarks.jar
+ * 					- takes the usual JMH command line
+ * 					- the GC profiler is always on so the allocation rate
+ * 					is reported next to throughput and latency
+ *
+ */
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+	public static void main(String args[]) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions command_line = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(command_line).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,50 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the single source benchmarks on full
+ * 					mesh topologies, the shape of the topology matrix files
+ *
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class DenseSpfBenchmark {
+
+	@Param({ "8", "256", "2048" })
+	public int size;
+
+	CsrGraph graph;
+	int source;
+
+	@Setup
+	public void setup() {
+		graph = new TopologyGenerator("dense", size, 42).generate();
+	}
+
+	@Benchmark
+	public ShortestPathTree csr() {
+		source = (source + 7919) % size;
+		return Dijkstras.computePaths(graph, source);
+	}
+}
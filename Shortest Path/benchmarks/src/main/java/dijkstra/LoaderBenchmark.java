@@ -0,0 +1,120 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the topology loading benchmarks
+ * 					- the files are written once per trial into a temp directory,
+ * 					matrix and sparse files are separate states with their
+ * 					own sizes
+ * 					- matrix files are loaded the way Additional.loadFile does
+ * 					and straight into the CSR graph, edge lists into the graph,
+ * 					snapshots are mapped with and without the checksum check
+ *
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class LoaderBenchmark {
+
+//	matrix files are n squared so they stop at a few thousand routers
+//	each benchmark takes only the state of its files so it runs once
+//	per size of that file and not for every pair of sizes
+	@State(Scope.Benchmark)
+	public static class MatrixFile {
+		@Param({ "8", "1000", "4000" })
+		public int matrixSize;
+
+		Path directory;
+		Path matrix;
+
+		@Setup
+		public void setup() throws IOException {
+			directory = Files.createTempDirectory("topology-bench");
+			matrix = directory.resolve("matrix.txt");
+			TopologyGenerator.write(new TopologyGenerator("random", matrixSize, 42).generate(), matrix,
+					TopologyFormat.MATRIX);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			Files.deleteIfExists(matrix);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+//	the same sparse topology as an edge list and as a snapshot
+	@State(Scope.Benchmark)
+	public static class SparseFiles {
+		@Param({ "1000", "100000", "1000000" })
+		public int sparseSize;
+
+		Path directory;
+		Path edges;
+		Path snapshot;
+
+		@Setup
+		public void setup() throws IOException {
+			directory = Files.createTempDirectory("topology-bench");
+			edges = directory.resolve("edges.txt");
+			snapshot = directory.resolve("edges.bin");
+			CsrGraph sparse = new TopologyGenerator("random", sparseSize, 42).generate();
+			TopologyGenerator.write(sparse, edges, TopologyFormat.EDGE_LIST);
+			TopologyGenerator.write(sparse, snapshot, TopologyFormat.SNAPSHOT);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			Files.deleteIfExists(edges);
+			Files.deleteIfExists(snapshot);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Benchmark
+	public int[][] matrixFile(MatrixFile files) throws IOException {
+		return TopologyLoader.loadMatrix(files.matrix);
+	}
+
+	@Benchmark
+	public CsrGraph matrixFileToGraph(MatrixFile files) throws IOException {
+		return TopologyLoader.loadGraph(files.matrix, TopologyFormat.MATRIX);
+	}
+
+	@Benchmark
+	public CsrGraph edgeListFile(SparseFiles files) throws IOException {
+		return TopologyLoader.loadGraph(files.edges, TopologyFormat.EDGE_LIST);
+	}
+
+	@Benchmark
+	public CsrGraph snapshotVerified(SparseFiles files) throws IOException {
+		return GraphSnapshot.map(files.snapshot, true);
+	}
+
+	@Benchmark
+	public CsrGraph snapshotUnverified(SparseFiles files) throws IOException {
+		return GraphSnapshot.map(files.snapshot, false);
+	}
+}
@@ -0,0 +1,89 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the point to point query benchmarks
+ * 					- full computePaths and pathTo, the way option 3 used to work
+ * 					- early stopping, bidirectional and contraction hierarchy
+ * 					queries on the same random router pairs
+ *
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class PointToPointBenchmark {
+
+	@Param({ "grid", "random", "ba" })
+	public String shape;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	CsrGraph graph;
+	PointToPointQuery query;
+	ContractionHierarchy hierarchy;
+	int pairs[];
+	int next;
+
+	@Setup
+	public void setup() {
+		graph = new TopologyGenerator(shape, size, 42).generate();
+		query = new PointToPointQuery(graph, new ReverseGraph(graph));
+		hierarchy = ContractionHierarchy.build(graph);
+		Random random = new Random(7);
+		pairs = new int[2048];
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = random.nextInt(size);
+		}
+	}
+
+	int pair() {
+		next = (next + 2) & (pairs.length - 1);
+		return next;
+	}
+
+	@Benchmark
+	public int[] fullTree() {
+		int i = pair();
+		return Dijkstras.computePaths(graph, pairs[i]).pathTo(pairs[i + 1]);
+	}
+
+	@Benchmark
+	public Route earlyStop() {
+		int i = pair();
+		return query.route(pairs[i], pairs[i + 1]);
+	}
+
+	@Benchmark
+	public Route bidirectional() {
+		int i = pair();
+		return query.bidirectionalRoute(pairs[i], pairs[i + 1]);
+	}
+
+	@Benchmark
+	public Route contractionHierarchy() {
+		int i = pair();
+		return hierarchy.route(pairs[i], pairs[i + 1]);
+	}
+}
@@ -0,0 +1,91 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the single source shortest path benchmarks
+ * 					- csr       Dijkstras.computePaths on the CSR graph
+ * 					- delta     delta-stepping on the common pool, automatic delta
+ * 					- path      Dijkstras.computePaths followed by pathTo a
+ * 					            router half way round the numbering
+ * 					- reused    the computePaths that fills a queue and arrays
+ * 					            kept from call to call, no allocation
+ * 					- dense topologies are in DenseSpfBenchmark, a full mesh
+ * 					of a million routers does not fit in memory
+ *
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class SpfBenchmark {
+
+	@Param({ "grid", "random", "ba" })
+	public String shape;
+
+	@Param({ "8", "1000", "100000", "1000000" })
+	public int size;
+
+	CsrGraph graph;
+	IndexedHeap queue;
+	double distance[];
+	int previous[];
+	double delta;
+	int source;
+
+	@Setup
+	public void setup() {
+		graph = new TopologyGenerator(shape, size, 42).generate();
+		queue = Dijkstras.createQueue(graph);
+		distance = new double[size];
+		previous = new int[size];
+		delta = DeltaStepping.automaticDelta(graph);
+	}
+
+//	a different source every call so no run sees a warm tree
+	int nextSource() {
+		source = (source + 7919) % size;
+		return source;
+	}
+
+	@Benchmark
+	public ShortestPathTree csr() {
+		return Dijkstras.computePaths(graph, nextSource());
+	}
+
+	@Benchmark
+	public ShortestPathTree delta() {
+		return DeltaStepping.computePaths(graph, nextSource(), delta, ForkJoinPool.commonPool());
+	}
+
+	@Benchmark
+	public int[] path() {
+		int s = nextSource();
+		return Dijkstras.computePaths(graph, s).pathTo((s + size / 2) % size);
+	}
+
+	@Benchmark
+	public int[] reused() {
+		Dijkstras.computePaths(graph, nextSource(), queue, distance, previous);
+		return previous;
+	}
+}
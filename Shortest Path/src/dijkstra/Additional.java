@@ -13,17 +13,13 @@ package dijkstra;
  */
 
 import java.io.*;
-import java.util.*;
+import java.nio.file.Paths;
 
 public class Additional {
 	public int[][] loadFile(int choose_file) throws FileNotFoundException, IOException {
 //		user send choose_file to be 1 when he wants to read the file
 		if (choose_file == 1) {
 //			when the user input is 1
-			String buffer;
-			List<String> rows = new ArrayList<>();  //store the rows read
-			int num_of_routers; 					// number of routers
-			String buffer_array[];					// store the individual distance
 			String file;							// file name
 //			buffered reader to read the file name
 			BufferedReader br_input = new BufferedReader(new InputStreamReader(System.in));
@@ -31,34 +27,25 @@ public class Additional {
 			System.out.println("Input original network topology matix data file:");
 			file = br_input.readLine();
 
-//			reading the file row by row
-			BufferedReader br = new BufferedReader(new FileReader(file));
-			while ((buffer = br.readLine()) != null) {
-
-				rows.add(buffer);
-			}
-
-//			number of rows will be equal to the number of routers 
-			num_of_routers = rows.size();
-//			creating the graph variable of size which is the number of routers
-			int graph[][] = new int[num_of_routers][num_of_routers];
-
-//			looping on rows
-			for (int i = 0; i < rows.size(); i++) {
-//				splitting the rows at space to get the distances 
-				buffer_array = rows.get(i).split(" ");
-				for (int j = 0; j < rows.size(); j++) {
-//					saving the distances
-					graph[i][j] = Integer.parseInt(buffer_array[j]);
-				}
-			}
-//			closing the buffered reader
-			br.close();
-//			returning the data read
-			return graph;
+//			the file is parsed straight from a memory mapped buffer
+//			the number of rows will be equal to the number of routers
+			return TopologyLoader.loadMatrix(Paths.get(file));
 		} else {
 //			if user sends choose_file is not 1 then return null
 			return null;
 		}
 	}
+
+//	same prompt as loadFile but the file may be a matrix, an edge list
+//	or an adjacency list, the format is found from the file itself
+	public Topology loadTopology(int choose_file) throws IOException {
+		if (choose_file == 1) {
+			BufferedReader br_input = new BufferedReader(new InputStreamReader(System.in));
+			System.out.println("Input original network topology matix data file:");
+			String file = br_input.readLine();
+			return Topology.load(Paths.get(file));
+		} else {
+			return null;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the batch mode of the simulator
+ * 					- a query file holds one query per line, routers from 1
+ * 					  "src dst"      shortest path and cost from src to dst
+ * 					  "table src"    connection table of src
+ * 					  '#' starts a comment, blank lines are skipped
+ * 					- queries are grouped by source so every source router
+ * 					has one shortest path run however many queries use it
+ * 					- sources run in parallel in blocks, each block is written
+ * 					out in order so the output does not depend on the threads
+ * 					- results come grouped by source in ascending order, the
+ * 					queries of one source in file order, one line each
+ * 					  "src<TAB>dst<TAB>cost<TAB>1 -> 4 -> 6"
+ * 					  "table<TAB>src<TAB>dst<TAB>interface"
+ * 					with "-" for no path and for the source itself
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class BatchQueries {
+//	source groups handed to every worker thread per block
+	private static final int GROUPS_PER_THREAD = 16;
+//	target of a "table" query
+	private static final int TABLE = -1;
+
+	private final int sources[];	// distinct source routers, ascending
+	private final int first[];		// queries of sources[g] are first[g] to first[g + 1] - 1
+	private final int targets[];	// target router of every query, TABLE for a table
+
+	private BatchQueries(int sources[], int first[], int targets[]) {
+		this.sources = sources;
+		this.first = first;
+		this.targets = targets;
+	}
+
+//	per thread working space for one source router
+	private static class Scratch {
+		final IndexedHeap queue;
+		final double distance[];
+		final int previous[];
+		final int hops[];
+		final int stack[];
+
+		Scratch(CsrGraph graph) {
+			int n = graph.vertexCount();
+			queue = Dijkstras.createQueue(graph);
+			distance = new double[n];
+			previous = new int[n];
+			hops = new int[n];
+			stack = new int[n];
+		}
+	}
+
+//	reading the query file, routers are checked against the topology size
+	public static BatchQueries load(Path file, int routerCount) throws IOException {
+		int querySource[] = new int[1024];
+		int queryTarget[] = new int[1024];
+		int count = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				int comment = line.indexOf('#');
+				if (comment >= 0) {
+					line = line.substring(0, comment);
+				}
+				String tokens[] = line.trim().split("\\s+");
+				if (tokens[0].isEmpty()) {
+					continue;
+				}
+				if (tokens.length != 2) {
+					throw new IOException("Query on line " + lineNumber + " needs \"src dst\" or \"table src\"");
+				}
+				if (count == querySource.length) {
+					querySource = Arrays.copyOf(querySource, count * 2);
+					queryTarget = Arrays.copyOf(queryTarget, count * 2);
+				}
+				if (tokens[0].equalsIgnoreCase("table")) {
+					querySource[count] = router(tokens[1], lineNumber, routerCount);
+					queryTarget[count] = TABLE;
+				} else {
+					querySource[count] = router(tokens[0], lineNumber, routerCount);
+					queryTarget[count] = router(tokens[1], lineNumber, routerCount);
+				}
+				count++;
+			}
+		}
+		return group(querySource, queryTarget, count, routerCount);
+	}
+
+	private static int router(String token, int lineNumber, int routerCount) throws IOException {
+		int router;
+		try {
+			router = Integer.parseInt(token);
+		} catch (NumberFormatException e) {
+			throw new IOException("Query on line " + lineNumber + " has " + token + " for a router");
+		}
+		if (router < 1 || router > routerCount) {
+			throw new IOException("Router " + router + " on line " + lineNumber + " dose'nt exists");
+		}
+		return router - 1;
+	}
+
+//	stable counting sort of the queries by source
+	private static BatchQueries group(int querySource[], int queryTarget[], int count, int routerCount) {
+		int start[] = new int[routerCount + 1];
+		for (int i = 0; i < count; i++) {
+			start[querySource[i] + 1]++;
+		}
+		int groups = 0;
+		for (int s = 0; s < routerCount; s++) {
+			if (start[s + 1] > 0) {
+				groups++;
+			}
+			start[s + 1] += start[s];
+		}
+		int sources[] = new int[groups];
+		int first[] = new int[groups + 1];
+		int g = 0;
+		for (int s = 0; s < routerCount; s++) {
+			if (start[s + 1] > start[s]) {
+				sources[g] = s;
+				first[g++] = start[s];
+			}
+		}
+		first[groups] = count;
+		int targets[] = new int[count];
+		for (int i = 0; i < count; i++) {
+			targets[start[querySource[i]]++] = queryTarget[i];
+		}
+		return new BatchQueries(sources, first, targets);
+	}
+
+	public int queryCount() {
+		return targets.length;
+	}
+
+	public int sourceCount() {
+		return sources.length;
+	}
+
+//	answering every query on the common fork join pool
+	public void run(CsrGraph graph, Writer out) throws IOException {
+		run(graph, out, ForkJoinPool.commonPool());
+	}
+
+//	answering every query, one block of sources at a time so only
+//	one block of results is held in memory
+	public void run(CsrGraph graph, Writer out, ForkJoinPool pool) throws IOException {
+		final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(graph));
+		int block = pool.getParallelism() * GROUPS_PER_THREAD;
+		String results[] = new String[Math.min(block, sources.length)];
+		for (int from = 0; from < sources.length; from += block) {
+			final int start = from;
+			final int end = Math.min(from + block, sources.length);
+			try {
+				pool.submit(() -> IntStream.range(start, end).parallel().forEach(g -> {
+					results[g - start] = answer(graph, g, scratch.get());
+				})).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Batch queries interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Batch queries failed", e.getCause());
+			}
+			for (int g = start; g < end; g++) {
+				out.write(results[g - start]);
+				results[g - start] = null;
+			}
+		}
+		out.flush();
+	}
+
+//	one shortest path run for the source, then all its queries
+	private String answer(CsrGraph graph, int group, Scratch scratch) {
+		int source = sources[group];
+		Dijkstras.computePaths(graph, source, scratch.queue, scratch.distance, scratch.previous);
+		ShortestPathTree tree = new ShortestPathTree(source, scratch.distance, scratch.previous);
+		boolean hopsFilled = false;
+		StringBuilder sb = new StringBuilder();
+		for (int q = first[group]; q < first[group + 1]; q++) {
+			int target = targets[q];
+			if (target == TABLE) {
+				if (!hopsFilled) {
+					ShortestPathTree.fillNextHops(source, scratch.previous, scratch.hops, scratch.stack);
+					hopsFilled = true;
+				}
+				appendTable(sb, source, scratch.hops);
+			} else {
+				appendRoute(sb, source, target, tree.distanceTo(target), tree.pathTo(target));
+			}
+		}
+		return sb.toString();
+	}
+
+//	"src<TAB>dst<TAB>cost<TAB>path" line of a route, also used by RouteService
+	static void appendRoute(StringBuilder sb, int source, int target, double cost, int path[]) {
+		sb.append(source + 1).append('\t').append(target + 1).append('\t');
+		if (cost != Double.POSITIVE_INFINITY) {
+			sb.append(cost).append('\t');
+			for (int i = 0; i < path.length; i++) {
+				if (i > 0) {
+					sb.append(" -> ");
+				}
+				sb.append(path[i] + 1);
+			}
+		} else {
+			sb.append("-\t-");
+		}
+		sb.append('\n');
+	}
+
+//	"table<TAB>src<TAB>dst<TAB>interface" lines of a connection table
+	static void appendTable(StringBuilder sb, int source, int hops[]) {
+		for (int v = 0; v < hops.length; v++) {
+			sb.append("table\t").append(source + 1).append('\t').append(v + 1).append('\t');
+			if (hops[v] == -1) {
+				sb.append('-');
+			} else {
+				sb.append(hops[v] + 1);
+			}
+			sb.append('\n');
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains Dial's bucket queue for whole number
+ * 					link weights no larger than maxWeight
+ * 					- maxWeight + 1 buckets used round robin, bucket key % size
+ * 					holds the routers queued with that key
+ * 					- keys are kept as long, no floating point comparisons
+ * 					- insert and decreaseKey are O(1), poll walks forward over
+ * 					the empty buckets so a whole run is O(m + largest distance)
+ * 					- only works for Dijkstra like use: keys are whole numbers
+ * 					and never below the last polled key or more than
+ * 					maxWeight above it
+ *
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class BucketQueue implements IndexedHeap {
+	private final int bucketCount;	// maxWeight + 1
+	private final int head[];		// first router of every bucket, -1 when empty
+	private final int next[];		// routers of a bucket are a doubly linked list
+	private final int prior[];
+	private final long keys[];		// key of each router
+	private final boolean queued[];
+	private long current;			// key of the bucket poll looks at first
+	private int size;				// number of queued routers
+
+	public BucketQueue(int maxWeight, int capacity) {
+		if (maxWeight < 0) {
+			throw new IllegalArgumentException("Bucket queue needs a non negative maximum weight: " + maxWeight);
+		}
+		bucketCount = maxWeight + 1;
+		head = new int[bucketCount];
+		next = new int[capacity];
+		prior = new int[capacity];
+		keys = new long[capacity];
+		queued = new boolean[capacity];
+		Arrays.fill(head, -1);
+	}
+
+	public void insert(int index, double key) {
+		if (queued[index]) {
+			throw new IllegalArgumentException("Router " + index + " is already queued");
+		}
+//		an empty queue takes any key, a new run starts over from it
+		if (size == 0 && (key < current || key - current >= bucketCount)) {
+			current = (long) key;
+		}
+		link(index, toKey(key));
+		queued[index] = true;
+		size++;
+	}
+
+	public void decreaseKey(int index, double key) {
+		if (!queued[index]) {
+			throw new NoSuchElementException("Router " + index + " is not queued");
+		}
+		long k = toKey(key);
+		unlink(index);
+		link(index, k);
+	}
+
+	public void insertOrDecrease(int index, double key) {
+		if (!queued[index]) {
+			insert(index, key);
+		} else if (key < keys[index]) {
+			decreaseKey(index, key);
+		}
+	}
+
+	public boolean contains(int index) {
+		return queued[index];
+	}
+
+	public double keyOf(int index) {
+		return keys[index];
+	}
+
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return head[advance()];
+	}
+
+	public int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		int min = head[advance()];
+		unlink(min);
+		queued[min] = false;
+		size--;
+		return min;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+//	every queued key is within one round of the buckets
+//	so one pass over them finds everything
+	public void clear() {
+		if (size == 0) {
+			return;
+		}
+		for (int b = 0; b < bucketCount; b++) {
+			for (int v = head[b]; v != -1; v = next[v]) {
+				queued[v] = false;
+			}
+			head[b] = -1;
+		}
+		size = 0;
+	}
+
+//	moving current up to the first bucket that has a router
+	private int advance() {
+		int bucket = (int) (current % bucketCount);
+		while (head[bucket] == -1) {
+			current++;
+			if (++bucket == bucketCount) {
+				bucket = 0;
+			}
+		}
+		return bucket;
+	}
+
+	private long toKey(double key) {
+		long k = (long) key;
+		if (k != key || k < current || k - current >= bucketCount) {
+			throw new IllegalArgumentException("Key " + key + " does not fit the buckets from " + current);
+		}
+		return k;
+	}
+
+	private void link(int index, long key) {
+		int bucket = (int) (key % bucketCount);
+		keys[index] = key;
+		int first = head[bucket];
+		next[index] = first;
+		prior[index] = -1;
+		if (first != -1) {
+			prior[first] = index;
+		}
+		head[bucket] = index;
+	}
+
+	private void unlink(int index) {
+		int before = prior[index];
+		int after = next[index];
+		if (before == -1) {
+			head[(int) (keys[index] % bucketCount)] = after;
+		} else {
+			next[before] = after;
+		}
+		if (after != -1) {
+			prior[after] = before;
+		}
+	}
+}
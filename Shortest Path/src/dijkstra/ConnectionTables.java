@@ -0,0 +1,95 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the connection tables of all the routers
+ * 					- one shortest path run per router, run in parallel
+ * 					on a fork join pool
+ * 					- every worker thread has its own queue and arrays
+ * 					so the runs share nothing but the immutable graph
+ * 					- the result is the next hop matrix, row = source router
+ * 					- dense topologies go to FloydWarshall instead, same tables
+ *
+ */
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+public class ConnectionTables {
+
+//	per thread working space for one shortest path run
+	private static class Scratch {
+		final IndexedHeap queue;
+		final double distance[];
+		final int previous[];
+		final int stack[];
+		final int row[];
+
+		Scratch(CsrGraph graph, int n) {
+			queue = Dijkstras.createQueue(graph);
+			distance = new double[n];
+			previous = new int[n];
+			stack = new int[n];
+			row = new int[n];
+		}
+	}
+
+//	next hop matrix on the common fork join pool
+	public static int[][] compute(CsrGraph graph) {
+		return compute(graph, ForkJoinPool.commonPool());
+	}
+
+//	next hop matrix on the given pool, hops[s][t] is the router after s
+//	on the way to t, or -1 for s itself and unreachable routers
+	public static int[][] compute(CsrGraph graph, ForkJoinPool pool) {
+		final int hops[][] = new int[graph.vertexCount()][];
+		forEachRow(graph, pool, (row, source) -> hops[source] = row.clone());
+		return hops;
+	}
+
+//	hands every router's next hop row to the consumer, in parallel on the
+//	pool and in no particular order, the row array is reused by the thread
+//	so the consumer copies what it keeps
+	static void forEachRow(CsrGraph graph, ForkJoinPool pool, ObjIntConsumer<int[]> consumer) {
+//		near full meshes are faster with one all pairs run
+		if (FloydWarshall.isPreferred(graph)) {
+			FloydWarshall.forEachRow(graph, pool, consumer);
+			return;
+		}
+		final int n = graph.vertexCount();
+		final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(graph, n));
+		try {
+			pool.submit(() -> IntStream.range(0, n).parallel().forEach(source -> {
+				Scratch s = scratch.get();
+				consumer.accept(row(graph, source, s), source);
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Connection table computation interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Connection table computation failed", e.getCause());
+		}
+	}
+
+//	same result one router after another on the calling thread
+	public static int[][] computeSequential(CsrGraph graph) {
+		int n = graph.vertexCount();
+		int hops[][] = new int[n][];
+		Scratch scratch = new Scratch(graph, n);
+		for (int source = 0; source < n; source++) {
+			hops[source] = row(graph, source, scratch).clone();
+		}
+		return hops;
+	}
+
+//	next hop row of the source in the scratch row array
+	private static int[] row(CsrGraph graph, int source, Scratch scratch) {
+		Dijkstras.computePaths(graph, source, scratch.queue, scratch.distance, scratch.previous);
+		ShortestPathTree.fillNextHops(source, scratch.previous, scratch.row, scratch.stack);
+		return scratch.row;
+	}
+}
@@ -0,0 +1,582 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains contraction hierarchies for fast
+ * 					point to point queries on a topology that rarely changes
+ * 					- preprocessing contracts the routers one by one, least
+ * 					important first, adding a shortcut u -> w whenever the only
+ * 					shortest way from u to w went through the contracted router
+ * 					- a query searches upward from both ends and unpacks the
+ * 					shortcuts back into real router hops
+ * 					- the cost is the same as option 3, on equal cost paths
+ * 					the routers in between may differ
+ *
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class ContractionHierarchy {
+
+//	routers the witness search may settle before giving up
+//	giving up only adds a shortcut that was not needed
+	static final int WITNESS_LIMIT = 500;
+
+	private final int vertexCount;
+	private final int rank[];			// order the routers were contracted in
+//	every link and shortcut of the hierarchy
+	private final int edgeFrom[];
+	private final int edgeTo[];
+	private final double edgeWeight[];
+	private final int edgeFirst[];		// link from to middle, -1 for a real link
+	private final int edgeSecond[];		// link middle to to, -1 for a real link
+	private final int shortcutCount;
+	private final long preprocessingNanos;
+//	upward links leaving every router, and upward links entering it
+	private final int upOffsets[];
+	private final int upEdges[];
+	private final int downOffsets[];
+	private final int downEdges[];
+
+//	query state, reused between queries so one object per thread
+	private final IndexedHeap forwardQueue;
+	private final IndexedHeap backwardQueue;
+	private final double forwardDistance[];
+	private final double backwardDistance[];
+	private final int forwardEdge[];	// link the forward search came in on
+	private final int backwardEdge[];	// link the backward search came in on
+	private final int touched[];
+	private final boolean isTouched[];
+	private int touchedCount;
+
+	private ContractionHierarchy(Builder b, long preprocessingNanos) {
+		this.vertexCount = b.n;
+		this.rank = b.rank;
+		this.edgeFrom = Arrays.copyOf(b.from, b.edges);
+		this.edgeTo = Arrays.copyOf(b.to, b.edges);
+		this.edgeWeight = Arrays.copyOf(b.weight, b.edges);
+		this.edgeFirst = Arrays.copyOf(b.first, b.edges);
+		this.edgeSecond = Arrays.copyOf(b.second, b.edges);
+		this.shortcutCount = b.shortcuts;
+		this.preprocessingNanos = preprocessingNanos;
+
+		int n = vertexCount;
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int e = 0; e < edgeFrom.length; e++) {
+			if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+				upOffsets[edgeFrom[e] + 1]++;
+			} else {
+				downOffsets[edgeTo[e] + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			upOffsets[v + 1] += upOffsets[v];
+			downOffsets[v + 1] += downOffsets[v];
+		}
+		upEdges = new int[upOffsets[n]];
+		downEdges = new int[downOffsets[n]];
+		int upNext[] = Arrays.copyOf(upOffsets, n);
+		int downNext[] = Arrays.copyOf(downOffsets, n);
+		for (int e = 0; e < edgeFrom.length; e++) {
+			if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+				upEdges[upNext[edgeFrom[e]]++] = e;
+			} else {
+				downEdges[downNext[edgeTo[e]]++] = e;
+			}
+		}
+
+		forwardQueue = new IndexedBinaryHeap(n);
+		backwardQueue = new IndexedBinaryHeap(n);
+		forwardDistance = new double[n];
+		backwardDistance = new double[n];
+		forwardEdge = new int[n];
+		backwardEdge = new int[n];
+		touched = new int[n];
+		isTouched = new boolean[n];
+		Arrays.fill(forwardDistance, Double.POSITIVE_INFINITY);
+		Arrays.fill(backwardDistance, Double.POSITIVE_INFINITY);
+		Arrays.fill(forwardEdge, -1);
+		Arrays.fill(backwardEdge, -1);
+	}
+
+//	preprocessing the graph
+	public static ContractionHierarchy build(CsrGraph graph) {
+		long start = System.nanoTime();
+		Builder builder = new Builder(graph);
+		builder.contractAll();
+		return new ContractionHierarchy(builder, System.nanoTime() - start);
+	}
+
+	public long preprocessingNanos() {
+		return preprocessingNanos;
+	}
+
+	public int shortcutCount() {
+		return shortcutCount;
+	}
+
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+//	order the router was contracted in, higher is more important
+	public int rank(int router) {
+		return rank[router];
+	}
+
+//	upward search from both ends, each side runs until its queue
+//	has nothing below the best meeting cost found so far
+	public Route route(int source, int target) {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long relaxed = 0;
+		long inserts = 2;
+		long decreases = 0;
+		reset();
+		int settled = 0;
+		double best = Double.POSITIVE_INFINITY;
+		int meet = -1;
+		touch(source);
+		touch(target);
+		forwardDistance[source] = 0.;
+		backwardDistance[target] = 0.;
+		forwardQueue.insert(source, 0.);
+		backwardQueue.insert(target, 0.);
+		if (source == target) {
+			best = 0.;
+			meet = source;
+		}
+		while (true) {
+			boolean forward = !forwardQueue.isEmpty() && forwardQueue.keyOf(forwardQueue.peek()) < best;
+			boolean backward = !backwardQueue.isEmpty() && backwardQueue.keyOf(backwardQueue.peek()) < best;
+			if (!forward && !backward) {
+				break;
+			}
+			settled++;
+			if (forward && (!backward || forwardQueue.size() <= backwardQueue.size())) {
+				int u = forwardQueue.poll();
+				double distanceU = forwardDistance[u];
+				if (distanceU + backwardDistance[u] < best) {
+					best = distanceU + backwardDistance[u];
+					meet = u;
+				}
+				if (Metrics.ENABLED) {
+					relaxed += upOffsets[u + 1] - upOffsets[u];
+				}
+				for (int i = upOffsets[u]; i < upOffsets[u + 1]; i++) {
+					int e = upEdges[i];
+					int v = edgeTo[e];
+					double through = distanceU + edgeWeight[e];
+					if (through < forwardDistance[v]) {
+						if (Metrics.ENABLED) {
+							if (forwardQueue.contains(v)) {
+								decreases++;
+							} else {
+								inserts++;
+							}
+						}
+						touch(v);
+						forwardDistance[v] = through;
+						forwardEdge[v] = e;
+						forwardQueue.insertOrDecrease(v, through);
+					}
+				}
+			} else {
+				int u = backwardQueue.poll();
+				double distanceU = backwardDistance[u];
+				if (distanceU + forwardDistance[u] < best) {
+					best = distanceU + forwardDistance[u];
+					meet = u;
+				}
+				if (Metrics.ENABLED) {
+					relaxed += downOffsets[u + 1] - downOffsets[u];
+				}
+				for (int i = downOffsets[u]; i < downOffsets[u + 1]; i++) {
+					int e = downEdges[i];
+					int v = edgeFrom[e];
+					double through = distanceU + edgeWeight[e];
+					if (through < backwardDistance[v]) {
+						if (Metrics.ENABLED) {
+							if (backwardQueue.contains(v)) {
+								decreases++;
+							} else {
+								inserts++;
+							}
+						}
+						touch(v);
+						backwardDistance[v] = through;
+						backwardEdge[v] = e;
+						backwardQueue.insertOrDecrease(v, through);
+					}
+				}
+			}
+		}
+		forwardQueue.clear();
+		backwardQueue.clear();
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settled, relaxed, inserts, decreases);
+		}
+		if (meet == -1) {
+			return new Route(new int[] { target }, Double.POSITIVE_INFINITY, settled);
+		}
+
+//		links from the source up to the meeting router and down to the target
+		int links[] = new int[16];
+		int count = 0;
+		for (int v = meet; forwardEdge[v] != -1; v = edgeFrom[forwardEdge[v]]) {
+			if (count == links.length) {
+				links = Arrays.copyOf(links, count * 2);
+			}
+			links[count++] = forwardEdge[v];
+		}
+//		the forward links were collected from the meeting router back
+		for (int i = 0, j = count - 1; i < j; i++, j--) {
+			int swap = links[i];
+			links[i] = links[j];
+			links[j] = swap;
+		}
+		for (int v = meet; backwardEdge[v] != -1; v = edgeTo[backwardEdge[v]]) {
+			if (count == links.length) {
+				links = Arrays.copyOf(links, count * 2);
+			}
+			links[count++] = backwardEdge[v];
+		}
+		return new Route(unpack(source, links, count), best, settled);
+	}
+
+//	replacing every shortcut by the two links it stands for
+//	until only real links are left, gives the routers in order
+	private int[] unpack(int source, int links[], int count) {
+		int path[] = new int[count + 1];
+		int length = 0;
+		path[length++] = source;
+		int stack[] = new int[16];
+		for (int i = 0; i < count; i++) {
+			int depth = 0;
+			stack[depth++] = links[i];
+			while (depth > 0) {
+				int e = stack[--depth];
+				if (edgeFirst[e] == -1) {
+					if (length == path.length) {
+						path = Arrays.copyOf(path, length * 2);
+					}
+					path[length++] = edgeTo[e];
+				} else {
+					if (depth + 2 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+//					second half goes under the first so the first is unpacked first
+					stack[depth++] = edgeSecond[e];
+					stack[depth++] = edgeFirst[e];
+				}
+			}
+		}
+		return Arrays.copyOf(path, length);
+	}
+
+	private void touch(int v) {
+		if (!isTouched[v]) {
+			isTouched[v] = true;
+			touched[touchedCount++] = v;
+		}
+	}
+
+	private void reset() {
+		for (int i = 0; i < touchedCount; i++) {
+			int v = touched[i];
+			isTouched[v] = false;
+			forwardDistance[v] = Double.POSITIVE_INFINITY;
+			backwardDistance[v] = Double.POSITIVE_INFINITY;
+			forwardEdge[v] = -1;
+			backwardEdge[v] = -1;
+		}
+		touchedCount = 0;
+	}
+
+//	average query time of the hierarchy against the early stopping
+//	Dijkstra on the same random router pairs, costs are checked too
+	public Comparison compareWithDijkstra(CsrGraph graph, int queries, long seed) {
+		int pairs[] = new int[queries * 2];
+		Random random = new Random(seed);
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = random.nextInt(vertexCount);
+		}
+		PointToPointQuery dijkstra = new PointToPointQuery(graph);
+		double costs[] = new double[queries];
+		long start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			costs[i] = dijkstra.route(pairs[2 * i], pairs[2 * i + 1]).cost();
+		}
+		long dijkstraNanos = System.nanoTime() - start;
+		int mismatches = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			if (route(pairs[2 * i], pairs[2 * i + 1]).cost() != costs[i]) {
+				mismatches++;
+			}
+		}
+		long hierarchyNanos = System.nanoTime() - start;
+		return new Comparison(queries, hierarchyNanos, dijkstraNanos, mismatches);
+	}
+
+//	result of compareWithDijkstra
+	public static class Comparison {
+		public final int queries;
+		public final long hierarchyNanos;
+		public final long dijkstraNanos;
+		public final int mismatches;
+
+		Comparison(int queries, long hierarchyNanos, long dijkstraNanos, int mismatches) {
+			this.queries = queries;
+			this.hierarchyNanos = hierarchyNanos;
+			this.dijkstraNanos = dijkstraNanos;
+			this.mismatches = mismatches;
+		}
+
+		public String toString() {
+			return String.format("%d queries: hierarchy %.1f us/query, Dijkstra %.1f us/query, %d cost mismatches",
+					queries, hierarchyNanos / 1e3 / Math.max(1, queries), dijkstraNanos / 1e3 / Math.max(1, queries),
+					mismatches);
+		}
+	}
+
+//	contraction state, thrown away once the hierarchy is built
+	private static class Builder {
+		final int n;
+		final int rank[];
+		final boolean contracted[];
+		final int deletedNeighbours[];
+//		every link and shortcut
+		int from[];
+		int to[];
+		double weight[];
+		int first[];
+		int second[];
+		int edges;
+		int shortcuts;
+//		links leaving and entering every router, as link numbers
+		final int out[][];
+		final int outSize[];
+		final int in[][];
+		final int inSize[];
+		final Map<Long, Integer> pairs = new HashMap<Long, Integer>();
+//		witness search state
+		final IndexedHeap queue;
+		final double distance[];
+		final int seen[];
+		int stamp;
+//		shortcuts found by the last call to shortcutsFor
+		int pendingFrom[] = new int[16];
+		int pendingTo[] = new int[16];
+		double pendingWeight[] = new double[16];
+		int pendingFirst[] = new int[16];
+		int pendingSecond[] = new int[16];
+		int pending;
+
+		Builder(CsrGraph graph) {
+			n = graph.vertexCount();
+			rank = new int[n];
+			contracted = new boolean[n];
+			deletedNeighbours = new int[n];
+			int m = Math.max(16, graph.edgeCount() * 2);
+			from = new int[m];
+			to = new int[m];
+			weight = new double[m];
+			first = new int[m];
+			second = new int[m];
+			out = new int[n][];
+			in = new int[n][];
+			outSize = new int[n];
+			inSize = new int[n];
+			for (int v = 0; v < n; v++) {
+				out[v] = new int[4];
+				in[v] = new int[4];
+			}
+			queue = new IndexedBinaryHeap(n);
+			distance = new double[n];
+			seen = new int[n];
+			for (int u = 0; u < n; u++) {
+				for (int e = graph.begin(u); e < graph.end(u); e++) {
+					if (graph.target(e) != u) {
+						addEdge(u, graph.target(e), graph.weight(e), -1, -1);
+					}
+				}
+			}
+		}
+
+//		adding a link, or lowering it when the pair already has one
+		void addEdge(int u, int w, double cost, int viaFirst, int viaSecond) {
+			long key = ((long) u << 32) | (w & 0xffffffffL);
+			Integer existing = pairs.get(key);
+			if (existing != null) {
+				int e = existing;
+				if (cost < weight[e]) {
+					weight[e] = cost;
+					first[e] = viaFirst;
+					second[e] = viaSecond;
+				}
+				return;
+			}
+			if (edges == from.length) {
+				int capacity = edges * 2;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				weight = Arrays.copyOf(weight, capacity);
+				first = Arrays.copyOf(first, capacity);
+				second = Arrays.copyOf(second, capacity);
+			}
+			int e = edges++;
+			from[e] = u;
+			to[e] = w;
+			weight[e] = cost;
+			first[e] = viaFirst;
+			second[e] = viaSecond;
+			pairs.put(key, e);
+			if (outSize[u] == out[u].length) {
+				out[u] = Arrays.copyOf(out[u], outSize[u] * 2);
+			}
+			out[u][outSize[u]++] = e;
+			if (inSize[w] == in[w].length) {
+				in[w] = Arrays.copyOf(in[w], inSize[w] * 2);
+			}
+			in[w][inSize[w]++] = e;
+			if (viaFirst != -1) {
+				shortcuts++;
+			}
+		}
+
+		void contractAll() {
+//			lazy updates, a router's priority is checked again when
+//			it comes to the top and it goes back if it got worse
+			IndexedHeap order = new IndexedBinaryHeap(n);
+			for (int v = 0; v < n; v++) {
+				order.insert(v, priority(v));
+			}
+			int next = 0;
+			while (!order.isEmpty()) {
+				int v = order.poll();
+				double current = priority(v);
+				if (!order.isEmpty() && current > order.keyOf(order.peek())) {
+					order.insert(v, current);
+					continue;
+				}
+//				priority left the shortcuts of v in the pending arrays
+				for (int i = 0; i < pending; i++) {
+					addEdge(pendingFrom[i], pendingTo[i], pendingWeight[i], pendingFirst[i], pendingSecond[i]);
+				}
+				contracted[v] = true;
+				rank[v] = next++;
+				for (int i = 0; i < outSize[v]; i++) {
+					deletedNeighbours[to[out[v][i]]]++;
+				}
+				for (int i = 0; i < inSize[v]; i++) {
+					deletedNeighbours[from[in[v][i]]]++;
+				}
+			}
+		}
+
+//		edge difference plus the number of contracted neighbours
+		double priority(int v) {
+			shortcutsFor(v);
+			int removed = 0;
+			for (int i = 0; i < outSize[v]; i++) {
+				if (!contracted[to[out[v][i]]]) {
+					removed++;
+				}
+			}
+			for (int i = 0; i < inSize[v]; i++) {
+				if (!contracted[from[in[v][i]]]) {
+					removed++;
+				}
+			}
+			return pending - removed + deletedNeighbours[v];
+		}
+
+//		shortcuts needed to contract v, left in the pending arrays
+		void shortcutsFor(int v) {
+			pending = 0;
+			for (int i = 0; i < inSize[v]; i++) {
+				int into = in[v][i];
+				int u = from[into];
+				if (contracted[u]) {
+					continue;
+				}
+				double limit = 0;
+				for (int j = 0; j < outSize[v]; j++) {
+					int w = to[out[v][j]];
+					if (!contracted[w] && w != u) {
+						limit = Math.max(limit, weight[into] + weight[out[v][j]]);
+					}
+				}
+				if (limit == 0) {
+					continue;
+				}
+				witnessSearch(u, v, limit);
+				for (int j = 0; j < outSize[v]; j++) {
+					int outOf = out[v][j];
+					int w = to[outOf];
+					if (contracted[w] || w == u) {
+						continue;
+					}
+					double via = weight[into] + weight[outOf];
+					double witness = seen[w] == stamp ? distance[w] : Double.POSITIVE_INFINITY;
+					if (witness > via) {
+						addPending(u, w, via, into, outOf);
+					}
+				}
+			}
+		}
+
+		void addPending(int u, int w, double cost, int viaFirst, int viaSecond) {
+			if (pending == pendingFrom.length) {
+				int capacity = pending * 2;
+				pendingFrom = Arrays.copyOf(pendingFrom, capacity);
+				pendingTo = Arrays.copyOf(pendingTo, capacity);
+				pendingWeight = Arrays.copyOf(pendingWeight, capacity);
+				pendingFirst = Arrays.copyOf(pendingFirst, capacity);
+				pendingSecond = Arrays.copyOf(pendingSecond, capacity);
+			}
+			pendingFrom[pending] = u;
+			pendingTo[pending] = w;
+			pendingWeight[pending] = cost;
+			pendingFirst[pending] = viaFirst;
+			pendingSecond[pending] = viaSecond;
+			pending++;
+		}
+
+//		Dijkstra from u that avoids v and the contracted routers
+//		and stops past limit or after WITNESS_LIMIT routers
+		void witnessSearch(int u, int v, double limit) {
+			stamp++;
+			seen[u] = stamp;
+			distance[u] = 0.;
+			queue.insert(u, 0.);
+			int settled = 0;
+			while (!queue.isEmpty()) {
+				int x = queue.poll();
+				if (distance[x] > limit || ++settled > WITNESS_LIMIT) {
+					break;
+				}
+				for (int i = 0; i < outSize[x]; i++) {
+					int e = out[x][i];
+					int y = to[e];
+					if (y == v || contracted[y]) {
+						continue;
+					}
+					double through = distance[x] + weight[e];
+					if (seen[y] != stamp || through < distance[y]) {
+						seen[y] = stamp;
+						distance[y] = through;
+						queue.insertOrDecrease(y, through);
+					}
+				}
+			}
+			queue.clear();
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the compressed sparse row form of the
+ * 					network topology
+ * 					- routers are numbered 0 to n-1 (router name is index + 1)
+ * 					- links leaving router u are the slots begin(u) to end(u)-1
+ * 					of the targets and weights arrays
+ * 					- the graph is immutable once built
+ * 					- a graph mapped from a snapshot file reads its arrays in
+ * 					place from little endian buffers (see GraphSnapshot)
+ *
+ */
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+public final class CsrGraph {
+	private final int vertexCount;	// number of routers
+	private final int edgeCount;	// number of links
+	private final int offsets[];	// first link of every router, length n + 1
+	private final int targets[];	// connecting router of every link
+	private final double weights[];	// distance of every link
+//	same three arrays when the graph is mapped from a snapshot, else null
+	private final IntBuffer offsetBuffer;
+	private final IntBuffer targetBuffer;
+	private final DoubleBuffer weightBuffer;
+//	largest weight when all weights are whole numbers, -1 when not, -2 until checked
+	private int maxIntegerWeight = -2;
+
+	CsrGraph(int vertexCount, int offsets[], int targets[], double weights[]) {
+		this.vertexCount = vertexCount;
+		this.edgeCount = offsets[vertexCount];
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.offsetBuffer = null;
+		this.targetBuffer = null;
+		this.weightBuffer = null;
+	}
+
+//	graph reading straight from the buffers, nothing is copied
+	CsrGraph(int vertexCount, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+		this.vertexCount = vertexCount;
+		this.edgeCount = offsets.get(vertexCount);
+		this.offsets = null;
+		this.targets = null;
+		this.weights = null;
+		this.offsetBuffer = offsets;
+		this.targetBuffer = targets;
+		this.weightBuffer = weights;
+	}
+
+//	building the graph from the topology matrix
+//	0 and -1 mean no link exactly like in the matrix files
+	public static CsrGraph fromMatrix(int matrix[][]) {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startBuild() : null;
+		int n = matrix.length;
+		int offsets[] = new int[n + 1];
+//		first pass counts the links so the arrays are allocated once
+		for (int i = 0; i < n; i++) {
+			int links = 0;
+			for (int j = 0; j < n; j++) {
+				int distance = matrix[i][j];
+				if (distance != 0 && distance != -1) {
+					links++;
+				}
+			}
+			offsets[i + 1] = offsets[i] + links;
+		}
+		int targets[] = new int[offsets[n]];
+		double weights[] = new double[offsets[n]];
+		int slot = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				int distance = matrix[i][j];
+				if (distance != 0 && distance != -1) {
+					targets[slot] = j;
+					weights[slot] = distance;
+					slot++;
+				}
+			}
+		}
+		if (Metrics.ENABLED) {
+			Metrics.graphBuilt(timer, n, slot);
+		}
+		return new CsrGraph(n, offsets, targets, weights);
+	}
+
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+//	true when the arrays are read from a mapped snapshot
+	public boolean isMapped() {
+		return offsets == null;
+	}
+
+//	first link slot of router u
+	public int begin(int u) {
+		return offsets != null ? offsets[u] : offsetBuffer.get(u);
+	}
+
+//	one past the last link slot of router u
+	public int end(int u) {
+		return offsets != null ? offsets[u + 1] : offsetBuffer.get(u + 1);
+	}
+
+	public int degree(int u) {
+		return end(u) - begin(u);
+	}
+
+	public int target(int edge) {
+		return targets != null ? targets[edge] : targetBuffer.get(edge);
+	}
+
+	public double weight(int edge) {
+		return weights != null ? weights[edge] : weightBuffer.get(edge);
+	}
+
+//	largest link weight when every weight is a whole number of 0 or more,
+//	else -1, worked out on the first call, an empty graph gives 0
+//	a matrix may hold costs below -1, those must not reach the buckets
+	public int maxIntegerWeight() {
+		int max = maxIntegerWeight;
+		if (max == -2) {
+			max = 0;
+			for (int e = 0; e < edgeCount; e++) {
+				double w = weight(e);
+				if (w != Math.rint(w) || w < 0 || w > Integer.MAX_VALUE) {
+					max = -1;
+					break;
+				}
+				max = Math.max(max, (int) w);
+			}
+			maxIntegerWeight = max;
+		}
+		return max;
+	}
+
+//	slot of the link from u to v or -1 when there is none
+	public int findEdge(int u, int v) {
+		for (int e = begin(u), end = end(u); e < end; e++) {
+			if (target(e) == v) {
+				return e;
+			}
+		}
+		return -1;
+	}
+
+//	copy of the graph with every link to and from the router taken out
+	public CsrGraph withoutRouter(int router) {
+		int n = vertexCount;
+		int newOffsets[] = new int[n + 1];
+		int newTargets[] = new int[edgeCount];
+		double newWeights[] = new double[edgeCount];
+		int slot = 0;
+		for (int u = 0; u < n; u++) {
+			if (u != router) {
+				for (int e = begin(u), end = end(u); e < end; e++) {
+					if (target(e) != router) {
+						newTargets[slot] = target(e);
+						newWeights[slot] = weight(e);
+						slot++;
+					}
+				}
+			}
+			newOffsets[u + 1] = slot;
+		}
+		return new CsrGraph(n, newOffsets, Arrays.copyOf(newTargets, slot), Arrays.copyOf(newWeights, slot));
+	}
+
+//	copy of the graph with the link from u to v taken out
+	public CsrGraph withoutLink(int u, int v) {
+		return withLinkCost(u, v, -1);
+	}
+
+//	copy of the graph with the cost of the link from u to v changed
+//	the link is added when there is none, a cost of -1 takes it out
+	public CsrGraph withLinkCost(int u, int v, double cost) {
+		int n = Math.max(vertexCount, Math.max(u, v) + 1);
+		int newOffsets[] = new int[n + 1];
+		int newTargets[] = new int[edgeCount + 1];
+		double newWeights[] = new double[edgeCount + 1];
+		int slot = 0;
+		for (int x = 0; x < n; x++) {
+			boolean found = false;
+			if (x < vertexCount) {
+				for (int e = begin(x), end = end(x); e < end; e++) {
+					if (x == u && target(e) == v) {
+						found = true;
+						if (cost == -1) {
+							continue;
+						}
+						newTargets[slot] = v;
+						newWeights[slot++] = cost;
+					} else {
+						newTargets[slot] = target(e);
+						newWeights[slot++] = weight(e);
+					}
+				}
+			}
+			if (x == u && !found && cost != -1) {
+				newTargets[slot] = v;
+				newWeights[slot++] = cost;
+			}
+			newOffsets[x + 1] = slot;
+		}
+		return new CsrGraph(n, newOffsets, Arrays.copyOf(newTargets, slot), Arrays.copyOf(newWeights, slot));
+	}
+
+//	copy of the graph with the costs of many links changed in one pass
+//	instead of a copy per link, change i is the link from[i] to to[i]
+//	and works like withLinkCost, at most one change per link and
+//	both routers must already be in the graph
+	public CsrGraph withLinkCosts(int from[], int to[], double cost[], int count) {
+		int n = vertexCount;
+//		changes grouped by the router the link starts at
+		int first[] = new int[n + 1];
+		for (int i = 0; i < count; i++) {
+			first[from[i] + 1]++;
+		}
+		for (int x = 0; x < n; x++) {
+			first[x + 1] += first[x];
+		}
+		int order[] = new int[count];
+		int next[] = Arrays.copyOf(first, n);
+		for (int i = 0; i < count; i++) {
+			order[next[from[i]]++] = i;
+		}
+		boolean found[] = new boolean[count];
+		int newOffsets[] = new int[n + 1];
+		int newTargets[] = new int[edgeCount + count];
+		double newWeights[] = new double[edgeCount + count];
+		int slot = 0;
+		for (int x = 0; x < n; x++) {
+			for (int e = begin(x), end = end(x); e < end; e++) {
+				int v = target(e);
+				double w = weight(e);
+				for (int j = first[x]; j < first[x + 1]; j++) {
+					if (to[order[j]] == v) {
+						found[order[j]] = true;
+						w = cost[order[j]];
+					}
+				}
+				if (w != -1) {
+					newTargets[slot] = v;
+					newWeights[slot++] = w;
+				}
+			}
+			for (int j = first[x]; j < first[x + 1]; j++) {
+				int i = order[j];
+				if (!found[i] && cost[i] != -1) {
+					newTargets[slot] = to[i];
+					newWeights[slot++] = cost[i];
+				}
+			}
+			newOffsets[x + 1] = slot;
+		}
+		return new CsrGraph(n, newOffsets, Arrays.copyOf(newTargets, slot), Arrays.copyOf(newWeights, slot));
+	}
+
+//	builds a graph one link at a time, used when there is no matrix
+	public static class Builder {
+		private int vertexCount;
+		private int from[] = new int[16];
+		private int to[] = new int[16];
+		private double weight[] = new double[16];
+		private int size;
+
+		public Builder(int vertexCount) {
+			this.vertexCount = vertexCount;
+		}
+
+//		routers beyond the current count grow the graph
+		public Builder addEdge(int u, int v, double distance) {
+			if (u < 0 || v < 0) {
+				throw new IllegalArgumentException("Router index must not be negative: " + u + " -> " + v);
+			}
+			if (size == from.length) {
+				int capacity = size * 2;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				weight = Arrays.copyOf(weight, capacity);
+			}
+			from[size] = u;
+			to[size] = v;
+			weight[size] = distance;
+			size++;
+			vertexCount = Math.max(vertexCount, Math.max(u, v) + 1);
+			return this;
+		}
+
+//		makes room for routers that have no links at all
+		public Builder ensureVertexCount(int n) {
+			vertexCount = Math.max(vertexCount, n);
+			return this;
+		}
+
+		public int vertexCount() {
+			return vertexCount;
+		}
+
+		public int edgeCount() {
+			return size;
+		}
+
+//		counting sort on the source router, links of a router keep
+//		the order they were added in
+		public CsrGraph build() {
+			Metrics.Timer timer = Metrics.ENABLED ? Metrics.startBuild() : null;
+			int offsets[] = new int[vertexCount + 1];
+			for (int i = 0; i < size; i++) {
+				offsets[from[i] + 1]++;
+			}
+			for (int u = 0; u < vertexCount; u++) {
+				offsets[u + 1] += offsets[u];
+			}
+			int next[] = Arrays.copyOf(offsets, vertexCount);
+			int targets[] = new int[size];
+			double weights[] = new double[size];
+			for (int i = 0; i < size; i++) {
+				int slot = next[from[i]]++;
+				targets[slot] = to[i];
+				weights[slot] = weight[i];
+			}
+			if (Metrics.ENABLED) {
+				Metrics.graphBuilt(timer, vertexCount, size);
+			}
+			return new CsrGraph(vertexCount, offsets, targets, weights);
+		}
+	}
+}
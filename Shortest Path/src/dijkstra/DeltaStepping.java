@@ -0,0 +1,315 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the parallel single source engine,
+ * 					delta-stepping
+ * 					- routers are kept in buckets of width delta by distance,
+ * 					the lowest bucket is emptied by relaxing its light links
+ * 					(cost up to delta) in parallel rounds, then the heavy
+ * 					links of everything it settled are relaxed once
+ * 					- distances are lowered with compare and set on their
+ * 					bits, for costs above zero the bits order like the values
+ * 					- buckets are used round robin, a relaxation never
+ * 					reaches further than the largest cost / delta buckets
+ * 					- previous routers are worked out at the end with the
+ * 					lowest index rule so the tree is the one computePaths
+ * 					gives
+ * 					- small graphs and single core pools go to computePaths
+ *
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class DeltaStepping {
+
+//	graphs with fewer links than this run on computePaths
+//	can be set with -Ddijkstra.delta.threshold=0 to always run in parallel
+	public static int sequentialThreshold = Integer.getInteger("dijkstra.delta.threshold", 1 << 20);
+
+//	bucket width, 0 works it out from the link costs
+//	can be set with -Ddijkstra.delta=5
+	public static double delta = Double.parseDouble(System.getProperty("dijkstra.delta", "0"));
+
+//	routers handed to one task in a round, smaller rounds run on the caller
+	private static final int GRAIN = 1024;
+
+	private static final long INFINITE = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+//	growable int array for bucket contents and relaxed routers
+	private static final class IntList {
+		int items[] = new int[16];
+		int size;
+
+		void add(int value) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+			}
+			items[size++] = value;
+		}
+	}
+
+	private final CsrGraph graph;
+	private final ForkJoinPool pool;
+	private final double width;			// delta
+	private final AtomicLongArray distance;	// bits of the distances
+	private final IntList buckets[];	// used round robin
+	private final int seen[];			// stamp of the last round that listed the router
+	private final int settled[];		// round of the last bucket that settled the router
+	private int stamp;
+	private int round;					// buckets emptied so far
+	private long queued;				// entries in all the buckets
+	private long enqueued;				// entries ever put in the buckets
+
+	private DeltaStepping(CsrGraph graph, double width, ForkJoinPool pool) {
+		int n = graph.vertexCount();
+		this.graph = graph;
+		this.pool = pool;
+		this.width = width;
+		distance = new AtomicLongArray(n);
+		for (int v = 0; v < n; v++) {
+			distance.set(v, INFINITE);
+		}
+		double largest = 0;
+		for (int e = 0, m = graph.edgeCount(); e < m; e++) {
+			largest = Math.max(largest, graph.weight(e));
+		}
+		buckets = new IntList[(int) Math.min(Integer.MAX_VALUE - 8, (long) (largest / width) + 2)];
+		seen = new int[n];
+		settled = new int[n];
+	}
+
+//	shortest paths from the source, delta-stepping on the common pool
+//	when the graph is large enough and there is more than one core
+	public static ShortestPathTree computePaths(CsrGraph graph, int source) {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		if (graph.edgeCount() < sequentialThreshold || pool.getParallelism() < 2) {
+			return Dijkstras.computePaths(graph, source);
+		}
+		return computePaths(graph, source, delta > 0 ? delta : automaticDelta(graph), pool);
+	}
+
+//	delta-stepping with the given bucket width on the given pool
+	public static ShortestPathTree computePaths(CsrGraph graph, int source, double delta, ForkJoinPool pool) {
+		if (!(delta > 0) || Double.isInfinite(delta)) {
+			throw new IllegalArgumentException("Delta must be positive: " + delta);
+		}
+		return new DeltaStepping(graph, delta, pool).run(source);
+	}
+
+//	largest cost over the average number of links per router, but not
+//	below the smallest cost so a bucket always settles something
+	public static double automaticDelta(CsrGraph graph) {
+		int m = graph.edgeCount();
+		if (m == 0) {
+			return 1;
+		}
+		double smallest = Double.POSITIVE_INFINITY;
+		double largest = 0;
+		for (int e = 0; e < m; e++) {
+			double w = graph.weight(e);
+			smallest = Math.min(smallest, w);
+			largest = Math.max(largest, w);
+		}
+		double degree = Math.max(1., (double) m / graph.vertexCount());
+		return Math.max(smallest, largest / degree);
+	}
+
+	private ShortestPathTree run(int source) {
+//		for the metrics every bucket entry is an insert and every
+//		lowered distance a decrease key
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long settledCount = 0;
+		long relaxed = 0;
+		long decreases = 0;
+		distance.set(source, 0L);
+		enqueue(source, 0);
+		long bucket = 0;
+		while (queued > 0) {
+			int slot = (int) (bucket % buckets.length);
+			if (buckets[slot] == null || buckets[slot].size == 0) {
+				bucket++;
+				continue;
+			}
+			IntList done = new IntList();
+			round++;
+//			light links until no router is left in the bucket
+			while (buckets[slot] != null && buckets[slot].size > 0) {
+				int frontier[] = take(slot, bucket);
+				for (int u : frontier) {
+					if (settled[u] != round) {
+						settled[u] = round;
+						done.add(u);
+					}
+					if (Metrics.ENABLED) {
+						relaxed += graph.degree(u);
+					}
+				}
+				decreases += merge(relax(frontier, frontier.length, true));
+			}
+//			heavy links of the settled routers go to later buckets
+			decreases += merge(relax(done.items, done.size, false));
+			if (Metrics.ENABLED) {
+				settledCount += done.size;
+			}
+			bucket++;
+		}
+		ShortestPathTree tree = tree(source);
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settledCount, relaxed, enqueued, decreases);
+		}
+		return tree;
+	}
+
+//	routers of the bucket whose distance still falls in it, once each
+	private int[] take(int slot, long bucket) {
+		IntList list = buckets[slot];
+		buckets[slot] = null;
+		queued -= list.size;
+		stamp++;
+		int count = 0;
+		for (int i = 0; i < list.size; i++) {
+			int u = list.items[i];
+			if (seen[u] != stamp && bucketOf(u) == bucket) {
+				seen[u] = stamp;
+				list.items[count++] = u;
+			}
+		}
+		return Arrays.copyOf(list.items, count);
+	}
+
+	private long bucketOf(int v) {
+		return (long) (Double.longBitsToDouble(distance.get(v)) / width);
+	}
+
+	private void enqueue(int v, long bucket) {
+		int slot = (int) (bucket % buckets.length);
+		if (buckets[slot] == null) {
+			buckets[slot] = new IntList();
+		}
+		buckets[slot].add(v);
+		queued++;
+		enqueued++;
+	}
+
+//	putting the relaxed routers in the buckets of their new distance
+//	returns the number of distances lowered
+	private int merge(List<IntList> relaxed) {
+		stamp++;
+		int lowered = 0;
+		for (IntList list : relaxed) {
+			lowered += list.size;
+			for (int i = 0; i < list.size; i++) {
+				int v = list.items[i];
+				if (seen[v] != stamp) {
+					seen[v] = stamp;
+					enqueue(v, bucketOf(v));
+				}
+			}
+		}
+		return lowered;
+	}
+
+//	relaxing the light or heavy links of the routers, returns the
+//	routers whose distance went down
+	private List<IntList> relax(int routers[], int count, boolean light) {
+		if (count <= GRAIN) {
+			return Arrays.asList(relax(routers, 0, count, light));
+		}
+		int tasks = (count + GRAIN - 1) / GRAIN;
+		try {
+			return pool.submit(() -> IntStream.range(0, tasks).parallel()
+					.mapToObj(t -> relax(routers, t * GRAIN, Math.min(count, (t + 1) * GRAIN), light))
+					.collect(Collectors.toList())).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Delta-stepping interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Delta-stepping failed", e.getCause());
+		}
+	}
+
+	private IntList relax(int routers[], int from, int to, boolean light) {
+		IntList lowered = new IntList();
+		for (int i = from; i < to; i++) {
+			int u = routers[i];
+			double distanceU = Double.longBitsToDouble(distance.get(u));
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				double weight = graph.weight(e);
+				if ((weight <= width) == light) {
+					int v = graph.target(e);
+					if (lower(v, distanceU + weight)) {
+						lowered.add(v);
+					}
+				}
+			}
+		}
+		return lowered;
+	}
+
+//	compare and set until the distance is at most d
+	private boolean lower(int v, double d) {
+		long bits = Double.doubleToRawLongBits(d);
+		long current = distance.get(v);
+		while (bits < current) {
+			if (distance.compareAndSet(v, current, bits)) {
+				return true;
+			}
+			current = distance.get(v);
+		}
+		return false;
+	}
+
+//	previous router of every router is the lowest one on a shortest path
+//	to it, the same tie rule as computePaths
+	private ShortestPathTree tree(int source) {
+		int n = graph.vertexCount();
+		double result[] = new double[n];
+		for (int v = 0; v < n; v++) {
+			result[v] = Double.longBitsToDouble(distance.get(v));
+		}
+		AtomicIntegerArray previous = new AtomicIntegerArray(n);
+		for (int v = 0; v < n; v++) {
+			previous.set(v, -1);
+		}
+		int tasks = (n + GRAIN - 1) / GRAIN;
+		try {
+			pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(t -> {
+				for (int u = t * GRAIN, last = Math.min(n, (t + 1) * GRAIN); u < last; u++) {
+					if (result[u] == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+						int v = graph.target(e);
+						if (result[u] + graph.weight(e) == result[v]) {
+							int p = previous.get(v);
+							while ((p == -1 || u < p) && !previous.compareAndSet(v, p, u)) {
+								p = previous.get(v);
+							}
+						}
+					}
+				}
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Delta-stepping interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Delta-stepping failed", e.getCause());
+		}
+		int previousArray[] = new int[n];
+		for (int v = 0; v < n; v++) {
+			previousArray[v] = previous.get(v);
+		}
+		previousArray[source] = -1;
+		return new ShortestPathTree(source, result, previousArray);
+	}
+}
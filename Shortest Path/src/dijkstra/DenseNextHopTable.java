@@ -0,0 +1,166 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the next hop table as an n x n matrix
+ * 					- every entry is the next hop + 1 (0 for none) in the
+ * 					narrowest width that holds n: 1 byte up to 255 routers,
+ * 					2 bytes up to 65535, else 4
+ * 					- entries live in direct buffers outside the Java heap,
+ * 					or in a mapped file for tables larger than memory
+ * 					- rows are split over several buffers since one buffer
+ * 					holds at most 2GB, lookup is O(1)
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+public class DenseNextHopTable implements NextHopTable {
+//	largest buffer used for a block of rows
+	private static final long CHUNK = 1L << 30;
+
+	private final int routerCount;
+	private final int width;			// bytes per entry, 1, 2 or 4
+	private final int rowsPerChunk;		// rows held by every buffer
+	private final ByteBuffer chunks[];
+
+	private DenseNextHopTable(int routerCount, ByteBuffer chunks[], int rowsPerChunk) {
+		this.routerCount = routerCount;
+		this.width = widthFor(routerCount);
+		this.chunks = chunks;
+		this.rowsPerChunk = rowsPerChunk;
+	}
+
+//	bytes per entry for a table of n routers
+	public static int widthFor(int n) {
+		if (n <= 0xFF) {
+			return 1;
+		}
+		if (n <= 0xFFFF) {
+			return 2;
+		}
+		return 4;
+	}
+
+//	bytes of the table of n routers
+	public static long bytesFor(int n) {
+		return (long) n * n * widthFor(n);
+	}
+
+//	largest table compute puts in direct memory
+	public static long maxBytes() {
+		return (long) Dijkstras.denseTableMegabytes << 20;
+	}
+
+//	table of the graph in direct buffers, rows computed in parallel
+//	the size is checked first, a table over the limit is not started
+	public static DenseNextHopTable compute(CsrGraph graph) {
+		int n = graph.vertexCount();
+		if (bytesFor(n) > maxBytes()) {
+			throw new IllegalArgumentException("A next hop matrix of " + n + " routers needs "
+					+ (bytesFor(n) >> 20) + " MB, more than the limit of " + (maxBytes() >> 20)
+					+ " MB, use the run length table or a mapped file");
+		}
+		int rowsPerChunk = rowsPerChunk(n);
+		ByteBuffer chunks[] = new ByteBuffer[chunkCount(n, rowsPerChunk)];
+		for (int c = 0; c < chunks.length; c++) {
+			chunks[c] = ByteBuffer.allocateDirect((int) chunkBytes(n, rowsPerChunk, c)).order(ByteOrder.nativeOrder());
+		}
+		return fill(graph, new DenseNextHopTable(n, chunks, rowsPerChunk));
+	}
+
+//	table of the graph written to a mapped file, the file is created
+//	or overwritten and can be removed once the table is no longer used
+	public static DenseNextHopTable compute(CsrGraph graph, Path file) throws IOException {
+		int n = graph.vertexCount();
+		int rowsPerChunk = rowsPerChunk(n);
+		ByteBuffer chunks[] = new ByteBuffer[chunkCount(n, rowsPerChunk)];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = 0;
+			for (int c = 0; c < chunks.length; c++) {
+				long size = chunkBytes(n, rowsPerChunk, c);
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+				chunks[c] = chunk.order(ByteOrder.nativeOrder());
+				position += size;
+			}
+		}
+		return fill(graph, new DenseNextHopTable(n, chunks, rowsPerChunk));
+	}
+
+	private static int rowsPerChunk(int n) {
+		long rowBytes = Math.max(1L, (long) n * widthFor(n));
+		return (int) Math.max(1, Math.min(n, CHUNK / rowBytes));
+	}
+
+	private static int chunkCount(int n, int rowsPerChunk) {
+		return (n + rowsPerChunk - 1) / rowsPerChunk;
+	}
+
+	private static long chunkBytes(int n, int rowsPerChunk, int chunk) {
+		int rows = Math.min(rowsPerChunk, n - chunk * rowsPerChunk);
+		return (long) rows * n * widthFor(n);
+	}
+
+//	every row goes to its own range of a buffer so the threads
+//	write without locking
+	private static DenseNextHopTable fill(CsrGraph graph, DenseNextHopTable table) {
+		ConnectionTables.forEachRow(graph, ForkJoinPool.commonPool(), (row, source) -> table.setRow(source, row));
+		return table;
+	}
+
+	private void setRow(int source, int row[]) {
+		ByteBuffer chunk = chunks[source / rowsPerChunk];
+		int offset = (source % rowsPerChunk) * routerCount * width;
+		switch (width) {
+		case 1:
+			for (int t = 0; t < routerCount; t++) {
+				chunk.put(offset + t, (byte) (row[t] + 1));
+			}
+			break;
+		case 2:
+			for (int t = 0; t < routerCount; t++) {
+				chunk.putShort(offset + 2 * t, (short) (row[t] + 1));
+			}
+			break;
+		default:
+			for (int t = 0; t < routerCount; t++) {
+				chunk.putInt(offset + 4 * t, row[t] + 1);
+			}
+		}
+	}
+
+	public int routerCount() {
+		return routerCount;
+	}
+
+	public int width() {
+		return width;
+	}
+
+	public int nextHop(int source, int target) {
+		ByteBuffer chunk = chunks[source / rowsPerChunk];
+		int index = (source % rowsPerChunk) * routerCount + target;
+		switch (width) {
+		case 1:
+			return (chunk.get(index) & 0xFF) - 1;
+		case 2:
+			return (chunk.getShort(index * 2) & 0xFFFF) - 1;
+		default:
+			return chunk.getInt(index * 4) - 1;
+		}
+	}
+
+	public long bytes() {
+		return (long) routerCount * routerCount * width;
+	}
+}
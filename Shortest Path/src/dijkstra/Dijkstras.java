@@ -17,7 +17,13 @@ package dijkstra;
  */
 
 import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 // Creating a class which is a graph like structure
 class Vertex implements Comparable<Vertex> {
@@ -25,6 +31,7 @@ class Vertex implements Comparable<Vertex> {
 	public List<Edge> adjacencies;  // List of connections to it
 	public double minDistance = Double.POSITIVE_INFINITY; // initial distance will be infinity
 	public Vertex previous;			// previous node visited
+	public int index;				// position of the router in the heap arrays
 
 //	structure for router and its distances for other routers
 	public Vertex(String argName) {
@@ -65,20 +72,70 @@ class Edge {
 
 public class Dijkstras {
 
+//	heap used by computePaths, 2 is the binary heap and anything larger a d-ary heap
+//	can be set with -Ddijkstra.heap.arity=4 to compare them on a topology
+	public static int heapArity = Integer.getInteger("dijkstra.heap.arity", 2);
+
+//	option 3 answers from a contraction hierarchy when set
+//	can be set with -Ddijkstra.ch=true for heavy query loads
+	public static boolean useContractionHierarchy = Boolean.getBoolean("dijkstra.ch");
+
+//	random queries timed on the hierarchy and on Dijkstra once it is built
+//	can be set with -Ddijkstra.ch.compare=0 to skip the comparison
+	public static int hierarchyComparison = Integer.getInteger("dijkstra.ch.compare", 100);
+
+//	option 3 answers with the landmark (A*) search when set, same path as without it
+//	can be set with -Ddijkstra.alt=true, the landmarks are kept through option 4
+	public static boolean useLandmarks = Boolean.getBoolean("dijkstra.alt");
+
+//	paths option 3 lists in order of cost, the best one and the alternatives after it
+//	can be set with -Ddijkstra.kpaths=10 for traffic engineering
+	public static int kShortestPaths = Integer.getInteger("dijkstra.kpaths", 1);
+
+//	graphs whose weights are whole numbers up to this are run on the bucket queue
+//	can be set with -Ddijkstra.bucket.limit=0 to always use the heap
+	public static int bucketLimit = Integer.getInteger("dijkstra.bucket.limit", 4096);
+
+//	connection tables list every equal cost next hop when set
+//	can be set with -Ddijkstra.ecmp=true to model load balancing
+	public static boolean useEqualCostMultipath = Boolean.getBoolean("dijkstra.ecmp");
+
+//	largest next hop matrix option 1 builds in direct memory, larger topologies
+//	get the run length table, can be set with -Ddijkstra.table.dense.mb=8192
+	public static int denseTableMegabytes = Integer.getInteger("dijkstra.table.dense.mb", 1024);
+
+//	megabytes of shortest path trees kept per topology for repeated sources
+//	can be set with -Ddijkstra.cache.mb=0 to turn the cache off
+	public static int cacheMegabytes = Integer.getInteger("dijkstra.cache.mb", 64);
+
 //	calculating all the paths from source to destination
 //	this is done mainly for connection table we use this same to find the 
 //	optimal/shortest path 
 	public static void computePaths(Vertex source) {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long settled = 0;
+		long relaxed = 0;
+		long inserts = 1;
+		long decreases = 0;
 		source.minDistance = 0.;  // as minDistance is double so 0.
-		
-//		this is the list of vertexes
-		PriorityQueue<Vertex> vertexQueue = new PriorityQueue<Vertex>(); 
+
+//		numbering the routers reachable from the source so that
+//		the queue can work on int indexes
+		List<Vertex> routers = numberRouters(source);
+
+//		this is the list of vertexes, decreaseKey replaces the
+//		linear remove and add of the old PriorityQueue
+		IndexedHeap vertexQueue = IndexedHeap.create(heapArity, routers.size());
 //		vertexes are queued initially it would be the source
-		vertexQueue.add(source);
+		vertexQueue.insert(source.index, source.minDistance);
 
 //		if the source provided is not initial then
 		while (!vertexQueue.isEmpty()) {
-			Vertex u = vertexQueue.poll();
+			Vertex u = routers.get(vertexQueue.poll());
+			if (Metrics.ENABLED) {
+				settled++;
+				relaxed += u.adjacencies.size();
+			}
 
 //			Visit each edge exiting u
 			for (Edge e : u.adjacencies) {
@@ -86,18 +143,48 @@ public class Dijkstras {
 				double weight = e.weight;
 				double distanceThroughU = u.minDistance + weight;
 				if (distanceThroughU < v.minDistance) {
-					vertexQueue.remove(v);
 					v.minDistance = distanceThroughU;
 					v.previous = u;
-					vertexQueue.add(v);
+					if (Metrics.ENABLED) {
+						if (vertexQueue.contains(v.index)) {
+							decreases++;
+						} else {
+							inserts++;
+						}
+					}
+					vertexQueue.insertOrDecrease(v.index, distanceThroughU);
 				}
 
 			}
 		}
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, -1, settled, relaxed, inserts, decreases);
+		}
+	}
+
+//	gives every router reachable from the source an index
+//	and returns the routers in index order
+	private static List<Vertex> numberRouters(Vertex source) {
+		List<Vertex> routers = new ArrayList<Vertex>();
+		Set<Vertex> seen = new HashSet<Vertex>();
+		seen.add(source);
+		source.index = 0;
+		routers.add(source);
+//		breadth first walk, the list doubles as the walk queue
+		for (int i = 0; i < routers.size(); i++) {
+			for (Edge e : routers.get(i).adjacencies) {
+				if (seen.add(e.target)) {
+					e.target.index = routers.size();
+					routers.add(e.target);
+				}
+			}
+		}
+		return routers;
 	}
 
 //	to find the optimal path
 	public static List<Vertex> getShortestPathTo(Vertex target) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 		List<Vertex> path = new ArrayList<Vertex>(); //from src to target paths
 		for (Vertex vertex = target; vertex != null; vertex = vertex.previous)
 //			adds the router to the list
@@ -105,15 +192,443 @@ public class Dijkstras {
 // 		as reverse path will be found the paths will be populated in reverse order 
 //		to make it correct we are reversing the path
 		Collections.reverse(path);
+		if (Metrics.ENABLED) {
+			Metrics.pathReconstructed(start);
+		}
 //		path is returned
 		return path;
 	}
 
+//	shortest paths on the CSR graph
+//	distances and previous routers are returned in primitive arrays
+	public static ShortestPathTree computePaths(CsrGraph graph, int source) {
+		int n = graph.vertexCount();
+		double distance[] = new double[n];
+		int previous[] = new int[n];
+		computePaths(graph, source, createQueue(graph), distance, previous);
+		return new ShortestPathTree(source, distance, previous);
+	}
+
+//	queue for shortest path runs on the graph, Dial's buckets when all
+//	weights are small whole numbers of 0 or more and the heap for anything else
+//	both give the same tree, the tie rule below does not depend on the queue
+	public static IndexedHeap createQueue(CsrGraph graph) {
+		int maxWeight = graph.maxIntegerWeight();
+		if (maxWeight >= 0 && maxWeight <= bucketLimit) {
+			return new BucketQueue(maxWeight, graph.vertexCount());
+		}
+		return IndexedHeap.create(heapArity, graph.vertexCount());
+	}
+
+//	same as above but the caller supplies the queue and result arrays
+//	so repeated runs do not allocate, the queue must be empty
+//	on equal distances the lower router index is kept as previous
+//	so the tree does not depend on the order of the heap
+	public static void computePaths(CsrGraph graph, int source, IndexedHeap vertexQueue, double distance[],
+			int previous[]) {
+//		counted in locals, only when metrics are on
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long settled = 0;
+		long relaxed = 0;
+		long inserts = 1;
+		long decreases = 0;
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(previous, -1);
+		distance[source] = 0.;
+		vertexQueue.insert(source, 0.);
+
+		while (!vertexQueue.isEmpty()) {
+			int u = vertexQueue.poll();
+			double distanceU = distance[u];
+			if (Metrics.ENABLED) {
+				settled++;
+				relaxed += graph.degree(u);
+			}
+//			Visit each link exiting u
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				double distanceThroughU = distanceU + graph.weight(e);
+				if (distanceThroughU < distance[v]) {
+					distance[v] = distanceThroughU;
+					previous[v] = u;
+					if (Metrics.ENABLED) {
+						if (vertexQueue.contains(v)) {
+							decreases++;
+						} else {
+							inserts++;
+						}
+					}
+					vertexQueue.insertOrDecrease(v, distanceThroughU);
+				} else if (distanceThroughU == distance[v] && u < previous[v]) {
+					previous[v] = u;
+				}
+			}
+		}
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settled, relaxed, inserts, decreases);
+		}
+	}
+
+//	printing the topology matrix row by row
+	static void printMatrix(int matrix[][]) {
+		for (int i = 0; i < matrix.length; i++) {
+			for (int j = 0; j < matrix.length; j++) {
+				System.out.print(matrix[i][j] + " ");
+			}
+			System.out.println("");
+		}
+	}
+
+//	printing the connection table of the source of the tree
+//	routers are numbered from 1 when displayed
+	static void printConnectionTable(ShortestPathTree tree) {
+		printConnectionTable(tree.nextHops());
+	}
+
+//	printing one row of the next hop matrix
+	static void printConnectionTable(int hops[]) {
+		System.out.println("Destination\t\tInterface\n");
+		for (int v = 0; v < hops.length; v++) {
+			if (hops[v] == -1) {
+//				source itself or no path exists to the router
+				System.out.println((v + 1) + "\t\t\t-");
+			} else {
+				System.out.println((v + 1) + " \t\t\t" + (hops[v] + 1));
+			}
+		}
+	}
+
+//	printing the connection table with the equal cost next hops
+//	of every destination, "2, 5" when two interfaces share the load
+	static void printConnectionTable(EqualCostTree tree) {
+		System.out.println("Destination\t\tInterface\n");
+		for (int v = 0; v < tree.vertexCount(); v++) {
+			int hops[] = tree.nextHops(v);
+			if (hops.length == 0) {
+				System.out.println((v + 1) + "\t\t\t-");
+			} else {
+				StringBuilder sb = new StringBuilder();
+				for (int i = 0; i < hops.length; i++) {
+					if (i > 0) {
+						sb.append(", ");
+					}
+					sb.append(hops[i] + 1);
+				}
+				System.out.println((v + 1) + " \t\t\t" + sb);
+			}
+		}
+	}
+
+//	printing the path from the source of the tree to the destination
+	static void printShortestPath(ShortestPathTree tree, int destination) {
+		printShortestPath(tree.source(), destination, tree.pathTo(destination), tree.distanceTo(destination));
+	}
+
+	static void printShortestPath(int source, int destination, int path[], double cost) {
+		System.out.println("The shortest path from router " + (source + 1) + " to router " + (destination + 1)
+				+ " is ");
+		for (int next_router : path) {
+			if (next_router == source) {
+				System.out.print(next_router + 1);
+			} else {
+				System.out.print(" -> " + (next_router + 1));
+			}
+		}
+		System.out.println("");
+		System.out.println("The total cost is " + cost);
+	}
+
+//	headless batch mode, no menu
+//	java dijkstra.Dijkstras <topology file> <query file> [output file]
+//	results go to the output file or standard output, see BatchQueries
+	static void runBatch(String args[]) throws IOException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("Usage: java dijkstra.Dijkstras <topology file> <query file> [output file]");
+			System.exit(2);
+		}
+		long start = System.nanoTime();
+		Topology topology = Topology.load(Paths.get(args[0]));
+		BatchQueries queries = BatchQueries.load(Paths.get(args[1]), topology.routerCount());
+		Writer out = args.length == 3
+				? Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)
+				: new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+		try {
+			queries.run(topology.graph(), out);
+		} finally {
+			if (args.length == 3) {
+				out.close();
+			} else {
+				out.flush();
+			}
+		}
+		System.err.println(queries.queryCount() + " queries from " + queries.sourceCount() + " source routers in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+		if (Metrics.ENABLED) {
+			System.err.println(Metrics.summary());
+		}
+	}
+
+//	route query service on localhost until the process is stopped
+//	java dijkstra.Dijkstras --serve <topology file> [port]
+	static void runService(String args[]) throws IOException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("Usage: java dijkstra.Dijkstras --serve <topology file> [port]");
+			System.exit(2);
+		}
+		Topology topology = Topology.load(Paths.get(args[1]));
+		RouteService service = new RouteService(topology.graph());
+		InetSocketAddress address = service.start(args.length == 3 ? Integer.parseInt(args[2]) : 8542);
+		System.err.println("Serving " + topology.routerCount() + " routers on http://" + address.getHostString() + ":"
+				+ address.getPort());
+	}
+
+//	what-if failure analysis, no menu
+//	java dijkstra.Dijkstras --failures <topology file> <scenario file> [output file]
+//	the scenario file can be routers, links or router-pairs to fail every
+//	router, every link both ways or every pair of routers, see FailureAnalysis
+//	router pairs are made one by one as they are run, up to 65536 routers
+	static void runFailures(String args[]) throws IOException {
+		if (args.length < 3 || args.length > 4) {
+			System.err.println("Usage: java dijkstra.Dijkstras --failures <topology file> "
+					+ "<scenario file | routers | links | router-pairs> [output file]");
+			System.exit(2);
+		}
+		long start = System.nanoTime();
+		Topology topology = Topology.load(Paths.get(args[1]));
+		CsrGraph graph = topology.graph();
+		List<FailureAnalysis.Scenario> scenarios;
+		if (args[2].equals("routers")) {
+			scenarios = FailureAnalysis.singleRouters(graph.vertexCount());
+		} else if (args[2].equals("links")) {
+			scenarios = FailureAnalysis.singleLinks(graph);
+		} else if (args[2].equals("router-pairs")) {
+			scenarios = FailureAnalysis.routerPairs(graph.vertexCount());
+		} else {
+			scenarios = FailureAnalysis.load(Paths.get(args[2]), graph);
+		}
+		FailureAnalysis analysis = new FailureAnalysis(graph);
+		Writer out = args.length == 4
+				? Files.newBufferedWriter(Paths.get(args[3]), StandardCharsets.UTF_8)
+				: new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+		try {
+			analysis.run(scenarios, out);
+		} finally {
+			if (args.length == 4) {
+				out.close();
+			} else {
+				out.flush();
+			}
+		}
+		System.err.println(scenarios.size() + " failure scenarios on " + graph.vertexCount() + " routers in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+//	synthetic topology, no menu
+//	java dijkstra.Dijkstras --generate <geometric|waxman|ba|grid|random|dense> <routers> <output file>
+//	[seed=1] [degree=4] [cost=1-20] [format=edges|matrix|adjacency|snapshot]
+	static void runGenerate(String args[]) throws IOException {
+		String usage = "Usage: java dijkstra.Dijkstras --generate <geometric | waxman | ba | grid | random | dense> "
+				+ "<routers> <output file> [seed=1] [degree=4] [cost=1-20] "
+				+ "[format=edges | matrix | adjacency | snapshot]";
+		if (args.length < 4) {
+			System.err.println(usage);
+			System.exit(2);
+		}
+		long start = System.nanoTime();
+		String cost[] = option(args, 4, "cost", "1-20").split("-");
+		String format = option(args, 4, "format", "edges");
+		TopologyFormat topologyFormat = format.equals("edges") ? TopologyFormat.EDGE_LIST
+				: format.equals("matrix") ? TopologyFormat.MATRIX
+				: format.equals("adjacency") ? TopologyFormat.ADJACENCY
+				: format.equals("snapshot") ? TopologyFormat.SNAPSHOT : null;
+		if (topologyFormat == null) {
+			System.err.println("Unknown format " + format);
+			System.err.println(usage);
+			System.exit(2);
+		}
+		CsrGraph graph = new TopologyGenerator(args[1], Integer.parseInt(args[2]),
+				Long.parseLong(option(args, 4, "seed", "1")))
+				.degree(Double.parseDouble(option(args, 4, "degree", "4")))
+				.costs(Integer.parseInt(cost[0]), Integer.parseInt(cost[cost.length - 1]))
+				.generate();
+		TopologyGenerator.write(graph, Paths.get(args[3]), topologyFormat);
+		System.err.println(graph.vertexCount() + " routers and " + graph.edgeCount() / 2 + " links written in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+//	binary snapshot of a topology file of any format, no menu
+//	java dijkstra.Dijkstras --snapshot <topology file> <snapshot file>
+	static void runSnapshot(String args[]) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: java dijkstra.Dijkstras --snapshot <topology file> <snapshot file>");
+			System.exit(2);
+		}
+		long start = System.nanoTime();
+		Topology topology = Topology.load(Paths.get(args[1]));
+		topology.saveSnapshot(Paths.get(args[2]));
+		System.err.println(topology.routerCount() + " routers and " + topology.graph().edgeCount()
+				+ " links written in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+//	seeded event stream for the replay, no menu
+//	java dijkstra.Dijkstras --events <topology file> <event file>
+//	[seconds=60] [queries=1000] [removals=1] [costs=5] [seed=1], rates are per second
+	static void runEvents(String args[]) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: java dijkstra.Dijkstras --events <topology file> <event file> "
+					+ "[seconds=60] [queries=1000] [removals=1] [costs=5] [seed=1]");
+			System.exit(2);
+		}
+		Topology topology = Topology.load(Paths.get(args[1]));
+		LoadReplay.generate(topology.graph(), Paths.get(args[2]), Long.parseLong(option(args, 3, "seed", "1")),
+				Double.parseDouble(option(args, 3, "seconds", "60")),
+				Double.parseDouble(option(args, 3, "queries", "1000")),
+				Double.parseDouble(option(args, 3, "removals", "1")),
+				Double.parseDouble(option(args, 3, "costs", "5")));
+	}
+
+//	replaying an event stream into the route service, no menu
+//	java dijkstra.Dijkstras --replay <topology file> <event file> [speed=1] [threads=0]
+//	speed 0 sends the events as fast as it can, threads 0 uses the service executor
+	static void runReplay(String args[]) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: java dijkstra.Dijkstras --replay <topology file> <event file> "
+					+ "[speed=1] [threads=0]");
+			System.exit(2);
+		}
+		Topology topology = Topology.load(Paths.get(args[1]));
+		LoadReplay replay = LoadReplay.load(Paths.get(args[2]), topology.routerCount());
+		int threads = Integer.parseInt(option(args, 3, "threads", "0"));
+		ExecutorService queries = threads > 0
+				? Executors.newFixedThreadPool(threads) : RouteService.requestExecutor();
+		try {
+			LoadReplay.Report report = replay.run(new RouteService(topology.graph()),
+					Double.parseDouble(option(args, 3, "speed", "1")), queries);
+			System.out.print(report);
+		} finally {
+			queries.shutdown();
+		}
+		if (Metrics.ENABLED) {
+			System.err.println(Metrics.summary());
+		}
+	}
+
+//	link-state update ingestion, no menu
+//	java dijkstra.Dijkstras --ingest <topology file> <update file | port> [holddown=50] [queue=4096] [report=10]
+//	[serve=port]
+//	a file is read to the end and the statistics printed, a port is listened on
+//	until the process is stopped with the statistics every report seconds
+//	serve also answers route queries on the topology the updates change
+	static void runIngest(String args[]) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: java dijkstra.Dijkstras --ingest <topology file> <update file | port> "
+					+ "[holddown=50] [queue=4096] [report=10] [serve=port]");
+			System.exit(2);
+		}
+		long start = System.nanoTime();
+		Topology topology = Topology.load(Paths.get(args[1]));
+		RouteService service = new RouteService(topology.graph());
+		LinkStateUpdates updates = new LinkStateUpdates(service, Long.parseLong(option(args, 3, "holddown", "50")),
+				Integer.parseInt(option(args, 3, "queue", "4096")));
+		System.err.println("Topology of " + topology.routerCount() + " routers loaded in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+		String serve = option(args, 3, "serve", null);
+		if (serve != null) {
+			InetSocketAddress address = service.start(Integer.parseInt(serve));
+			System.err.println("Route service on http://" + address.getHostString() + ":" + address.getPort() + "/");
+		}
+		updates.start();
+		try {
+			if (Files.exists(Paths.get(args[2]))) {
+				updates.feed(Paths.get(args[2]));
+				updates.awaitProcessed();
+				updates.stop();
+				System.out.print(updates);
+			} else {
+				InetSocketAddress address = updates.listen(Integer.parseInt(args[2]));
+				System.err.println("Reading link-state updates on " + address.getHostString() + ":"
+						+ address.getPort());
+				long report = Long.parseLong(option(args, 3, "report", "10"));
+				while (true) {
+					Thread.sleep(report * 1000);
+					System.err.print(updates);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			service.stop();
+		}
+		if (Metrics.ENABLED) {
+			System.err.println(Metrics.summary());
+		}
+	}
+
+//	value of a name=value argument from the given position on
+	private static String option(String args[], int from, String name, String defaultValue) {
+		for (int i = from; i < args.length; i++) {
+			if (args[i].startsWith(name + "=")) {
+				return args[i].substring(name.length() + 1);
+			}
+		}
+		return defaultValue;
+	}
+
+//	every way to start the simulator, for --help and unknown options
+	static void printUsage() {
+		System.err.println("Usage: java dijkstra.Dijkstras                      (the interactive menu)");
+		System.err.println("       java dijkstra.Dijkstras <topology file> <query file> [output file]");
+		System.err.println("       java dijkstra.Dijkstras --serve <topology file> [port]");
+		System.err.println("       java dijkstra.Dijkstras --failures <topology file> "
+				+ "<scenario file | routers | links | router-pairs> [output file]");
+		System.err.println("       java dijkstra.Dijkstras --generate "
+				+ "<geometric | waxman | ba | grid | random | dense> <routers> <output file> [options]");
+		System.err.println("       java dijkstra.Dijkstras --snapshot <topology file> <snapshot file>");
+		System.err.println("       java dijkstra.Dijkstras --events <topology file> <event file> [options]");
+		System.err.println("       java dijkstra.Dijkstras --replay <topology file> <event file> [options]");
+		System.err.println("       java dijkstra.Dijkstras --ingest <topology file> <update file | port> [options]");
+	}
+
 //	main function
 	public static void main(String args[]) throws IOException {
 
-//		list of routers with their distances and next routers
-		Map<String, Vertex> vertexMap = new HashMap<String, Vertex>();
+//		a topology and a query file on the command line skip the menu
+		if (args.length > 0 && args[0].equals("--serve")) {
+			runService(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--failures")) {
+			runFailures(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--generate")) {
+			runGenerate(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--snapshot")) {
+			runSnapshot(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--events")) {
+			runEvents(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--replay")) {
+			runReplay(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--ingest")) {
+			runIngest(args);
+			return;
+		}
+		if (args.length > 0 && args[0].startsWith("--")) {
+			printUsage();
+			System.exit(args[0].equals("--help") ? 0 : 2);
+		}
+		if (args.length > 0) {
+			runBatch(args);
+			return;
+		}
 
 //		input from the user
 		int user_input_option = 0;
@@ -125,11 +640,13 @@ public class Dijkstras {
 //		there we read just the input file
 		Additional adj = new Additional();
 
-//		we should read the file only when user inputs the option 1
-//		we use this variable to meet that requirement
-		int choose_file = 0;
-//		initializing the topology matrix
-		int topology_matrix[][] = adj.loadFile(choose_file);
+//		the topology with its graph, built once when loaded
+//		and again only when the topology is modified
+		Topology topology = null;
+//		tree of option 4 kept between removals so the next removal
+//		from the same source only repairs the routers it affects
+		DynamicShortestPathTree tree_4 = null;
+		long tree_4_version = -1;
 
 //		Displaying the menu when the user until user inputs option exit
 		while (user_input_option != 5) {
@@ -151,182 +668,61 @@ public class Dijkstras {
 			switch (user_input_option) {
 
 			case 1:
-				choose_file = 1; // set to 1 as we need to read the input file
-				
-//				data from the file is returned to topology_matrix 
-				topology_matrix = adj.loadFile(choose_file); 
-
-//				printing the matrix
-				System.out.print("Given Topology Matrix is :\n");
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						System.out.print(topology_matrix[i][j] + " ");
-					}
-					System.out.println("");
+//				data from the file is returned as the topology
+//				matrix, edge list and adjacency list files are accepted
+				topology = adj.loadTopology(1);
+
+//				printing the matrix, sparse files have none to print
+				if (topology.hasMatrix()) {
+					System.out.print("Given Topology Matrix is :\n");
+					printMatrix(topology.matrix());
+				} else {
+					System.out.println("Given Topology has " + topology.routerCount() + " routers and "
+							+ topology.graph().edgeCount() + " links");
 				}
 
 //				Additional Features
 //				automatically calculating the connection table for all the routers
 //				which are provided using a input file
-				
-//				creating the routers 
-//				number of routers as same as the lenth of the topology matrix
-				for (int x = 1; x <= topology_matrix.length; x++) {
-					for (int i = 1; i <= topology_matrix.length; i++) {
-						String s_vertex_data = Integer.toString(i);
-//						converting to router data
-						Vertex v3 = new Vertex(s_vertex_data);
-//						adding the router
-						vertexMap.put(s_vertex_data, v3);
+//				the tables are computed in parallel into one compact next hop
+//				table outside the heap and then printed in order
+				if (useEqualCostMultipath) {
+					for (int x = 0; x < topology.routerCount(); x++) {
+						System.out.println("-------------------------------------------");
+						System.out.println("Router " + (x + 1) + " Connection Table");
+						printConnectionTable(topology.equalCostTree(x));
 					}
-
-//					adding the distance between the router and distance between them
-					for (int i = 0; i < topology_matrix.length; i++) {
-						for (int j = 0; j < topology_matrix.length; j++) {
-//							incrementing the router number as we are staring from 0
-//							router cannot be 0
-							int from = i + 1; 
-							int to = j + 1;
-//							reading the distance from the topology matrix
-							int distance = topology_matrix[i][j];
-							if (distance == 0 || distance == -1) {
-//								no path exists to the same router
-//								no path exists when there is no direct connection 
-//								between one router and another
-//								in which case user inputs as -1
-//								in the topology matrix
-							} else {
-//								converting toString as inputs for vertex 
-//								are of vertex data type and type casting is to be 
-//								done using string function
-								String s_from = Integer.toString(from);
-								String s_to = Integer.toString(to);
-								String s_distance = Integer.toString(distance);
-								double d_distance = Double.parseDouble(s_distance);
-//								s_from is the source router
-								Vertex v3 = vertexMap.get(s_from);
-								if (v3 != null) {
-//									if the source router is not null
-//									adding the path from source to destination
-//									and calculating the weights
-									v3.addEdge(new Edge(vertexMap.get(s_to), d_distance));
-								}
-							}
-						}
-					}
-
-//					this will collect all the routers a nd their specific paths 
-					Collection<Vertex> vertices_all = vertexMap.values();
+					break;
+				}
+				NextHopTable connection_tables = topology.nextHopTable();
+				for (int x = 0; x < connection_tables.routerCount(); x++) {
 					System.out.println("-------------------------------------------");
-//					computing paths from a single source to all the destinations
-					String ct_source_all = Integer.toString(x);
-					Vertex new_ct_source_all = vertexMap.get(ct_source_all);
 //					printng the connection table
-					System.out.println("Router " + ct_source_all + " Connection Table");
-//					computes all the paths from the source specified
-					computePaths(new_ct_source_all);
-					System.out.println("Destination\t\tInterface\n");
-//					looping on all the routers and considering the routers as destination					
-					for (Vertex v : vertices_all) {
-//						finding the shortest path
-						List<Vertex> path = getShortestPathTo(v);
-						System.out.print(v);
-						// System.out.println(path);
-
-						if (v == new_ct_source_all) {
-//							if source and destination are same
-							System.out.println("\t\t\t-");
-							continue;
-						}
-//						when the path is returned to the destination
-//						looping on the path
-						for (Vertex next_router : path) {
-							if (next_router == new_ct_source_all) {
-//								the path will same if the source and destination are same
-								System.out.print(" ");
-							} else {
-//								if not printing just the next outer for the
-//								connection table 
-								System.out.println("\t\t\t" + next_router);
-								break;
-							}
-						}
-					}
+					System.out.println("Router " + (x + 1) + " Connection Table");
+					printConnectionTable(connection_tables.row(x));
 				}
 				break;
 
 //			connection table to the specific router 
 //		 	the specific router here will be the source router 
-//			the code is same as in the above case
-//			make sure you change the needful when changed above or below code
 			case 2:
+				if (topology == null) {
+					System.out.println("Topology not yet loaded");
+					break;
+				}
 				System.out.println("Select a Source Router :");
 				source = Integer.parseInt(br.readLine());
-				if (source == 0 || source == topology_matrix.length) {
+				if (source == 0 || source == topology.routerCount()) {
 					System.out.println("Router dose'nt exists");
 					break;
 				}
-//				backing up topology matrix as it will be modified while
-//				computing the connection table
-				int topology_matrix_backup_2[][] = new int[topology_matrix.length][topology_matrix.length];
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						topology_matrix_backup_2[i][j] = topology_matrix[i][j];
-					}
-				}
-
-				for (int i = 1; i <= topology_matrix.length; i++) {
-					String s_vertex_data = Integer.toString(i);
-					Vertex v3 = new Vertex(s_vertex_data);
-					vertexMap.put(s_vertex_data, v3);
-				}
-
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						int from = i + 1;
-						int to = j + 1;
-						int distance = topology_matrix[i][j];
-						if (distance == 0 || distance == -1) {
-
-						} else {
-							String s_from = Integer.toString(from);
-							String s_to = Integer.toString(to);
-							String s_distance = Integer.toString(distance);
-							double d_distance = Double.parseDouble(s_distance);
-
-							Vertex v3 = vertexMap.get(s_from);
-							if (v3 != null) {
-								v3.addEdge(new Edge(vertexMap.get(s_to), d_distance));
-							}
-						}
-					}
-				}
 
-				Collection<Vertex> vertices = vertexMap.values();
-				String ct_source = Integer.toString(source);
-				Vertex new_ct_source = vertexMap.get(ct_source);
-				System.out.println("Router " + ct_source + " Connection Table");
-				computePaths(new_ct_source);
-				System.out.println("Destination\t\tInterface\n");
-				for (Vertex v : vertices) {
-					List<Vertex> path = getShortestPathTo(v);
-					System.out.print(v);
-					// System.out.println(path);
-
-					if (v == new_ct_source) {
-						System.out.println("\t\t\t-");
-						continue;
-					}
-					for (Vertex next_router : path) {
-						if (next_router == new_ct_source) {
-							System.out.print(" ");
-						} else {
-							System.out.println("\t\t\t" + next_router);
-							break;
-						}
-					}
+				System.out.println("Router " + source + " Connection Table");
+				if (useEqualCostMultipath) {
+					printConnectionTable(topology.equalCostTree(source - 1));
+				} else {
+					printConnectionTable(topology.shortestPaths(source - 1));
 				}
-
 				break;
 
 // 			Computing the path to the specific destination
@@ -335,81 +731,61 @@ public class Dijkstras {
 			case 3:
 //				if source router is not given
 				if (source == 0) {
-//					System.out.println("Choose a Source Router :");
-//					source = Integer.parseInt(br.readLine());
-//					if (source == 0 || source == topology_matrix.length) {
-//						System.out.println("Router dose'nt exists");
-//						break;
-//					}
 					System.out.println("Choose source router from option 2");
 					break;
 				}
 //				prompting the user for destination
-				// if (destination == 0) {
 				System.out.println("Choose a Destination Router :");
 				destination = Integer.parseInt(br.readLine());
-				if (destination == 0 || destination > topology_matrix.length) {
+				if (destination == 0 || destination > topology.routerCount()) {
 					System.out.println("Router dosent exists");
 					break;
 				}
-				// }
-
-				for (int i = 1; i <= topology_matrix.length; i++) {
-					String s_vertex_data = Integer.toString(i);
-					Vertex v3 = new Vertex(s_vertex_data);
-					vertexMap.put(s_vertex_data, v3);
-				}
-
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						int from = i + 1;
-						int to = j + 1;
-						int distance = topology_matrix[i][j];
-						if (distance == 0 || distance == -1) {
 
-						} else {
-							String s_from = Integer.toString(from);
-							String s_to = Integer.toString(to);
-							String s_distance = Integer.toString(distance);
-							double d_distance = Double.parseDouble(s_distance);
-
-							Vertex v3 = vertexMap.get(s_from);
-							if (v3 != null) {
-								v3.addEdge(new Edge(vertexMap.get(s_to), d_distance));
-							}
+//				only the path to the destination is needed so the
+//				search stops as soon as the destination is settled
+				Route route;
+				if (useContractionHierarchy) {
+					boolean built = topology.hasContractionHierarchy();
+					ContractionHierarchy hierarchy = topology.contractionHierarchy();
+					if (!built) {
+						System.out.println("Contraction hierarchy built in " + hierarchy.preprocessingNanos() / 1000000
+								+ " ms with " + hierarchy.shortcutCount() + " shortcuts");
+						if (hierarchyComparison > 0) {
+							System.out.println("Query time " + hierarchy.compareWithDijkstra(topology.graph(),
+									hierarchyComparison, 1));
 						}
 					}
+					route = hierarchy.route(source - 1, destination - 1);
+				} else if (useLandmarks && LandmarkQuery.isSuitable(topology.graph())) {
+					boolean built = topology.hasLandmarkQuery();
+					LandmarkQuery landmarks = topology.landmarkQuery();
+					if (!built) {
+						System.out.println("Landmarks chosen in " + landmarks.preprocessingNanos() / 1000000 + " ms: "
+								+ landmarks.landmarks().length + " routers");
+					}
+					route = landmarks.route(source - 1, destination - 1);
+				} else {
+					route = topology.route(source - 1, destination - 1);
 				}
-
-				// Collection<Vertex> vertices_3 = vertexMap.values();
-				String s_source = Integer.toString(source);
-				Vertex new_source = vertexMap.get(s_source);
-				String s_destination = Integer.toString(destination);
-				Vertex new_destination = vertexMap.get(s_destination);
-
-				computePaths(new_source);
-				System.out.println(
-						"The shortest path from router " + new_source + " to router " + new_destination + " is ");
-				List<Vertex> path = getShortestPathTo(new_destination);
-
-				for (Vertex next_router : path) {
-					if (next_router == new_source) {
-						System.out.print(next_router);
-					} else {
-						System.out.print(" -> " + next_router);
+				printShortestPath(source - 1, destination - 1, route.path(), route.cost());
+				if (useEqualCostMultipath) {
+					long paths = topology.equalCostTree(source - 1).pathCount(destination - 1);
+					System.out.println("The number of equal cost paths is " + paths);
+				}
+				if (kShortestPaths > 1) {
+					List<Route> routes = topology.kShortestPaths(source - 1, destination - 1, kShortestPaths);
+					for (int i = 1; i < routes.size(); i++) {
+						System.out.println("Alternative path " + i + " is " + routes.get(i) + " with cost "
+								+ routes.get(i).cost());
 					}
-
 				}
-				// System.out.print(path);
-				System.out.println("");
-				System.out.println("The total cost is " + new_destination.minDistance);
-
 				break;
 
 //		    when a router is down we have to remove the router from the network
 			case 4:
 //				checking for the topology not be be initial
-				if (topology_matrix == null) {
+				if (topology == null) {
 					System.out.println("Topology not yet loaded");
 					break;
 				}
@@ -421,7 +797,7 @@ public class Dijkstras {
 				if (source == 0) {
 					System.out.println("Choose a Source Router :");
 					source = Integer.parseInt(br.readLine());
-					if (source == 0 || source == topology_matrix.length) {
+					if (source == 0 || source == topology.routerCount()) {
 						System.out.println("Router dosent exists");
 						break;
 					}
@@ -431,140 +807,52 @@ public class Dijkstras {
 				if (destination == 0) {
 					System.out.println("Choose a Destination Router :");
 					destination = Integer.parseInt(br.readLine());
-					if (destination == 0 || destination > topology_matrix.length) {
+					if (destination == 0 || destination > topology.routerCount()) {
 						System.out.println("Router dosent exists");
 						break;
 					}
 				}
 
-				for (int i = 0; i < topology_matrix.length; i++) {
-					if (i == (remove_router - 1)) {
-						topology_matrix[remove_router - 1][i] = 0;
-					} else {
-						topology_matrix[remove_router - 1][i] = -1;
-						topology_matrix[i][remove_router - 1] = -1;
-					}
-				}
-//				calculating the connection table
-//				baking up the data because we are changing the data
-//				while calculating the connection table in Additional.java
-				int topology_matrix_backup_4[][] = new int[topology_matrix.length][topology_matrix.length];
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						topology_matrix_backup_4[i][j] = topology_matrix[i][j];
-					}
+//				the graph is built again only here, when the topology changes
+//				the tree of the last removal is repaired when it is still current
+				boolean repair = tree_4 != null && tree_4.source() == source - 1
+						&& tree_4_version == topology.version();
+				topology.removeRouter(remove_router - 1);
+				if (repair) {
+					tree_4.removeRouter(remove_router - 1);
+				} else {
+					tree_4 = new DynamicShortestPathTree(topology.graph(), source - 1);
 				}
+				tree_4_version = topology.version();
 
 //				displaying the modified topology
 				System.out.println("-------------------------------------------");
 				System.out.println("Modified Topology after removing router" + remove_router);
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						System.out.print(topology_matrix[i][j] + " ");
-					}
-					System.out.println("");
-				}
-
-				// int connection_table_4[] =
-				// adj.Connection_Table(topology_matrix_backup_4, source);
-				// System.out.println("ROUTER\t\t\tINTERFACE\n");
-				// for (int i = 0; i < connection_table_4.length; i++) {
-				// if (source == i)
-				// System.out.println((i + 1) + "\t\t\t" + 0 + "\n");
-				// else if (connection_table_4[i] == 0)
-				// System.out.println((i + 1) + "\t\t\t" + (i + 1) + "\n");
-				// else
-				// System.out.println((i + 1) + "\t\t\t" +
-				// (connection_table_4[i] + 1) + "\n");
-				// }
-
-//				same as calculating minimum distance
-				for (int i = 1; i <= topology_matrix.length; i++) {
-					String s_vertex_data = Integer.toString(i);
-					Vertex v3 = new Vertex(s_vertex_data);
-					vertexMap.put(s_vertex_data, v3);
+				if (topology.hasMatrix()) {
+					printMatrix(topology.matrix());
+				} else {
+					System.out.println(topology.graph().edgeCount() + " links left");
 				}
 
-				for (int i = 0; i < topology_matrix.length; i++) {
-					for (int j = 0; j < topology_matrix.length; j++) {
-						int from = i + 1;
-						int to = j + 1;
-						int distance = topology_matrix[i][j];
-						if (distance == 0 || distance == -1) {
-
-						} else {
-							String s_from = Integer.toString(from);
-							String s_to = Integer.toString(to);
-							String s_distance = Integer.toString(distance);
-							double d_distance = Double.parseDouble(s_distance);
-
-							Vertex v3 = vertexMap.get(s_from);
-							if (v3 != null) {
-								v3.addEdge(new Edge(vertexMap.get(s_to), d_distance));
-							}
-						}
-					}
-				}
-
-				Collection<Vertex> vertices_modified = vertexMap.values();
-				String s_source_4 = Integer.toString(source);
-				Vertex new_source_4 = vertexMap.get(s_source_4);
-				String s_destination_4 = Integer.toString(destination);
-				Vertex new_destination_4 = vertexMap.get(s_destination_4);
-
-				computePaths(new_source_4);
+				ShortestPathTree modified_tree = tree_4.snapshot();
 //				computing connection table
 				System.out.println("-------------------------------------------");
-				System.out.println("Router " + new_source_4 + " Connection Table");
-				System.out.println("Destination\t\tInterface\n");
-				for (Vertex v : vertices_modified) {
-					List<Vertex> path_modified = getShortestPathTo(v);
-					System.out.print(v);
-					// System.out.println(path);
-
-					if (v == new_source_4) {
-						System.out.println("\t\t\t-");
-						continue;
-					}
-					if (path_modified.size() == 1) {
-						System.out.println("\t\t\t-");
-						continue;
-					}
-					for (Vertex next_router : path_modified) {
-						if (next_router == new_source_4) {
-							System.out.print(" ");
-						} else {
-							System.out.println("\t\t\t" + next_router);
-							break;
-						}
-					}
-				}
+				System.out.println("Router " + source + " Connection Table");
+				printConnectionTable(modified_tree);
 
 //				computing shortest path
 				System.out.println("-------------------------------------------");
-				System.out.println(
-						"The shortest path from router " + new_source_4 + " to router " + new_destination_4 + " is ");
-				List<Vertex> path_4 = getShortestPathTo(new_destination_4);
-
-				for (Vertex next_router : path_4) {
-					if (next_router == new_source_4) {
-						System.out.print(next_router);
-					} else {
-						System.out.print(" -> " + next_router);
-					}
-
-				}
-				// System.out.print(path);
-				System.out.println("");
-				System.out.println("The total cost is " + new_destination_4.minDistance);
-
+				printShortestPath(modified_tree, destination - 1);
 				break;
 
 			case 5:
 				user_input_option = 5;
+				if (Metrics.ENABLED) {
+					System.out.println(Metrics.summary());
+				}
 				System.out.println("Exit CS542 project. Good Bye!");
 				break;
 			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,286 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the incremental shortest path tree
+ * 					- the tree from one source is kept up to date while routers
+ * 					are removed, links are removed and link costs change
+ * 					- only the routers whose path is affected are worked on
+ * 					(Ramalingam and Reps style repair) instead of a full run
+ * 					- ties go to the lowest previous router like in
+ * 					Dijkstras.computePaths so the connection table and paths
+ * 					are the same as a full recompute
+ *
+ */
+
+import java.util.Arrays;
+
+public class DynamicShortestPathTree {
+	private final CsrGraph graph;		// links as loaded, costs are kept in weight
+	private final ReverseGraph reverse;	// links entering every router
+	private final int source;			// router the paths start from
+	private final double weight[];		// current cost of every link, infinity when removed
+	private final double distance[];	// minimum distance of every router
+	private final int previous[];		// previous router on the path, -1 if none
+//	children of every router in the tree as linked lists
+//	so the affected subtree is found without looking at the rest
+	private final int firstChild[];
+	private final int nextSibling[];
+	private final int previousSibling[];
+	private final boolean affected[];	// marks the subtree being repaired
+	private final int work[];			// affected routers of the current repair
+	private final IndexedHeap vertexQueue;
+	private int lastAffected;			// routers worked on by the last change
+
+	public DynamicShortestPathTree(CsrGraph graph, int source) {
+		int n = graph.vertexCount();
+		this.graph = graph;
+		this.reverse = new ReverseGraph(graph);
+		this.source = source;
+		this.weight = new double[graph.edgeCount()];
+		for (int e = 0; e < weight.length; e++) {
+			weight[e] = graph.weight(e);
+		}
+		distance = new double[n];
+		previous = new int[n];
+		firstChild = new int[n];
+		nextSibling = new int[n];
+		previousSibling = new int[n];
+		affected = new boolean[n];
+		work = new int[n];
+		vertexQueue = IndexedHeap.create(Dijkstras.heapArity, n);
+
+//		the first tree is a normal full run
+		Dijkstras.computePaths(graph, source, vertexQueue, distance, previous);
+		Arrays.fill(firstChild, -1);
+		for (int v = 0; v < n; v++) {
+			if (previous[v] != -1) {
+				link(v, previous[v]);
+			}
+		}
+		lastAffected = n;
+	}
+
+	public int source() {
+		return source;
+	}
+
+//	number of routers the last change had to work on
+	public int lastAffected() {
+		return lastAffected;
+	}
+
+	public double distanceTo(int target) {
+		return distance[target];
+	}
+
+//	copy of the current tree, later changes do not show in it
+	public ShortestPathTree snapshot() {
+		return new ShortestPathTree(source, distance.clone(), previous.clone());
+	}
+
+//	taking every link to and from the router out
+	public void removeRouter(int router) {
+		int changed[] = new int[graph.degree(router) + reverse.graph.degree(router)];
+		int count = 0;
+		for (int e = graph.begin(router), end = graph.end(router); e < end; e++) {
+			if (weight[e] != Double.POSITIVE_INFINITY) {
+				changed[count++] = e;
+			}
+		}
+		for (int r = reverse.graph.begin(router), end = reverse.graph.end(router); r < end; r++) {
+			int e = reverse.origin(r);
+			if (weight[e] != Double.POSITIVE_INFINITY) {
+				changed[count++] = e;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			weight[changed[i]] = Double.POSITIVE_INFINITY;
+		}
+		repairIncrease(changed, count);
+	}
+
+//	taking the link from u to v out
+	public void removeLink(int u, int v) {
+		setLinkCost(u, v, Double.POSITIVE_INFINITY);
+	}
+
+//	changing the cost of the link from u to v, the link must exist
+//	in the graph the tree was built on, infinity removes it
+	public void setLinkCost(int u, int v, double cost) {
+		int e = graph.findEdge(u, v);
+		if (e == -1) {
+			throw new IllegalArgumentException("No link from router " + (u + 1) + " to router " + (v + 1));
+		}
+		if (!(cost > 0)) {
+			throw new IllegalArgumentException("Link cost must be positive: " + cost);
+		}
+		double old = weight[e];
+		weight[e] = cost;
+		if (cost > old) {
+			repairIncrease(new int[] { e }, 1);
+		} else if (cost < old) {
+			repairDecrease(u, v, cost);
+		} else {
+			lastAffected = 0;
+		}
+	}
+
+//	links got longer or went away, only the subtrees hanging
+//	off a changed tree link can get longer
+	private void repairIncrease(int changed[], int count) {
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			int e = changed[i];
+			int v = graph.target(e);
+			int u = tailOf(e);
+			if (previous[v] == u && !affected[v]) {
+				size = collectSubtree(v, size);
+			}
+		}
+		lastAffected = size;
+		if (size == 0) {
+			return;
+		}
+//		cutting the affected routers loose
+		for (int i = 0; i < size; i++) {
+			int x = work[i];
+			unlink(x);
+			distance[x] = Double.POSITIVE_INFINITY;
+		}
+//		best way in from the part of the tree that did not change
+		for (int i = 0; i < size; i++) {
+			int x = work[i];
+			double best = Double.POSITIVE_INFINITY;
+			int bestPrevious = -1;
+			for (int r = reverse.graph.begin(x), end = reverse.graph.end(x); r < end; r++) {
+				int y = reverse.graph.target(r);
+				if (affected[y]) {
+					continue;
+				}
+				double through = distance[y] + weight[reverse.origin(r)];
+				if (through < best || (through == best && through != Double.POSITIVE_INFINITY && y < bestPrevious)) {
+					best = through;
+					bestPrevious = y;
+				}
+			}
+			if (bestPrevious != -1) {
+				distance[x] = best;
+				link(x, bestPrevious);
+				vertexQueue.insert(x, best);
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			affected[work[i]] = false;
+		}
+		settle();
+	}
+
+//	a link got shorter, routers it now gives a shorter way to
+//	are pushed out from v like a normal run
+	private void repairDecrease(int u, int v, double cost) {
+		lastAffected = 0;
+		if (distance[u] == Double.POSITIVE_INFINITY) {
+			return;
+		}
+		double through = distance[u] + cost;
+		if (through < distance[v]) {
+			distance[v] = through;
+			setPrevious(v, u);
+			vertexQueue.insert(v, through);
+			lastAffected = settle();
+		} else if (through == distance[v] && u < previous[v]) {
+			setPrevious(v, u);
+			lastAffected = 1;
+		}
+	}
+
+//	the usual Dijkstra loop over the routers queued by a repair
+//	returns the number of routers settled
+	private int settle() {
+		int settled = 0;
+		while (!vertexQueue.isEmpty()) {
+			int u = vertexQueue.poll();
+			settled++;
+			double distanceU = distance[u];
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				double distanceThroughU = distanceU + weight[e];
+				if (distanceThroughU < distance[v]) {
+					distance[v] = distanceThroughU;
+					setPrevious(v, u);
+					vertexQueue.insertOrDecrease(v, distanceThroughU);
+				} else if (distanceThroughU == distance[v] && u < previous[v]) {
+					setPrevious(v, u);
+				}
+			}
+		}
+		return settled;
+	}
+
+//	marking the subtree below root, appended to work from size on
+	private int collectSubtree(int root, int size) {
+		int start = size;
+		affected[root] = true;
+		work[size++] = root;
+		for (int i = start; i < size; i++) {
+			for (int c = firstChild[work[i]]; c != -1; c = nextSibling[c]) {
+				if (!affected[c]) {
+					affected[c] = true;
+					work[size++] = c;
+				}
+			}
+		}
+		return size;
+	}
+
+//	router a link leaves from, found by searching the offsets
+	private int tailOf(int edge) {
+		int low = 0;
+		int high = graph.vertexCount() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (graph.begin(mid) <= edge) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private void setPrevious(int v, int u) {
+		if (previous[v] != -1) {
+			unlink(v);
+		}
+		link(v, u);
+	}
+
+	private void link(int v, int parent) {
+		previous[v] = parent;
+		previousSibling[v] = -1;
+		nextSibling[v] = firstChild[parent];
+		if (firstChild[parent] != -1) {
+			previousSibling[firstChild[parent]] = v;
+		}
+		firstChild[parent] = v;
+	}
+
+	private void unlink(int v) {
+		int parent = previous[v];
+		if (parent == -1) {
+			return;
+		}
+		if (previousSibling[v] != -1) {
+			nextSibling[previousSibling[v]] = nextSibling[v];
+		} else {
+			firstChild[parent] = nextSibling[v];
+		}
+		if (nextSibling[v] != -1) {
+			previousSibling[nextSibling[v]] = previousSibling[v];
+		}
+		previous[v] = -1;
+	}
+}
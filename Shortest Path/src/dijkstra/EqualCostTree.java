@@ -0,0 +1,266 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the equal cost multipath (ECMP) result of
+ * 					one shortest path run
+ * 					- every previous router on a shortest path is kept, not
+ * 					just the lowest, as a DAG in CSR form: the predecessors
+ * 					of v are the slots first[v] to first[v + 1] - 1
+ * 					- the number of equal cost paths to every router, stuck
+ * 					at Long.MAX_VALUE if it gets larger
+ * 					- the set of next hops to every router, one bit per
+ * 					neighbour of the source, so the connection table shows
+ * 					every interface a router can balance over
+ *
+ */
+
+import java.util.Arrays;
+
+public class EqualCostTree {
+	private final int source;
+	private final double distance[];
+	private final int first[];			// predecessors of v start at first[v], length n + 1
+	private final int predecessors[];	// ascending for every router
+	private final long pathCount[];
+	private final int neighbours[];		// next hop of every bit, ascending
+//	longs in one block of hopBits, rows never cross blocks
+	private static final int CHUNK_LONGS = 1 << 27;
+
+	private final int words;			// longs per router in hopBits
+	private final int rowsPerChunk;		// routers held by every block of hopBits
+//	next hop set of router v in block v / rowsPerChunk at (v % rowsPerChunk) * words,
+//	split in blocks as n * words can be more than an array holds
+	private final long hopBits[][];
+
+	private EqualCostTree(int source, double distance[], int first[], int predecessors[], long pathCount[],
+			int neighbours[], long hopBits[][]) {
+		this.source = source;
+		this.distance = distance;
+		this.first = first;
+		this.predecessors = predecessors;
+		this.pathCount = pathCount;
+		this.neighbours = neighbours;
+		this.words = (neighbours.length + 63) >>> 6;
+		this.rowsPerChunk = rowsPerChunk(words);
+		this.hopBits = hopBits;
+	}
+
+	private static int rowsPerChunk(int words) {
+		return Math.max(1, CHUNK_LONGS / Math.max(1, words));
+	}
+
+	public static EqualCostTree compute(CsrGraph graph, int source) {
+		int n = graph.vertexCount();
+		double distance[] = new double[n];
+		int order[] = new int[n];
+		int settled = settle(graph, source, Dijkstras.createQueue(graph), distance, order);
+
+//		every link that ends a shortest path is a DAG link, walking the
+//		routers in index order keeps the predecessors ascending
+		int first[] = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			if (distance[u] == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				if (v != source && distance[u] + graph.weight(e) == distance[v]) {
+					first[v + 1]++;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			first[v + 1] += first[v];
+		}
+		int next[] = Arrays.copyOf(first, n);
+		int predecessors[] = new int[first[n]];
+		for (int u = 0; u < n; u++) {
+			if (distance[u] == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				if (v != source && distance[u] + graph.weight(e) == distance[v]) {
+//					parallel links to the same router count once
+					if (next[v] == first[v] || predecessors[next[v] - 1] != u) {
+						predecessors[next[v]++] = u;
+					}
+				}
+			}
+		}
+//		closing the gaps left by parallel links
+		int slot = 0;
+		for (int v = 0; v < n; v++) {
+			int from = first[v];
+			first[v] = slot;
+			for (int i = from; i < next[v]; i++) {
+				predecessors[slot++] = predecessors[i];
+			}
+		}
+		first[n] = slot;
+		predecessors = Arrays.copyOf(predecessors, slot);
+
+//		neighbours of the source that start a shortest path, one bit each
+		int bit[] = new int[n];
+		Arrays.fill(bit, -1);
+		int count = 0;
+		for (int v = 0; v < n; v++) {
+			for (int i = first[v]; i < first[v + 1]; i++) {
+				if (predecessors[i] == source) {
+					bit[v] = count++;
+					break;
+				}
+			}
+		}
+		int neighbours[] = new int[count];
+		for (int v = 0; v < n; v++) {
+			if (bit[v] != -1) {
+				neighbours[bit[v]] = v;
+			}
+		}
+
+//		routers in the order they were settled, so all the predecessors of
+//		a router are done before it
+		int words = (count + 63) >>> 6;
+		int rowsPerChunk = rowsPerChunk(words);
+		long hopBits[][] = new long[(int) ((n + (long) rowsPerChunk - 1) / rowsPerChunk)][];
+		for (int c = 0; c < hopBits.length; c++) {
+			hopBits[c] = new long[Math.min(rowsPerChunk, n - c * rowsPerChunk) * words];
+		}
+		long pathCount[] = new long[n];
+		pathCount[source] = 1;
+		for (int k = 1; k < settled; k++) {
+			int v = order[k];
+			long vBits[] = hopBits[v / rowsPerChunk];
+			int vAt = (v % rowsPerChunk) * words;
+			long paths = 0;
+			for (int i = first[v]; i < first[v + 1]; i++) {
+				int u = predecessors[i];
+				paths += pathCount[u];
+				if (paths < 0) {
+					paths = Long.MAX_VALUE;
+				}
+				if (u == source) {
+					vBits[vAt + (bit[v] >>> 6)] |= 1L << bit[v];
+				} else {
+					long uBits[] = hopBits[u / rowsPerChunk];
+					int uAt = (u % rowsPerChunk) * words;
+					for (int w = 0; w < words; w++) {
+						vBits[vAt + w] |= uBits[uAt + w];
+					}
+				}
+			}
+			pathCount[v] = paths;
+		}
+		return new EqualCostTree(source, distance, first, predecessors, pathCount, neighbours, hopBits);
+	}
+
+//	computePaths distances and the order routers are settled in
+//	returns the number of routers settled
+	private static int settle(CsrGraph graph, int source, IndexedHeap vertexQueue, double distance[], int order[]) {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long relaxed = 0;
+		long inserts = 1;
+		long decreases = 0;
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		distance[source] = 0.;
+		vertexQueue.insert(source, 0.);
+		int settled = 0;
+		while (!vertexQueue.isEmpty()) {
+			int u = vertexQueue.poll();
+			order[settled++] = u;
+			double distanceU = distance[u];
+			if (Metrics.ENABLED) {
+				relaxed += graph.degree(u);
+			}
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				double distanceThroughU = distanceU + graph.weight(e);
+				if (distanceThroughU < distance[v]) {
+					if (Metrics.ENABLED) {
+						if (vertexQueue.contains(v)) {
+							decreases++;
+						} else {
+							inserts++;
+						}
+					}
+					distance[v] = distanceThroughU;
+					vertexQueue.insertOrDecrease(v, distanceThroughU);
+				}
+			}
+		}
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settled, relaxed, inserts, decreases);
+		}
+		return settled;
+	}
+
+	public int source() {
+		return source;
+	}
+
+	public int vertexCount() {
+		return distance.length;
+	}
+
+	public double distanceTo(int target) {
+		return distance[target];
+	}
+
+	public boolean isReachable(int target) {
+		return distance[target] != Double.POSITIVE_INFINITY;
+	}
+
+//	every previous router on a shortest path to the target, ascending
+	public int[] predecessors(int target) {
+		return Arrays.copyOfRange(predecessors, first[target], first[target + 1]);
+	}
+
+//	number of equal cost shortest paths, 1 for the source, 0 if unreachable
+	public long pathCount(int target) {
+		return pathCount[target];
+	}
+
+//	every router after the source on a shortest path to the target,
+//	ascending, empty for the source and unreachable routers
+	public int[] nextHops(int target) {
+		long targetBits[] = hopBits[target / rowsPerChunk];
+		int at = (target % rowsPerChunk) * words;
+		int count = 0;
+		for (int w = 0; w < words; w++) {
+			count += Long.bitCount(targetBits[at + w]);
+		}
+		int hops[] = new int[count];
+		int i = 0;
+		for (int w = 0; w < words; w++) {
+			long bits = targetBits[at + w];
+			while (bits != 0) {
+				hops[i++] = neighbours[(w << 6) + Long.numberOfTrailingZeros(bits)];
+				bits &= bits - 1;
+			}
+		}
+//		bits follow router order so the hops are already ascending
+		return hops;
+	}
+
+//	one of the equal cost paths, the one computePaths gives, following
+//	the lowest predecessor
+	public int[] pathTo(int target) {
+		int length = 0;
+		for (int v = target; v != -1; v = lowestPredecessor(v)) {
+			length++;
+		}
+		int path[] = new int[length];
+		for (int v = target; v != -1; v = lowestPredecessor(v)) {
+			path[--length] = v;
+		}
+		return path;
+	}
+
+	private int lowestPredecessor(int v) {
+		return first[v] < first[v + 1] ? predecessors[first[v]] : -1;
+	}
+}
@@ -0,0 +1,659 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the what-if failure analysis
+ * 					- a scenario fails one or more routers and links at once,
+ * 					for every scenario the source to destination costs that
+ * 					changed and the destinations that became unreachable are
+ * 					reported, the failed routers themselves are left out
+ * 					- the base graph is never modified, a scenario marks its
+ * 					failed routers and links in per thread bitsets
+ * 					- the shortest path tree of every source is computed once,
+ * 					a failure that is not on the tree of a source can not
+ * 					change its costs so the tree is reused as it is
+ * 					- when the failure cuts the tree only the routers below the
+ * 					cut are searched again, starting from the links that enter
+ * 					them from the rest of the tree
+ * 					- the trees of all the sources are kept with their depth first
+ * 					order, about 24 bytes for every pair of routers
+ * 					- scenarios run in parallel and every result is written out
+ * 					as soon as it is finished, so results are in no fixed order
+ * 					- a scenario file holds one scenario per line, routers from 1
+ * 					  "router 4"               router 4 fails
+ * 					  "link 1 2"               the links between routers 1 and 2
+ * 					                           fail both ways, like a cut cable
+ * 					  "link 1 2 oneway"        only the links from router 1 to 2 fail
+ * 					  "router 4, link 1 2"     both at once
+ * 					  '#' starts a comment, blank lines are skipped
+ * 					- results are one summary line per scenario and one line for
+ * 					every changed cost, "-" for a destination that is unreachable
+ * 					  "scenario<TAB>12<TAB>router 4<TAB>changed 5<TAB>unreachable 2<TAB>rerun 3<TAB>reused 37"
+ * 					  "12<TAB>src<TAB>dst<TAB>cost before<TAB>cost after"
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+public class FailureAnalysis {
+
+//	routers and links failing together, router indexes from 0
+//	a link fails both ways unless it is one way
+	public static final class Scenario {
+		private final int routers[];
+		private final int linkFrom[];
+		private final int linkTo[];
+		private final boolean oneWay[];
+
+		public Scenario(int routers[], int linkFrom[], int linkTo[]) {
+			this(routers, linkFrom, linkTo, new boolean[linkFrom.length]);
+		}
+
+		public Scenario(int routers[], int linkFrom[], int linkTo[], boolean oneWay[]) {
+			if (linkFrom.length != linkTo.length || linkFrom.length != oneWay.length) {
+				throw new IllegalArgumentException("Every failed link needs both routers");
+			}
+			this.routers = routers.clone();
+			this.linkFrom = linkFrom.clone();
+			this.linkTo = linkTo.clone();
+			this.oneWay = oneWay.clone();
+		}
+
+		public int failedRouterCount() {
+			return routers.length;
+		}
+
+		public int failedLinkCount() {
+			return linkFrom.length;
+		}
+
+//		same form as a line of the scenario file, routers from 1
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (int r : routers) {
+				sb.append(sb.length() > 0 ? ", " : "").append("router ").append(r + 1);
+			}
+			for (int i = 0; i < linkFrom.length; i++) {
+				sb.append(sb.length() > 0 ? ", " : "").append("link ").append(linkFrom[i] + 1).append(' ')
+						.append(linkTo[i] + 1);
+				if (oneWay[i]) {
+					sb.append(" oneway");
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+//	costs one scenario changed, sources and destinations from 0
+	public static final class Result {
+		private final Scenario scenario;
+		private int count;
+		private int sources[] = new int[16];
+		private int targets[] = new int[16];
+		private double before[] = new double[16];
+		private double after[] = new double[16];
+		private int unreachable;
+		private int rerun;
+		private int reused;
+
+		Result(Scenario scenario) {
+			this.scenario = scenario;
+		}
+
+		public Scenario scenario() {
+			return scenario;
+		}
+
+//		source and destination pairs whose cost is different, unreachable ones included
+		public int changedCount() {
+			return count;
+		}
+
+		public int unreachableCount() {
+			return unreachable;
+		}
+
+		public int source(int i) {
+			return sources[i];
+		}
+
+		public int target(int i) {
+			return targets[i];
+		}
+
+		public double costBefore(int i) {
+			return before[i];
+		}
+
+//		infinity when the destination became unreachable
+		public double costAfter(int i) {
+			return after[i];
+		}
+
+//		sources whose shortest path tree had to be computed again
+		public int rerunCount() {
+			return rerun;
+		}
+
+//		sources whose base tree was not touched by the failure
+		public int reusedCount() {
+			return reused;
+		}
+
+		private void add(int source, int target, double costBefore, double costAfter) {
+			if (count == sources.length) {
+				sources = Arrays.copyOf(sources, count * 2);
+				targets = Arrays.copyOf(targets, count * 2);
+				before = Arrays.copyOf(before, count * 2);
+				after = Arrays.copyOf(after, count * 2);
+			}
+			sources[count] = source;
+			targets[count] = target;
+			before[count] = costBefore;
+			after[count] = costAfter;
+			count++;
+			if (costAfter == Double.POSITIVE_INFINITY) {
+				unreachable++;
+			}
+		}
+	}
+
+	private final CsrGraph graph;
+	private final ReverseGraph reverse;		// links entering every router
+	private final ShortestPathTree base[];	// tree of every source in the base graph
+//	routers of every tree in depth first order, so the routers below v in the
+//	tree of a source are the size[source][v] from order[source][first[source][v]] on
+	private final int order[][];
+	private final int first[][];			// -1 for a router the source does not reach
+	private final int size[][];
+
+//	computing the base tree of every router on the common fork join pool
+	public FailureAnalysis(CsrGraph graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	public FailureAnalysis(CsrGraph graph, ForkJoinPool pool) {
+		int n = graph.vertexCount();
+		this.graph = graph;
+		this.reverse = new ReverseGraph(graph);
+		this.base = new ShortestPathTree[n];
+		this.order = new int[n][];
+		this.first = new int[n][];
+		this.size = new int[n][];
+		final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(graph));
+		try {
+			pool.submit(() -> IntStream.range(0, n).parallel().forEach(source -> {
+				Scratch s = scratch.get();
+				Dijkstras.computePaths(graph, source, s.queue, s.distance, s.previous);
+				base[source] = new ShortestPathTree(source, s.distance.clone(), s.previous.clone());
+				index(source, s);
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Failure analysis interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failure analysis failed", e.getCause());
+		}
+	}
+
+//	depth first order and subtree sizes of the tree in the scratch arrays
+	private void index(int source, Scratch s) {
+		int n = graph.vertexCount();
+		int previous[] = s.previous;
+//		children of every router grouped with a counting sort
+		int childStart[] = s.childStart;
+		int children[] = s.cut;
+		Arrays.fill(childStart, 0);
+		int reached = 1;
+		for (int v = 0; v < n; v++) {
+			if (previous[v] != -1) {
+				childStart[previous[v]]++;
+				reached++;
+			}
+		}
+		int sum = 0;
+		for (int v = 0; v < n; v++) {
+			sum += childStart[v];
+			childStart[v] = sum;
+		}
+		for (int v = n - 1; v >= 0; v--) {
+			if (previous[v] != -1) {
+				children[--childStart[previous[v]]] = v;
+			}
+		}
+//		children of v are children[childStart[v]] up to the start of v + 1,
+//		the last router ends at the number of links in the tree
+		int treeOrder[] = new int[reached];
+		int treeFirst[] = new int[n];
+		int treeSize[] = new int[n];
+		Arrays.fill(treeFirst, -1);
+		int pending[] = new int[reached];
+		int top = 0;
+		int count = 0;
+		pending[top++] = source;
+		while (top > 0) {
+			int v = pending[--top];
+			treeFirst[v] = count;
+			treeOrder[count++] = v;
+			int end = v + 1 < n ? childStart[v + 1] : reached - 1;
+			for (int c = childStart[v]; c < end; c++) {
+				pending[top++] = children[c];
+			}
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			int v = treeOrder[i];
+			treeSize[v]++;
+			if (v != source) {
+				treeSize[previous[v]] += treeSize[v];
+			}
+		}
+		order[source] = treeOrder;
+		first[source] = treeFirst;
+		size[source] = treeSize;
+	}
+
+	public CsrGraph graph() {
+		return graph;
+	}
+
+//	every router failing on its own
+	public static List<Scenario> singleRouters(int routerCount) {
+		List<Scenario> scenarios = new ArrayList<Scenario>(routerCount);
+		for (int r = 0; r < routerCount; r++) {
+			scenarios.add(new Scenario(new int[] { r }, new int[0], new int[0]));
+		}
+		return scenarios;
+	}
+
+//	every pair of routers failing together, n(n-1)/2 of them, so the
+//	scenarios are made from their index when they are run instead of
+//	being kept in a list
+	public static List<Scenario> routerPairs(int routerCount) {
+		final long n = routerCount;
+		final long count = n * (n - 1) / 2;
+		if (count > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					"Pairs of " + routerCount + " routers are more than " + Integer.MAX_VALUE + " scenarios");
+		}
+		return new AbstractList<Scenario>() {
+			public int size() {
+				return (int) count;
+			}
+
+//			pairs go (0, 1) .. (0, n-1), (1, 2) .. and so on, the pairs
+//			before those of router a are a(2n-a-1)/2
+			public Scenario get(int index) {
+				if (index < 0 || index >= count) {
+					throw new IndexOutOfBoundsException("Pair " + index + " of " + count);
+				}
+				double b = 2. * n - 1;
+				long a = (long) ((b - Math.sqrt(b * b - 8. * index)) / 2);
+				while (a > 0 && a * (2 * n - a - 1) / 2 > index) {
+					a--;
+				}
+				while ((a + 1) * (2 * n - a - 2) / 2 <= index) {
+					a++;
+				}
+				int other = (int) (index - a * (2 * n - a - 1) / 2 + a + 1);
+				return new Scenario(new int[] { (int) a, other }, new int[0], new int[0]);
+			}
+		};
+	}
+
+//	every link failing on its own both ways, parallel links fail together
+//	one scenario per pair of linked routers, from the lower router
+	public static List<Scenario> singleLinks(CsrGraph graph) {
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (int u = 0; u < graph.vertexCount(); u++) {
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				if (graph.findEdge(u, v) == e && (u < v || graph.findEdge(v, u) == -1)) {
+					scenarios.add(new Scenario(new int[0], new int[] { u }, new int[] { v }));
+				}
+			}
+		}
+		return scenarios;
+	}
+
+//	reading a scenario file, routers and links are checked against the graph
+	public static List<Scenario> load(Path file, CsrGraph graph) throws IOException {
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				int comment = line.indexOf('#');
+				if (comment >= 0) {
+					line = line.substring(0, comment);
+				}
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				int routers[] = new int[0];
+				int linkFrom[] = new int[0];
+				int linkTo[] = new int[0];
+				boolean oneWay[] = new boolean[0];
+				for (String failure : line.split(",")) {
+					String tokens[] = failure.trim().split("\\s+");
+					if (tokens.length == 2 && tokens[0].equalsIgnoreCase("router")) {
+						routers = Arrays.copyOf(routers, routers.length + 1);
+						routers[routers.length - 1] = router(tokens[1], lineNumber, graph);
+					} else if ((tokens.length == 3 || tokens.length == 4 && tokens[3].equalsIgnoreCase("oneway"))
+							&& tokens[0].equalsIgnoreCase("link")) {
+						int u = router(tokens[1], lineNumber, graph);
+						int v = router(tokens[2], lineNumber, graph);
+						boolean one = tokens.length == 4;
+						if (one && graph.findEdge(u, v) == -1) {
+							throw new IOException("No link from router " + (u + 1) + " to router " + (v + 1)
+									+ " on line " + lineNumber);
+						}
+						if (graph.findEdge(u, v) == -1 && graph.findEdge(v, u) == -1) {
+							throw new IOException("No link between router " + (u + 1) + " and router " + (v + 1)
+									+ " on line " + lineNumber);
+						}
+						linkFrom = Arrays.copyOf(linkFrom, linkFrom.length + 1);
+						linkTo = Arrays.copyOf(linkTo, linkTo.length + 1);
+						oneWay = Arrays.copyOf(oneWay, oneWay.length + 1);
+						linkFrom[linkFrom.length - 1] = u;
+						linkTo[linkTo.length - 1] = v;
+						oneWay[oneWay.length - 1] = one;
+					} else {
+						throw new IOException("Scenario on line " + lineNumber
+								+ " needs \"router r\", \"link u v\" or \"link u v oneway\"");
+					}
+				}
+				scenarios.add(new Scenario(routers, linkFrom, linkTo, oneWay));
+			}
+		}
+		return scenarios;
+	}
+
+	private static int router(String token, int lineNumber, CsrGraph graph) throws IOException {
+		int router;
+		try {
+			router = Integer.parseInt(token);
+		} catch (NumberFormatException e) {
+			throw new IOException("Scenario on line " + lineNumber + " has " + token + " for a router");
+		}
+		if (router < 1 || router > graph.vertexCount()) {
+			throw new IOException("Router " + router + " on line " + lineNumber + " dose'nt exists");
+		}
+		return router - 1;
+	}
+
+//	costs changed by one scenario, computed on the calling thread
+	public Result analyze(Scenario scenario) {
+		return analyze(scenario, new Scratch(graph));
+	}
+
+	private Result analyze(Scenario scenario, Scratch s) {
+		int n = graph.vertexCount();
+		Result result = new Result(scenario);
+		for (int r : scenario.routers) {
+			s.excludeRouter(r);
+		}
+		for (int i = 0; i < scenario.linkFrom.length; i++) {
+			excludeLinks(scenario.linkFrom[i], scenario.linkTo[i], s);
+			if (!scenario.oneWay[i]) {
+				excludeLinks(scenario.linkTo[i], scenario.linkFrom[i], s);
+			}
+		}
+		for (int source = 0; source < n; source++) {
+			if (s.isExcluded(source)) {
+				continue;
+			}
+			int count = cut(scenario, source, s);
+			if (count == 0) {
+				result.reused++;
+				continue;
+			}
+			result.rerun++;
+			repair(source, count, s);
+			ShortestPathTree tree = base[source];
+			for (int i = 0; i < count; i++) {
+				int target = s.cut[i];
+				double costBefore = tree.distanceTo(target);
+				double costAfter = s.distance[target];
+				if (costAfter != costBefore) {
+					result.add(source, target, costBefore, costAfter);
+				}
+				s.isCut[target] = false;
+			}
+		}
+		s.clearExclusions();
+		return result;
+	}
+
+//	every link from u to v, parallel ones included
+	private void excludeLinks(int u, int v, Scratch s) {
+		for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+			if (graph.target(e) == v) {
+				s.excludeLink(e);
+			}
+		}
+	}
+
+//	routers of the tree of the source below a failed router or a failed
+//	link the tree uses, put in scratch.cut in ascending order without the
+//	failed routers, 0 when the failure leaves every path of the tree in place
+	private int cut(Scenario scenario, int source, Scratch s) {
+		int marked = 0;
+		for (int r : scenario.routers) {
+			marked = mark(source, r, marked, s);
+		}
+		ShortestPathTree tree = base[source];
+		for (int i = 0; i < scenario.linkFrom.length; i++) {
+			int u = scenario.linkFrom[i];
+			int v = scenario.linkTo[i];
+			if (tree.previous(v) == u) {
+				marked = mark(source, v, marked, s);
+			}
+			if (!scenario.oneWay[i] && tree.previous(u) == v) {
+				marked = mark(source, u, marked, s);
+			}
+		}
+		int count = 0;
+		for (int i = 0; i < marked; i++) {
+			int v = s.cut[i];
+			if (!s.isExcluded(v)) {
+				s.cut[count++] = v;
+			} else {
+				s.isCut[v] = false;
+			}
+		}
+		Arrays.sort(s.cut, 0, count);
+		return count;
+	}
+
+//	adding the routers below v, v included, to the cut
+	private int mark(int source, int v, int marked, Scratch s) {
+		int at = first[source][v];
+		if (at == -1) {
+			return marked;
+		}
+		int treeOrder[] = order[source];
+		for (int i = at, end = at + size[source][v]; i < end; i++) {
+			int w = treeOrder[i];
+			if (!s.isCut[w]) {
+				s.isCut[w] = true;
+				s.cut[marked++] = w;
+			}
+		}
+		return marked;
+	}
+
+//	distances of the cut routers without the failures, searched from the
+//	links that enter them from the part of the tree that is kept
+	private void repair(int source, int count, Scratch s) {
+		ShortestPathTree tree = base[source];
+		CsrGraph backward = reverse.graph;
+		for (int i = 0; i < count; i++) {
+			int v = s.cut[i];
+			double best = Double.POSITIVE_INFINITY;
+			for (int r = backward.begin(v), end = backward.end(v); r < end; r++) {
+				int u = backward.target(r);
+				if (!s.isCut[u] && !s.isExcluded(u) && !s.isExcludedLink(reverse.origin(r))) {
+					best = Math.min(best, tree.distanceTo(u) + backward.weight(r));
+				}
+			}
+			s.distance[v] = best;
+			if (best != Double.POSITIVE_INFINITY) {
+				s.repairQueue.insert(v, best);
+			}
+		}
+		while (!s.repairQueue.isEmpty()) {
+			int u = s.repairQueue.poll();
+			double distanceU = s.distance[u];
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				if (!s.isCut[v] || s.isExcluded(v) || s.isExcludedLink(e)) {
+					continue;
+				}
+				double distanceThroughU = distanceU + graph.weight(e);
+				if (distanceThroughU < s.distance[v]) {
+					s.distance[v] = distanceThroughU;
+					s.repairQueue.insertOrDecrease(v, distanceThroughU);
+				}
+			}
+		}
+	}
+
+//	analysing every scenario on the common fork join pool
+	public void run(List<Scenario> scenarios, Writer out) throws IOException {
+		run(scenarios, out, ForkJoinPool.commonPool());
+	}
+
+//	analysing every scenario in parallel, the results are written on the
+//	calling thread as they are finished and flushed whenever it has caught up
+	public void run(List<Scenario> scenarios, Writer out, ForkJoinPool pool) throws IOException {
+		final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(graph));
+		final BlockingQueue<String> finished = new LinkedBlockingQueue<String>();
+		Future<?> work = pool.submit(() -> IntStream.range(0, scenarios.size()).parallel().forEach(i -> {
+			finished.add(format(i + 1, analyze(scenarios.get(i), scratch.get())));
+		}));
+		try {
+			while (!work.isDone() || !finished.isEmpty()) {
+				String block = finished.poll(100, TimeUnit.MILLISECONDS);
+				if (block != null) {
+					out.write(block);
+					if (finished.isEmpty()) {
+						out.flush();
+					}
+				}
+			}
+			work.get();
+		} catch (InterruptedException e) {
+			work.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Failure analysis interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failure analysis failed", e.getCause());
+		}
+		out.flush();
+	}
+
+//	summary line and one line per changed cost, scenarios numbered from 1
+	static String format(int number, Result result) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("scenario\t").append(number).append('\t').append(result.scenario).append("\tchanged ")
+				.append(result.count - result.unreachable).append("\tunreachable ").append(result.unreachable)
+				.append("\trerun ").append(result.rerun).append("\treused ").append(result.reused).append('\n');
+		for (int i = 0; i < result.count; i++) {
+			sb.append(number).append('\t').append(result.sources[i] + 1).append('\t').append(result.targets[i] + 1)
+					.append('\t').append(result.before[i]).append('\t');
+			if (result.after[i] == Double.POSITIVE_INFINITY) {
+				sb.append('-');
+			} else {
+				sb.append(result.after[i]);
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+//	per thread search arrays and failure bitsets, only the bits
+//	a scenario set are cleared after it
+	private static class Scratch {
+		final IndexedHeap queue;
+//		seeds of a repair are spread over any range of costs, too wide for buckets
+		final IndexedHeap repairQueue;
+		final double distance[];
+		final int previous[];
+		final int childStart[];			// children grouping while a tree is indexed
+		final int cut[];				// routers below the failure
+		final boolean isCut[];
+		final long excludedRouters[];
+		final long excludedLinks[];
+		int excludedRouterList[] = new int[4];
+		int excludedLinkList[] = new int[4];
+		int excludedRouterCount;
+		int excludedLinkCount;
+
+		Scratch(CsrGraph graph) {
+			int n = graph.vertexCount();
+			queue = Dijkstras.createQueue(graph);
+			repairQueue = IndexedHeap.create(Dijkstras.heapArity, n);
+			distance = new double[n];
+			previous = new int[n];
+			childStart = new int[n];
+			cut = new int[n];
+			isCut = new boolean[n];
+			excludedRouters = new long[(n + 63) >>> 6];
+			excludedLinks = new long[(graph.edgeCount() + 63) >>> 6];
+		}
+
+		boolean isExcluded(int router) {
+			return (excludedRouters[router >>> 6] & 1L << router) != 0;
+		}
+
+		void excludeRouter(int router) {
+			excludedRouters[router >>> 6] |= 1L << router;
+			if (excludedRouterCount == excludedRouterList.length) {
+				excludedRouterList = Arrays.copyOf(excludedRouterList, excludedRouterCount * 2);
+			}
+			excludedRouterList[excludedRouterCount++] = router;
+		}
+
+		void excludeLink(int e) {
+			excludedLinks[e >>> 6] |= 1L << e;
+			if (excludedLinkCount == excludedLinkList.length) {
+				excludedLinkList = Arrays.copyOf(excludedLinkList, excludedLinkCount * 2);
+			}
+			excludedLinkList[excludedLinkCount++] = e;
+		}
+
+		void clearExclusions() {
+			for (int i = 0; i < excludedRouterCount; i++) {
+				excludedRouters[excludedRouterList[i] >>> 6] = 0L;
+			}
+			for (int i = 0; i < excludedLinkCount; i++) {
+				excludedLinks[excludedLinkList[i] >>> 6] = 0L;
+			}
+			excludedRouterCount = 0;
+			excludedLinkCount = 0;
+		}
+
+		boolean isExcludedLink(int e) {
+			return (excludedLinks[e >>> 6] & 1L << e) != 0;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the all pairs engine for dense topologies,
+ * 					blocked Floyd-Warshall
+ * 					- distances are one flat int array, row = source router,
+ * 					split in square tiles so the three tiles a step works on
+ * 					stay in cache
+ * 					- for every block of intermediate routers the diagonal
+ * 					tile goes first, then the tiles of its row and column in
+ * 					parallel, then every other tile in parallel
+ * 					- next hops are worked out from the distance rows with the
+ * 					lowest index previous router, the same rule computePaths
+ * 					uses, so the connection tables are the same
+ * 					- only for whole number costs, the distances are exact ints
+ *
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+public class FloydWarshall {
+
+//	links over n * (n - 1) from which the connection tables use this engine
+//	can be set with -Ddijkstra.fw.density=2 to never use it
+	public static double densityThreshold = Double.parseDouble(System.getProperty("dijkstra.fw.density", "0.7"));
+
+//	routers per tile side
+	private static final int TILE = 64;
+
+//	no path, two of them still add up without overflow
+	static final int INFINITE = Integer.MAX_VALUE / 2;
+
+//	whole number costs of 0 or more, a flat n x n array fits and no path
+//	reaches INFINITE
+	public static boolean isSuitable(CsrGraph graph) {
+		int n = graph.vertexCount();
+		int maxWeight = graph.maxIntegerWeight();
+		return n > 0 && maxWeight >= 0 && (long) n * n <= Integer.MAX_VALUE - 8
+				&& (long) (n - 1) * maxWeight < INFINITE;
+	}
+
+//	true when the graph is dense enough for this engine to beat
+//	one shortest path run per router
+	public static boolean isPreferred(CsrGraph graph) {
+		int n = graph.vertexCount();
+		return n > 1 && isSuitable(graph) && graph.edgeCount() >= densityThreshold * n * (n - 1.);
+	}
+
+//	all pairs distances, distance[s * n + t], INFINITE for no path
+	public static int[] distances(CsrGraph graph, ForkJoinPool pool) {
+		if (!isSuitable(graph)) {
+			throw new IllegalArgumentException("Floyd-Warshall needs whole number costs and at most 46340 routers");
+		}
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		int n = graph.vertexCount();
+		int distance[] = new int[n * n];
+		Arrays.fill(distance, INFINITE);
+		for (int u = 0; u < n; u++) {
+			distance[u * n + u] = 0;
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				if (v != u) {
+					distance[u * n + v] = Math.min(distance[u * n + v], (int) graph.weight(e));
+				}
+			}
+		}
+		int tiles = (n + TILE - 1) / TILE;
+		for (int k = 0; k < tiles; k++) {
+			final int kt = k;
+			relax(distance, n, k, k, k);
+//			row and column of the diagonal tile
+			parallel(pool, 2 * tiles, t -> {
+				int other = t >> 1;
+				if (other != kt) {
+					if ((t & 1) == 0) {
+						relax(distance, n, kt, other, kt);
+					} else {
+						relax(distance, n, other, kt, kt);
+					}
+				}
+			});
+//			all the other tiles
+			parallel(pool, tiles * tiles, t -> {
+				int i = t / tiles;
+				int j = t % tiles;
+				if (i != kt && j != kt) {
+					relax(distance, n, i, j, kt);
+				}
+			});
+		}
+//		one run for all the sources, every router is settled once as the
+//		intermediate and every pair is relaxed through it
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, -1, n, (long) n * n * n, 0, 0);
+		}
+		return distance;
+	}
+
+//	tile (i, j) through the intermediate routers of tile k
+	private static void relax(int distance[], int n, int it, int jt, int kt) {
+		int iFrom = it * TILE, iTo = Math.min(n, iFrom + TILE);
+		int jFrom = jt * TILE, jTo = Math.min(n, jFrom + TILE);
+		int kFrom = kt * TILE, kTo = Math.min(n, kFrom + TILE);
+		for (int k = kFrom; k < kTo; k++) {
+			int kRow = k * n;
+			for (int i = iFrom; i < iTo; i++) {
+				int iRow = i * n;
+				int ik = distance[iRow + k];
+				if (ik == INFINITE) {
+					continue;
+				}
+//				branch free so the loop can be vectorized
+				for (int j = jFrom; j < jTo; j++) {
+					distance[iRow + j] = Math.min(distance[iRow + j], ik + distance[kRow + j]);
+				}
+			}
+		}
+	}
+
+	private static void parallel(ForkJoinPool pool, int tasks, IntConsumer task) {
+		try {
+			pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(task)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Floyd-Warshall interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Floyd-Warshall failed", e.getCause());
+		}
+	}
+
+//	hands every router's next hop row to the consumer like
+//	ConnectionTables.forEachRow, the row array is reused by the thread
+	static void forEachRow(CsrGraph graph, ForkJoinPool pool, ObjIntConsumer<int[]> consumer) {
+		final int n = graph.vertexCount();
+		final int distance[] = distances(graph, pool);
+		final CsrGraph entering = new ReverseGraph(graph).graph;
+		final ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> new int[3][n]);
+		parallel(pool, n, source -> {
+			int s[][] = scratch.get();
+			int previous[] = s[0];
+			int row[] = s[1];
+			int stack[] = s[2];
+			int base = source * n;
+//			entering links are sorted by router so the first one on a
+//			shortest path is the lowest
+			for (int v = 0; v < n; v++) {
+				previous[v] = -1;
+				int distanceV = distance[base + v];
+				if (v == source || distanceV == INFINITE) {
+					continue;
+				}
+				for (int e = entering.begin(v), end = entering.end(v); e < end; e++) {
+					int u = entering.target(e);
+					if (distance[base + u] + (int) entering.weight(e) == distanceV) {
+						previous[v] = u;
+						break;
+					}
+				}
+			}
+			ShortestPathTree.fillNextHops(source, previous, row, stack);
+			consumer.accept(row, source);
+		});
+	}
+
+//	next hop matrix like ConnectionTables.compute
+	public static int[][] connectionTables(CsrGraph graph) {
+		final int hops[][] = new int[graph.vertexCount()][];
+		forEachRow(graph, ForkJoinPool.commonPool(), (row, source) -> hops[source] = row.clone());
+		return hops;
+	}
+}
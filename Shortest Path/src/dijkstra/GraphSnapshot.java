@@ -0,0 +1,191 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the binary snapshot of a loaded topology
+ * 					- saves the CSR graph so the next start does not parse text
+ * 					- the file is memory mapped on load and the graph reads
+ * 					its arrays in place, nothing is copied
+ * 					- a normal load only checks the header, the file size and
+ * 					the first and last offsets so it takes the same time for
+ * 					any size, the checksum and every link are checked when
+ * 					verification is asked for
+ *
+ * 					layout, all little endian
+ * 					- header   magic "SPTG", version, routers n, links m,
+ * 					           CRC32 of everything after the header, 8 spare bytes
+ * 					- weights  m doubles
+ * 					- offsets  n + 1 ints
+ * 					- targets  m ints
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class GraphSnapshot {
+	static final int MAGIC = 0x47545053;	// "SPTG" read little endian
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+
+//	checksum and every link checked on every load, off so a load does
+//	not read the whole file, can be set with -Ddijkstra.snapshot.verify=true
+	public static boolean verifyOnLoad = Boolean.getBoolean("dijkstra.snapshot.verify");
+
+//	size of the buffer used while writing
+	private static final int CHUNK = 1 << 20;
+
+//	true when the file starts with the snapshot magic
+	static boolean isSnapshot(ByteBuffer start) {
+		return start.remaining() >= 4 && start.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+	}
+
+//	writing the graph to the snapshot file
+	public static void write(CsrGraph graph, Path file) throws IOException {
+		int n = graph.vertexCount();
+		int m = graph.edgeCount();
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+			channel.position(HEADER_SIZE);
+//			payload first, the header holds its checksum
+			for (int e = 0; e < m; e++) {
+				if (buffer.remaining() < 8) {
+					flush(channel, buffer, crc);
+				}
+				buffer.putDouble(graph.weight(e));
+			}
+			for (int u = 0; u <= n; u++) {
+				if (buffer.remaining() < 4) {
+					flush(channel, buffer, crc);
+				}
+				buffer.putInt(u < n ? graph.begin(u) : m);
+			}
+			for (int e = 0; e < m; e++) {
+				if (buffer.remaining() < 4) {
+					flush(channel, buffer, crc);
+				}
+				buffer.putInt(graph.target(e));
+			}
+			flush(channel, buffer, crc);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putLong(crc.getValue()).putLong(0L);
+			header.flip();
+			channel.position(0);
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+		buffer.flip();
+		crc.update(buffer.array(), 0, buffer.limit());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+//	mapping a snapshot, verified when -Ddijkstra.snapshot.verify=true
+	public static CsrGraph map(Path file) throws IOException {
+		return map(file, verifyOnLoad);
+	}
+
+//	mapping a snapshot, with verify the checksum is checked and then the
+//	offsets, targets and costs in one pass, a file that is cut short or
+//	has a wrong header fails either way
+	public static CsrGraph map(Path file, boolean verify) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header) > 0) {
+			}
+			if (header.position() < HEADER_SIZE) {
+				throw new IOException("Snapshot " + file + " is shorter than its header");
+			}
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException(file + " is not a topology snapshot");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Snapshot version " + version + " is not supported, expected " + VERSION);
+			}
+			int n = header.getInt();
+			int m = header.getInt();
+			long checksum = header.getLong();
+			if (n < 0 || m < 0) {
+				throw new IOException("Snapshot " + file + " has a corrupt header");
+			}
+
+			long weightsAt = HEADER_SIZE;
+			long offsetsAt = weightsAt + 8L * m;
+			long targetsAt = offsetsAt + 4L * (n + 1);
+			long size = targetsAt + 4L * m;
+			if (channel.size() != size) {
+				throw new IOException("Snapshot " + file + " is " + channel.size() + " bytes, expected " + size);
+			}
+			MappedByteBuffer weights = section(channel, weightsAt, 8L * m);
+			MappedByteBuffer offsets = section(channel, offsetsAt, 4L * (n + 1));
+			MappedByteBuffer targets = section(channel, targetsAt, 4L * m);
+
+			CsrGraph graph = new CsrGraph(n, offsets.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+					targets.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+					weights.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+			if (graph.edgeCount() != m || graph.begin(0) != 0) {
+				throw new IOException("Snapshot " + file + " has corrupt offsets");
+			}
+			if (verify) {
+				CRC32 crc = new CRC32();
+				crc.update(weights.duplicate());
+				crc.update(offsets.duplicate());
+				crc.update(targets.duplicate());
+				if (crc.getValue() != checksum) {
+					throw new IOException("Snapshot " + file + " failed its checksum");
+				}
+				checkStructure(file, graph);
+			}
+			return graph;
+		}
+	}
+
+//	one pass over the arrays after the checksum, so a file written wrong
+//	fails here and not with an index error in a shortest path run
+	private static void checkStructure(Path file, CsrGraph graph) throws IOException {
+		int n = graph.vertexCount();
+		int m = graph.edgeCount();
+		for (int u = 0; u < n; u++) {
+			if (graph.end(u) < graph.begin(u) || graph.end(u) > m) {
+				throw new IOException("Snapshot " + file + " has corrupt offsets at router " + (u + 1));
+			}
+		}
+		for (int e = 0; e < m; e++) {
+			int v = graph.target(e);
+			if (v < 0 || v >= n) {
+				throw new IOException("Snapshot " + file + " has link " + e + " to router " + (v + 1)
+						+ " of " + n);
+			}
+			if (!(graph.weight(e) > 0) || graph.weight(e) == Double.POSITIVE_INFINITY) {
+				throw new IOException("Snapshot " + file + " has link " + e + " with cost " + graph.weight(e));
+			}
+		}
+	}
+
+//	one array of the file, a mapping is limited to 2 GB
+	private static MappedByteBuffer section(FileChannel channel, long position, long length) throws IOException {
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Snapshot section of " + length + " bytes is larger than a mapping allows");
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+	}
+}
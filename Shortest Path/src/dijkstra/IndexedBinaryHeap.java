@@ -0,0 +1,141 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains a binary min heap over router indexes
+ * 					- keys are kept in a double array indexed by router
+ * 					- position array gives O(1) contains and O(log n) decreaseKey
+ * 					instead of the linear PriorityQueue.remove
+ *
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class IndexedBinaryHeap implements IndexedHeap {
+	private final int heap[];		// router indexes in heap order
+	private final int position[];	// slot of each router in heap, -1 when not queued
+	private final double keys[];	// key of each router
+	private int size;				// number of queued routers
+
+	public IndexedBinaryHeap(int capacity) {
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public void insert(int index, double key) {
+		if (position[index] != -1) {
+			throw new IllegalArgumentException("Router " + index + " is already queued");
+		}
+		keys[index] = key;
+		heap[size] = index;
+		position[index] = size;
+		siftUp(size++);
+	}
+
+	public void decreaseKey(int index, double key) {
+		if (position[index] == -1) {
+			throw new NoSuchElementException("Router " + index + " is not queued");
+		}
+		keys[index] = key;
+		siftUp(position[index]);
+	}
+
+	public void insertOrDecrease(int index, double key) {
+		if (position[index] == -1) {
+			insert(index, key);
+		} else if (key < keys[index]) {
+			decreaseKey(index, key);
+		}
+	}
+
+	public boolean contains(int index) {
+		return position[index] != -1;
+	}
+
+	public double keyOf(int index) {
+		return keys[index];
+	}
+
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return heap[0];
+	}
+
+	public int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		int min = heap[0];
+		position[min] = -1;
+		if (--size > 0) {
+//			moving the last router to the root and pushing it down
+			int last = heap[size];
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+//		only the queued routers have a position to reset
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int slot) {
+		int index = heap[slot];
+		double key = keys[index];
+		while (slot > 0) {
+			int parent = (slot - 1) >>> 1;
+			int parentIndex = heap[parent];
+			if (keys[parentIndex] <= key) {
+				break;
+			}
+			heap[slot] = parentIndex;
+			position[parentIndex] = slot;
+			slot = parent;
+		}
+		heap[slot] = index;
+		position[index] = slot;
+	}
+
+	private void siftDown(int slot) {
+		int index = heap[slot];
+		double key = keys[index];
+		int half = size >>> 1;
+		while (slot < half) {
+			int child = (slot << 1) + 1;
+			int right = child + 1;
+			if (right < size && keys[heap[right]] < keys[heap[child]]) {
+				child = right;
+			}
+			int childIndex = heap[child];
+			if (key <= keys[childIndex]) {
+				break;
+			}
+			heap[slot] = childIndex;
+			position[childIndex] = slot;
+			slot = child;
+		}
+		heap[slot] = index;
+		position[index] = slot;
+	}
+}
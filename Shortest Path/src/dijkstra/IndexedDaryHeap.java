@@ -0,0 +1,157 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains a d-ary min heap over router indexes
+ * 					- same contract as the binary heap
+ * 					- a wider node makes the heap shallower so decreaseKey
+ * 					is cheaper, at the cost of more comparisons per poll
+ *
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class IndexedDaryHeap implements IndexedHeap {
+	private final int arity;		// children per heap node
+	private final int heap[];		// router indexes in heap order
+	private final int position[];	// slot of each router in heap, -1 when not queued
+	private final double keys[];	// key of each router
+	private int size;				// number of queued routers
+
+	public IndexedDaryHeap(int arity, int capacity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("Heap arity must be at least 2: " + arity);
+		}
+		this.arity = arity;
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public int arity() {
+		return arity;
+	}
+
+	public void insert(int index, double key) {
+		if (position[index] != -1) {
+			throw new IllegalArgumentException("Router " + index + " is already queued");
+		}
+		keys[index] = key;
+		heap[size] = index;
+		position[index] = size;
+		siftUp(size++);
+	}
+
+	public void decreaseKey(int index, double key) {
+		if (position[index] == -1) {
+			throw new NoSuchElementException("Router " + index + " is not queued");
+		}
+		keys[index] = key;
+		siftUp(position[index]);
+	}
+
+	public void insertOrDecrease(int index, double key) {
+		if (position[index] == -1) {
+			insert(index, key);
+		} else if (key < keys[index]) {
+			decreaseKey(index, key);
+		}
+	}
+
+	public boolean contains(int index) {
+		return position[index] != -1;
+	}
+
+	public double keyOf(int index) {
+		return keys[index];
+	}
+
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return heap[0];
+	}
+
+	public int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		int min = heap[0];
+		position[min] = -1;
+		if (--size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int slot) {
+		int index = heap[slot];
+		double key = keys[index];
+		while (slot > 0) {
+			int parent = (slot - 1) / arity;
+			int parentIndex = heap[parent];
+			if (keys[parentIndex] <= key) {
+				break;
+			}
+			heap[slot] = parentIndex;
+			position[parentIndex] = slot;
+			slot = parent;
+		}
+		heap[slot] = index;
+		position[index] = slot;
+	}
+
+	private void siftDown(int slot) {
+		int index = heap[slot];
+		double key = keys[index];
+		while (true) {
+			int first = slot * arity + 1;
+			if (first >= size) {
+				break;
+			}
+//			finding the smallest of the children
+			int last = Math.min(first + arity, size);
+			int child = first;
+			double childKey = keys[heap[first]];
+			for (int c = first + 1; c < last; c++) {
+				double k = keys[heap[c]];
+				if (k < childKey) {
+					child = c;
+					childKey = k;
+				}
+			}
+			if (key <= childKey) {
+				break;
+			}
+			int childIndex = heap[child];
+			heap[slot] = childIndex;
+			position[childIndex] = slot;
+			slot = child;
+		}
+		heap[slot] = index;
+		position[index] = slot;
+	}
+}
@@ -0,0 +1,53 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the priority queue contract used by the
+ * 					shortest path engine
+ * 					- routers are identified by an int index from 0 to capacity-1
+ * 					- every router is in the queue at most once and its key
+ * 					can be lowered in O(log n) with decreaseKey
+ *
+ */
+
+public interface IndexedHeap {
+
+//	adds a router which is not in the queue yet
+	void insert(int index, double key);
+
+//	lowers the key of a router which is already in the queue
+	void decreaseKey(int index, double key);
+
+//	inserts the router or lowers its key when it is already queued
+	void insertOrDecrease(int index, double key);
+
+//	true when the router is currently in the queue
+	boolean contains(int index);
+
+//	key of a queued router
+	double keyOf(int index);
+
+//	router with the smallest key, left in the queue
+	int peek();
+
+//	removes and returns the router with the smallest key
+	int poll();
+
+//	number of routers in the queue
+	int size();
+
+	boolean isEmpty();
+
+//	empties the queue so the same instance can be used for the next run
+	void clear();
+
+//	creating a heap of the given arity, 2 gives the binary heap
+	static IndexedHeap create(int arity, int capacity) {
+		if (arity == 2) {
+			return new IndexedBinaryHeap(capacity);
+		}
+		return new IndexedDaryHeap(arity, capacity);
+	}
+}
@@ -0,0 +1,328 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the K shortest loopless paths between
+ * 					two routers (Yen's algorithm)
+ * 					- the first path is the one option 3 gives, every next one
+ * 					leaves a path found before at a spur router and goes on to
+ * 					the destination without the routers before the spur and
+ * 					without the links the earlier paths took out of it
+ * 					- the spur searches of one path run in parallel, each thread
+ * 					marks the routers and links it must avoid in its own bitsets
+ * 					and clears only those bits, nothing is copied per search
+ * 					- every spur search is an A* on the distances to the
+ * 					destination in the full graph, leaving links out can only
+ * 					make paths longer so the bound stays valid and is exact
+ * 					until the search meets a left out link
+ * 					- paths come in order of cost, equal costs in order of the
+ * 					routers on them
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class KShortestPaths {
+
+//	up to k paths from source to target on the common fork join pool,
+//	router indexes from 0, an empty list when there is no path
+	public static List<Route> compute(CsrGraph graph, int source, int target, int k) {
+		return compute(graph, source, target, k, ForkJoinPool.commonPool());
+	}
+
+	public static List<Route> compute(CsrGraph graph, int source, int target, int k, ForkJoinPool pool) {
+		int n = graph.vertexCount();
+		if (k < 1) {
+			throw new IllegalArgumentException("At least one path must be asked for: " + k);
+		}
+		if (source < 0 || source >= n) {
+			throw new IllegalArgumentException("Router " + (source + 1) + " dose'nt exists");
+		}
+		if (target < 0 || target >= n) {
+			throw new IllegalArgumentException("Router " + (target + 1) + " dose'nt exists");
+		}
+		List<Route> routes = new ArrayList<Route>();
+
+//		distance of every router to the target, the bound of all the searches
+		CsrGraph backward = new ReverseGraph(graph).graph;
+		final double toTarget[] = new double[n];
+		Dijkstras.computePaths(backward, target, Dijkstras.createQueue(backward), toTarget, new int[n]);
+		if (toTarget[source] == Double.POSITIVE_INFINITY) {
+			return routes;
+		}
+
+		final ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(graph, toTarget));
+		final List<Candidate> accepted = new ArrayList<Candidate>();
+		PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+		Set<Candidate> seen = new HashSet<Candidate>();
+		Candidate best = searches.get().run(source, null, 0, target);
+		accepted.add(best);
+		seen.add(best);
+		while (accepted.size() < k) {
+//			spurs before the router the last path left its parent at
+//			were already tried from the parent (Lawler)
+			final Candidate last = accepted.get(accepted.size() - 1);
+			final int first = last.deviation;
+			final Candidate spurs[] = new Candidate[last.path.length - 1 - first];
+			if (spurs.length > 1 && pool.getParallelism() > 1) {
+				try {
+					pool.submit(() -> IntStream.range(0, spurs.length).parallel()
+							.forEach(i -> spurs[i] = searches.get().spur(last, first + i, target, accepted))).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("K shortest paths interrupted", e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("K shortest paths failed", e.getCause());
+				}
+			} else {
+				Search search = searches.get();
+				for (int i = 0; i < spurs.length; i++) {
+					spurs[i] = search.spur(last, first + i, target, accepted);
+				}
+			}
+			for (Candidate spur : spurs) {
+				if (spur != null && seen.add(spur)) {
+					candidates.add(spur);
+				}
+			}
+			if (candidates.isEmpty()) {
+				break;
+			}
+			accepted.add(candidates.poll());
+		}
+		for (Candidate c : accepted) {
+			routes.add(new Route(c.path, c.cost[c.cost.length - 1], c.settled));
+		}
+		return routes;
+	}
+
+//	a path found by a search, equal when the routers are the same
+	private static class Candidate implements Comparable<Candidate> {
+		final int path[];
+		final double cost[];		// cost from the source to every router of the path
+		final int deviation;		// index of the spur router it left its parent at
+		final int settled;
+
+		Candidate(int path[], double cost[], int deviation, int settled) {
+			this.path = path;
+			this.cost = cost;
+			this.deviation = deviation;
+			this.settled = settled;
+		}
+
+		public int compareTo(Candidate other) {
+			int c = Double.compare(cost[cost.length - 1], other.cost[other.cost.length - 1]);
+			if (c != 0) {
+				return c;
+			}
+			for (int i = 0; i < path.length && i < other.path.length; i++) {
+				if (path[i] != other.path[i]) {
+					return path[i] < other.path[i] ? -1 : 1;
+				}
+			}
+			return path.length - other.path.length;
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof Candidate && Arrays.equals(path, ((Candidate) o).path);
+		}
+
+		public int hashCode() {
+			return Arrays.hashCode(path);
+		}
+	}
+
+//	search arrays and exclusion bitsets of one thread, only what
+//	a search touched or excluded is reset after it
+	private static class Search {
+		private final CsrGraph graph;
+		private final double toTarget[];
+		private final IndexedHeap queue;
+		private final double distance[];
+		private final int previous[];
+		private final int touched[];
+		private int touchedCount;
+		private final long excludedRouters[];	// bit per router
+		private final long excludedLinks[];		// bit per link index of the graph
+		private int excludedRouterList[] = new int[16];
+		private int excludedLinkList[] = new int[16];
+		private int excludedRouterCount;
+		private int excludedLinkCount;
+
+		Search(CsrGraph graph, double toTarget[]) {
+			int n = graph.vertexCount();
+			this.graph = graph;
+			this.toTarget = toTarget;
+			queue = IndexedHeap.create(Dijkstras.heapArity, n);
+			distance = new double[n];
+			previous = new int[n];
+			touched = new int[n];
+			excludedRouters = new long[(n + 63) >>> 6];
+			excludedLinks = new long[(graph.edgeCount() + 63) >>> 6];
+			Arrays.fill(distance, Double.POSITIVE_INFINITY);
+			Arrays.fill(previous, -1);
+		}
+
+//		path that leaves the parent at index j, null when the
+//		exclusions leave no way to the target
+		Candidate spur(Candidate parent, int j, int target, List<Candidate> accepted) {
+			int spurRouter = parent.path[j];
+			for (int i = 0; i < j; i++) {
+				excludeRouter(parent.path[i]);
+			}
+			for (Candidate c : accepted) {
+				if (c.path.length > j + 1 && samePrefix(c.path, parent.path, j)) {
+					int next = c.path[j + 1];
+					for (int e = graph.begin(spurRouter), end = graph.end(spurRouter); e < end; e++) {
+						if (graph.target(e) == next) {
+							excludeLink(e);
+						}
+					}
+				}
+			}
+			Candidate spur = run(spurRouter, parent, j, target);
+			clearExclusions();
+			return spur;
+		}
+
+//		A* from the spur router at index j of the parent, or from the source
+//		with no parent, keys are distance plus the distance left in the full
+//		graph, the search goes on after the target while a key ties its
+//		distance so the lowest previous router is kept like in computePaths
+		Candidate run(int start, Candidate parent, int j, int target) {
+			Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+			long relaxed = 0;
+			long inserts = 1;
+			long decreases = 0;
+			reset();
+			int settled = 0;
+			touch(start);
+			distance[start] = 0.;
+			queue.insert(start, toTarget[start]);
+			while (!queue.isEmpty()) {
+				int u = queue.peek();
+				if (queue.keyOf(u) > distance[target]) {
+					break;
+				}
+				queue.poll();
+				settled++;
+				if (u == target) {
+					continue;
+				}
+				double distanceU = distance[u];
+				if (Metrics.ENABLED) {
+					relaxed += graph.degree(u);
+				}
+				for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+					int v = graph.target(e);
+					if ((excludedLinks[e >>> 6] & 1L << e) != 0 || (excludedRouters[v >>> 6] & 1L << v) != 0
+							|| toTarget[v] == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					double distanceThroughU = distanceU + graph.weight(e);
+					if (distanceThroughU < distance[v]) {
+						if (Metrics.ENABLED) {
+							if (queue.contains(v)) {
+								decreases++;
+							} else {
+								inserts++;
+							}
+						}
+						touch(v);
+						distance[v] = distanceThroughU;
+						previous[v] = u;
+						queue.insertOrDecrease(v, distanceThroughU + toTarget[v]);
+					} else if (distanceThroughU == distance[v] && u < previous[v]) {
+						previous[v] = u;
+					}
+				}
+			}
+			queue.clear();
+			if (Metrics.ENABLED) {
+				Metrics.shortestPath(timer, start, settled, relaxed, inserts, decreases);
+			}
+			if (distance[target] == Double.POSITIVE_INFINITY) {
+				return null;
+			}
+//			routers of the parent before the spur router, then the spur path
+			int length = j;
+			for (int v = target; v != -1; v = previous[v]) {
+				length++;
+			}
+			int path[] = new int[length];
+			double cost[] = new double[length];
+			double rootCost = 0.;
+			if (parent != null) {
+				System.arraycopy(parent.path, 0, path, 0, j);
+				System.arraycopy(parent.cost, 0, cost, 0, j);
+				rootCost = parent.cost[j];
+			}
+			for (int v = target; v != -1; v = previous[v]) {
+				length--;
+				path[length] = v;
+				cost[length] = rootCost + distance[v];
+			}
+			return new Candidate(path, cost, j, settled);
+		}
+
+		private void touch(int v) {
+			if (distance[v] == Double.POSITIVE_INFINITY) {
+				touched[touchedCount++] = v;
+			}
+		}
+
+		private void reset() {
+			for (int i = 0; i < touchedCount; i++) {
+				distance[touched[i]] = Double.POSITIVE_INFINITY;
+				previous[touched[i]] = -1;
+			}
+			touchedCount = 0;
+		}
+
+		private void excludeRouter(int router) {
+			excludedRouters[router >>> 6] |= 1L << router;
+			if (excludedRouterCount == excludedRouterList.length) {
+				excludedRouterList = Arrays.copyOf(excludedRouterList, excludedRouterCount * 2);
+			}
+			excludedRouterList[excludedRouterCount++] = router;
+		}
+
+		private void excludeLink(int e) {
+			excludedLinks[e >>> 6] |= 1L << e;
+			if (excludedLinkCount == excludedLinkList.length) {
+				excludedLinkList = Arrays.copyOf(excludedLinkList, excludedLinkCount * 2);
+			}
+			excludedLinkList[excludedLinkCount++] = e;
+		}
+
+		private void clearExclusions() {
+			for (int i = 0; i < excludedRouterCount; i++) {
+				excludedRouters[excludedRouterList[i] >>> 6] = 0L;
+			}
+			for (int i = 0; i < excludedLinkCount; i++) {
+				excludedLinks[excludedLinkList[i] >>> 6] = 0L;
+			}
+			excludedRouterCount = 0;
+			excludedLinkCount = 0;
+		}
+
+		private static boolean samePrefix(int a[], int b[], int j) {
+			for (int i = 0; i <= j; i++) {
+				if (a[i] != b[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the goal directed point to point query
+ * 					(A*, landmarks and the triangle inequality)
+ * 					- distances from and to a few landmark routers are computed
+ * 					once with the normal shortest path run, the landmarks are
+ * 					picked far from each other (farthest selection)
+ * 					- for any router v the landmarks give a lower bound on the
+ * 					distance to the target, d(L,t) - d(L,v) and d(v,L) - d(t,L),
+ * 					the search is ordered on distance plus bound so it heads
+ * 					toward the target and settles far fewer routers
+ * 					- the bound never overestimates and drops by at most the
+ * 					link cost along a link, so the path and the cost are the
+ * 					same as option 3, ties included
+ * 					- removing routers or links only makes distances longer, the
+ * 					old bounds stay valid and only a removed landmark is replaced
+ *
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class LandmarkQuery {
+
+//	landmarks chosen when the query is built, each one costs 8 bytes per router
+//	can be set with -Ddijkstra.alt.landmarks=8 to trade bound quality for memory
+	public static int landmarkCount = Integer.getInteger("dijkstra.alt.landmarks", 16);
+
+//	distance stored for a router the landmark can not reach or be reached from
+	static final int INFINITE = Integer.MAX_VALUE;
+
+	private CsrGraph graph;				// current graph, swapped on removals
+	private final int vertexCount;
+	private final int landmarks[];		// routers the distances are measured from and to
+//	distances from and to every landmark, router major so the
+//	bounds of one router are next to each other in memory
+	private final int from[];			// from[v * k + i] is d(landmark i, v)
+	private final int to[];				// to[v * k + i] is d(v, landmark i)
+	private final long preprocessingNanos;
+//	search arrays reused between queries, only touched routers are reset
+	private final IndexedHeap queue;
+	private final double distance[];
+	private final int previous[];
+	private final double bound[];		// lower bound to the target, infinity when it can not be reached
+	private final int touched[];
+	private final boolean isTouched[];
+	private int touchedCount;
+
+	private LandmarkQuery(CsrGraph graph, int count) {
+		long start = System.nanoTime();
+		int n = graph.vertexCount();
+		this.graph = graph;
+		this.vertexCount = n;
+		CsrGraph backward = new ReverseGraph(graph).graph;
+		int linked = 0;
+		for (int v = 0; v < n; v++) {
+			if (graph.degree(v) > 0 || backward.degree(v) > 0) {
+				linked++;
+			}
+		}
+		int k = Math.min(count, linked);
+		landmarks = new int[k];
+		from = new int[n * k];
+		to = new int[n * k];
+
+//		every new landmark is the router farthest from the ones chosen so
+//		far, the first run only finds a starting point on the edge of the network
+		IndexedHeap forwardQueue = Dijkstras.createQueue(graph);
+		double forward[] = new double[n];
+		int forwardPrevious[] = new int[n];
+		double nearest[] = new double[n];
+		if (k > 0) {
+			int seed = 0;
+			while (graph.degree(seed) == 0 && backward.degree(seed) == 0) {
+				seed++;
+			}
+			Dijkstras.computePaths(graph, seed, forwardQueue, forward, forwardPrevious);
+			for (int v = 0; v < n; v++) {
+				nearest[v] = forward[v] == Double.POSITIVE_INFINITY ? 0. : forward[v];
+			}
+//			the starting point itself only when it reaches nothing
+			nearest[seed] = Double.MIN_VALUE;
+		}
+		for (int i = 0; i < k; i++) {
+			int landmark = farthest(graph, backward, nearest);
+			landmarks[i] = landmark;
+			Dijkstras.computePaths(graph, landmark, forwardQueue, forward, forwardPrevious);
+			setColumn(from, i, forward);
+			for (int v = 0; v < n; v++) {
+				nearest[v] = i == 0 ? forward[v] : Math.min(nearest[v], forward[v]);
+			}
+		}
+
+//		the runs toward the landmarks do not depend on each other
+		final int chosen = k;
+		final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(backward, n));
+		try {
+			ForkJoinPool.commonPool().submit(() -> IntStream.range(0, chosen).parallel().forEach(i -> {
+				Scratch s = scratch.get();
+				Dijkstras.computePaths(backward, landmarks[i], s.queue, s.distance, s.previous);
+				setColumn(to, i, s.distance);
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Landmark computation interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Landmark computation failed", e.getCause());
+		}
+
+		queue = IndexedHeap.create(Dijkstras.heapArity, n);
+		distance = new double[n];
+		previous = new int[n];
+		bound = new double[n];
+		touched = new int[n];
+		isTouched = new boolean[n];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(previous, -1);
+		preprocessingNanos = System.nanoTime() - start;
+	}
+
+//	true when the bounds can be kept as whole numbers, costs must be
+//	whole numbers of 0 or more and the longest path must fit in an int
+	public static boolean isSuitable(CsrGraph graph) {
+		int n = graph.vertexCount();
+		int maxWeight = graph.maxIntegerWeight();
+		return n > 0 && maxWeight >= 0 && (long) (n - 1) * maxWeight < INFINITE;
+	}
+
+//	choosing the landmarks and computing their distances
+	public static LandmarkQuery build(CsrGraph graph) {
+		return build(graph, landmarkCount);
+	}
+
+	public static LandmarkQuery build(CsrGraph graph, int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("At least one landmark is needed: " + count);
+		}
+		if (!isSuitable(graph)) {
+			throw new IllegalArgumentException("Landmark bounds need whole number costs");
+		}
+		return new LandmarkQuery(graph, count);
+	}
+
+	public CsrGraph graph() {
+		return graph;
+	}
+
+	public long preprocessingNanos() {
+		return preprocessingNanos;
+	}
+
+//	landmark routers, index from 0
+	public int[] landmarks() {
+		return landmarks.clone();
+	}
+
+//	A* from the source, every router is queued on its distance plus
+//	the landmark bound to the target
+//	the search goes on after the target until nothing left in the queue
+//	can be on a shortest path, so every equal cost previous router was
+//	seen and the lowest one is kept like in computePaths
+	public Route route(int source, int target) {
+		reset();
+		int settled = 0;
+		double sourceBound = boundOf(source, target);
+		if (sourceBound == Double.POSITIVE_INFINITY) {
+			return new Route(new int[] { target }, Double.POSITIVE_INFINITY, settled);
+		}
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long relaxed = 0;
+		long inserts = 1;
+		long decreases = 0;
+		distance[source] = 0.;
+		queue.insert(source, sourceBound);
+		while (!queue.isEmpty()) {
+			int u = queue.peek();
+			if (queue.keyOf(u) > distance[target]) {
+				break;
+			}
+			queue.poll();
+			settled++;
+			if (u == target) {
+				continue;
+			}
+			double distanceU = distance[u];
+			if (Metrics.ENABLED) {
+				relaxed += graph.degree(u);
+			}
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				double distanceThroughU = distanceU + graph.weight(e);
+				if (distanceThroughU < distance[v]) {
+					double boundV = boundOf(v, target);
+					if (boundV == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					if (Metrics.ENABLED) {
+						if (queue.contains(v)) {
+							decreases++;
+						} else {
+							inserts++;
+						}
+					}
+					distance[v] = distanceThroughU;
+					previous[v] = u;
+					queue.insertOrDecrease(v, distanceThroughU + boundV);
+				} else if (distanceThroughU == distance[v] && u < previous[v]) {
+					previous[v] = u;
+				}
+			}
+		}
+		queue.clear();
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settled, relaxed, inserts, decreases);
+		}
+		return new Route(path(target), distance[target], settled);
+	}
+
+//	taking a router out, graph is the topology without it
+//	the rows of the router are cleared and a removed landmark
+//	is replaced by the router farthest from the others
+	public void removeRouter(CsrGraph graph, int router) {
+		if (graph.vertexCount() != vertexCount) {
+			throw new IllegalArgumentException("Graph has " + graph.vertexCount() + " routers, expected " + vertexCount);
+		}
+		this.graph = graph;
+		int k = landmarks.length;
+		Arrays.fill(from, router * k, router * k + k, INFINITE);
+		Arrays.fill(to, router * k, router * k + k, INFINITE);
+		for (int i = 0; i < k; i++) {
+			if (landmarks[i] == router) {
+				replaceLandmark(i);
+			}
+		}
+	}
+
+//	taking a link out, graph is the topology without it
+//	nothing to compute, the bounds can only be lower than the distances
+	public void removeLink(CsrGraph graph, int u, int v) {
+		if (graph.vertexCount() != vertexCount) {
+			throw new IllegalArgumentException("Graph has " + graph.vertexCount() + " routers, expected " + vertexCount);
+		}
+		this.graph = graph;
+	}
+
+	private void replaceLandmark(int i) {
+		int n = vertexCount;
+		int k = landmarks.length;
+		CsrGraph backward = new ReverseGraph(graph).graph;
+		double nearest[] = new double[n];
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+		for (int v = 0; v < n; v++) {
+			for (int j = 0; j < k; j++) {
+				if (j != i) {
+					int d = from[v * k + j];
+					nearest[v] = Math.min(nearest[v], d == INFINITE ? Double.POSITIVE_INFINITY : d);
+				}
+			}
+		}
+		for (int j = 0; j < k; j++) {
+			if (j != i) {
+				nearest[landmarks[j]] = 0.;
+			}
+		}
+		int landmark = farthest(graph, backward, nearest);
+		if (landmark == -1) {
+//			no linked router left, a column of no paths gives no bound
+			Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+			setColumn(from, i, nearest);
+			setColumn(to, i, nearest);
+			return;
+		}
+		landmarks[i] = landmark;
+		Scratch s = new Scratch(graph, n);
+		Dijkstras.computePaths(graph, landmark, s.queue, s.distance, s.previous);
+		setColumn(from, i, s.distance);
+		s = new Scratch(backward, n);
+		Dijkstras.computePaths(backward, landmark, s.queue, s.distance, s.previous);
+		setColumn(to, i, s.distance);
+	}
+
+//	router with links that is the farthest from the chosen landmarks,
+//	routers no landmark reaches come first, -1 when none is left
+	private static int farthest(CsrGraph graph, CsrGraph backward, double nearest[]) {
+		int best = -1;
+		for (int v = 0; v < nearest.length; v++) {
+			if ((graph.degree(v) > 0 || backward.degree(v) > 0) && nearest[v] > 0.
+					&& (best == -1 || nearest[v] > nearest[best])) {
+				best = v;
+			}
+		}
+		return best;
+	}
+
+	private void setColumn(int table[], int i, double column[]) {
+		int k = landmarks.length;
+		for (int v = 0; v < column.length; v++) {
+			table[v * k + i] = column[v] == Double.POSITIVE_INFINITY ? INFINITE : (int) column[v];
+		}
+	}
+
+//	lower bound on the distance from v to the target, worked out once per
+//	router and query, infinity when a landmark shows there is no path
+	private double boundOf(int v, int target) {
+		if (isTouched[v]) {
+			return bound[v];
+		}
+		isTouched[v] = true;
+		touched[touchedCount++] = v;
+		int k = landmarks.length;
+		int vi = v * k;
+		int ti = target * k;
+		int best = 0;
+		for (int i = 0; i < k; i++) {
+//			landmark to v and to the target
+			int fromV = from[vi + i];
+			if (fromV != INFINITE) {
+				int fromT = from[ti + i];
+				if (fromT == INFINITE) {
+					return bound[v] = Double.POSITIVE_INFINITY;
+				}
+				best = Math.max(best, fromT - fromV);
+			}
+//			v and the target to the landmark
+			int toT = to[ti + i];
+			if (toT != INFINITE) {
+				int toV = to[vi + i];
+				if (toV == INFINITE) {
+					return bound[v] = Double.POSITIVE_INFINITY;
+				}
+				best = Math.max(best, toV - toT);
+			}
+		}
+		return bound[v] = best;
+	}
+
+	private int[] path(int target) {
+		int length = 0;
+		for (int v = target; v != -1; v = previous[v]) {
+			length++;
+		}
+		int path[] = new int[length];
+		for (int v = target; v != -1; v = previous[v]) {
+			path[--length] = v;
+		}
+		return path;
+	}
+
+//	undoing what the last query wrote
+	private void reset() {
+		for (int i = 0; i < touchedCount; i++) {
+			int v = touched[i];
+			isTouched[v] = false;
+			distance[v] = Double.POSITIVE_INFINITY;
+			previous[v] = -1;
+		}
+		touchedCount = 0;
+	}
+
+//	arrays of one landmark run
+	private static class Scratch {
+		final IndexedHeap queue;
+		final double distance[];
+		final int previous[];
+
+		Scratch(CsrGraph graph, int n) {
+			queue = Dijkstras.createQueue(graph);
+			distance = new double[n];
+			previous = new int[n];
+		}
+	}
+}
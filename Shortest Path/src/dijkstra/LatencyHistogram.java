@@ -0,0 +1,134 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the latency histogram of the load driver
+ * 					- every power of two of nanoseconds is split in 16 buckets
+ * 					so a percentile is off by at most about 6%, whatever the range
+ * 					- fixed memory, any number of threads can record at once
+ * 					without locking
+ *
+ */
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+//	buckets per power of two, 1 << SUB_BITS
+	static final int SUB_BITS = 4;
+	static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucket(nanos));
+		count.increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	public long count() {
+		return count.sum();
+	}
+
+	public long maxNanos() {
+		return max.get();
+	}
+
+	public double meanNanos() {
+		long n = count.sum();
+		return n == 0 ? 0. : (double) total.sum() / n;
+	}
+
+//	smallest latency at least the given fraction of the values are at or
+//	below, the top of its bucket so it is never reported too low
+	public long percentileNanos(double fraction) {
+		long n = count.sum();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * n));
+		long seen = 0;
+		for (int b = 0; b < counts.length(); b++) {
+			seen += counts.get(b);
+			if (seen >= rank) {
+				return Math.min(upperBound(b), max.get());
+			}
+		}
+		return max.get();
+	}
+
+//	values below SUB_BUCKETS get a bucket each, above that the top
+//	SUB_BITS bits after the highest one pick the bucket of the power of two
+	static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return (1L << exponent) + (sub << (exponent - SUB_BITS));
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		return lowerBound(bucket) + (1L << (exponent - SUB_BITS)) - 1;
+	}
+
+//	"count 1200 mean 0.210 ms p50 0.180 ms p90 ... max 3.100 ms"
+	public String toString() {
+		return String.format(Locale.ROOT, "count %d mean %.3f ms p50 %.3f ms p90 %.3f ms p99 %.3f ms p99.9 %.3f ms max %.3f ms",
+				count(), meanNanos() / 1e6, percentileNanos(0.5) / 1e6, percentileNanos(0.9) / 1e6,
+				percentileNanos(0.99) / 1e6, percentileNanos(0.999) / 1e6, maxNanos() / 1e6);
+	}
+
+//	one line per bucket that has values, merged into powers of two
+//	so the table stays short, with a bar scaled to the largest
+	public String buckets() {
+		long perPower[] = new long[64];
+		for (int b = 0; b < counts.length(); b++) {
+			long c = counts.get(b);
+			if (c > 0) {
+				perPower[63 - Long.numberOfLeadingZeros(Math.max(1, lowerBound(b)))] += c;
+			}
+		}
+		long largest = 1;
+		for (long c : perPower) {
+			largest = Math.max(largest, c);
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int p = 0; p < 64; p++) {
+			if (perPower[p] > 0) {
+				int bar = (int) Math.max(1, perPower[p] * 40 / largest);
+				sb.append(String.format(Locale.ROOT, "  %10.3f - %10.3f ms %10d ", (1L << p) / 1e6, (1L << (p + 1)) / 1e6,
+						perPower[p]));
+				for (int i = 0; i < bar; i++) {
+					sb.append('#');
+				}
+				sb.append(System.lineSeparator());
+			}
+		}
+		return sb.toString();
+	}
+}
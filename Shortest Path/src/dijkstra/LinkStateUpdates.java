@@ -0,0 +1,454 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the link-state update pipeline
+ * 					- updates come from a file or a local socket, one per
+ * 					line, routers from 1, '#' starts a comment
+ * 					  "down 1 2"    the link from 1 to 2 went down
+ * 					  "up 1 2 5"    the link came up with cost 5
+ * 					  "cost 1 2 7"  the cost of the link changed
+ * 					- updates wait in a bounded queue, a full queue holds
+ * 					the reader back instead of dropping updates
+ * 					- the first update of a batch opens the hold-down window,
+ * 					everything that arrives until it closes and what is
+ * 					already queued when it closes is one batch, up to
+ * 					maxBatchUpdates, and the updates of one link collapse to
+ * 					the last one, a link that flaps back to where it was is
+ * 					no change at all
+ * 					- a batch is one change of the RouteService, one new graph
+ * 					and one snapshot swap, and its cache keeps the shortest
+ * 					path trees none of the links of the batch can alter, so
+ * 					the service is the one copy of the topology
+ * 					- the cached trees the batch did alter are computed again
+ * 					before the batch is done, the update latency runs up to
+ * 					then so it is the time until the tables are right
+ * 					- readers always see the topology of one whole batch
+ * 					- a batch that fails is reported and counted, the thread
+ * 					goes on with the next one
+ * 					- queue depth, batch sizes and update latency are also
+ * 					counted in Metrics when metrics are on
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LinkStateUpdates {
+
+	private static final class Update {
+		final int from;
+		final int to;
+		final double cost;		// -1 when the link went down
+		final long received;	// System.nanoTime() when it was read
+
+		Update(int from, int to, double cost, long received) {
+			this.from = from;
+			this.to = to;
+			this.cost = cost;
+			this.received = received;
+		}
+	}
+
+//	updates one batch takes at most, so a sender that never pauses still
+//	gets its changes published, can be set with -Ddijkstra.updates.batch.max=1000
+	public static int maxBatchUpdates = Integer.getInteger("dijkstra.updates.batch.max", 65536);
+
+//	put on the queue by stop, the batch thread ends when it takes it
+	private static final Update STOP = new Update(-1, -1, 0, 0);
+
+	private final BlockingQueue<Update> queue;
+	private final long holdDownNanos;
+	private final RouteService service;
+	private Thread batcher;
+	private ServerSocket server;
+	private volatile boolean stopped;
+
+//	counted by the readers
+	private final LongAdder received = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+//	counted by the batch thread, guarded by this
+	private long processed;			// updates of finished batches
+	private long batches;
+	private long failed;			// updates of batches that failed
+	private long superseded;		// replaced by a later update of the same link
+	private long unchanged;			// links that ended the batch at their old cost
+	private long linksChanged;
+	private long rowsRecomputed;	// connection tables the batches altered
+	private long maxBatch;
+	private final long batchSizes[] = new long[32];	// batches per power of two of updates
+	private final LatencyHistogram latency = new LatencyHistogram();	// update read to its tables computed
+	private final LatencyHistogram batchTime = new LatencyHistogram();	// batch start to its tables computed
+
+//	batches are applied to the service, holdDownMillis 0 takes whatever
+//	is waiting when a batch starts without waiting for more
+	public LinkStateUpdates(RouteService service, long holdDownMillis, int queueCapacity) {
+		if (holdDownMillis < 0) {
+			throw new IllegalArgumentException("Hold-down window must not be negative: " + holdDownMillis);
+		}
+		this.queue = new ArrayBlockingQueue<Update>(queueCapacity);
+		this.holdDownNanos = TimeUnit.MILLISECONDS.toNanos(holdDownMillis);
+		this.service = service;
+	}
+
+	public RouteService service() {
+		return service;
+	}
+
+//	starting the thread that takes batches off the queue
+	public synchronized void start() {
+		if (batcher != null) {
+			throw new IllegalStateException("Update pipeline already started");
+		}
+		batcher = new Thread(this::takeBatches, "link-state batches");
+		batcher.setDaemon(true);
+		batcher.start();
+	}
+
+//	stops listening and the batch thread, the updates queued before are
+//	still applied, the join is outside the lock, the batch thread takes it
+//	to count
+	public void stop() {
+		Thread stopping;
+		synchronized (this) {
+			if (server != null) {
+				try {
+					server.close();
+				} catch (IOException e) {
+					// nothing more to do with it
+				}
+				server = null;
+			}
+			stopped = true;
+			stopping = batcher;
+			batcher = null;
+		}
+		if (stopping != null) {
+			try {
+				queue.put(STOP);
+				stopping.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+//	queuing one update, router indexes from 0, waits while the queue is full
+	public void submit(int from, int to, double cost) throws InterruptedException {
+		if (stopped) {
+			throw new IllegalStateException("Update pipeline is stopped");
+		}
+		CsrGraph current = service.snapshot().graph();
+		checkRouter(current, from);
+		checkRouter(current, to);
+		if (from == to) {
+			throw new IllegalArgumentException("Router " + (from + 1) + " has no link to itself");
+		}
+//		refused here and not in the batch, where it would fail the other updates
+		RouteService.checkCost(cost);
+		queue.put(new Update(from, to, cost, System.nanoTime()));
+		received.increment();
+		int depth = queue.size();
+		maxDepth.accumulate(depth);
+		if (Metrics.ENABLED) {
+			Metrics.updateQueued(depth);
+		}
+	}
+
+//	queuing every update of a file, a bad line stops the file with its line number
+	public void feed(Path file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			feed(reader, true);
+		}
+	}
+
+//	reading updates on a port of the loopback address, one thread per
+//	connection, a bad line is counted and skipped so a sender is not cut off
+	public synchronized InetSocketAddress listen(int port) throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("Update pipeline already listening");
+		}
+		final ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		server = socket;
+		Thread acceptor = new Thread(() -> {
+			while (!socket.isClosed()) {
+				try {
+					final Socket connection = socket.accept();
+					Thread reader = new Thread(() -> {
+						try (Socket c = connection;
+								Reader in = new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8)) {
+							feed(new BufferedReader(in), false);
+						} catch (IOException | IllegalStateException e) {
+							System.err.println("Update connection closed: " + e.getMessage());
+						}
+					}, "link-state reader " + connection.getRemoteSocketAddress());
+					reader.setDaemon(true);
+					reader.start();
+				} catch (IOException e) {
+					// the socket was closed by stop
+				}
+			}
+		}, "link-state listener");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return (InetSocketAddress) socket.getLocalSocketAddress();
+	}
+
+	private void feed(BufferedReader reader, boolean strict) throws IOException {
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			int comment = line.indexOf('#');
+			if (comment >= 0) {
+				line = line.substring(0, comment);
+			}
+			String tokens[] = line.trim().split("\\s+");
+			if (tokens[0].isEmpty()) {
+				continue;
+			}
+			try {
+				String event = tokens[0];
+				if (event.equals("down") && tokens.length == 3) {
+					submit(Integer.parseInt(tokens[1]) - 1, Integer.parseInt(tokens[2]) - 1, -1);
+				} else if ((event.equals("up") || event.equals("cost")) && tokens.length == 4) {
+					submit(Integer.parseInt(tokens[1]) - 1, Integer.parseInt(tokens[2]) - 1,
+							Double.parseDouble(tokens[3]));
+				} else {
+					throw new IllegalArgumentException(
+							"expected \"down from to\", \"up from to cost\" or \"cost from to cost\"");
+				}
+			} catch (IllegalArgumentException e) {
+				rejected.increment();
+				if (strict) {
+					throw new IOException("Update on line " + lineNumber + ": " + e.getMessage());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Update reading interrupted", e);
+			}
+		}
+	}
+
+	private static void checkRouter(CsrGraph graph, int router) {
+		if (router < 0 || router >= graph.vertexCount()) {
+			throw new IllegalArgumentException("Router " + (router + 1) + " dose'nt exists");
+		}
+	}
+
+//	waits until every update queued so far is in the tables
+	public synchronized void awaitProcessed() throws InterruptedException {
+		while (processed < received.sum()) {
+			wait(100);
+		}
+	}
+
+//	batch thread, one batch per hold-down window, until stop queues STOP
+	private void takeBatches() {
+		LinkedHashMap<Long, Update> links = new LinkedHashMap<Long, Update>();
+		long times[] = new long[256];
+		boolean running = true;
+		while (running) {
+			Update update;
+			try {
+				update = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			long deadline = System.nanoTime() + holdDownNanos;
+			int count = 0;
+			int waiting = -1;		// updates still taken once the window closed
+			while (update != null) {
+				if (update == STOP) {
+					running = false;
+					break;
+				}
+				if (count == times.length) {
+					times = Arrays.copyOf(times, 2 * count);
+				}
+				times[count++] = update.received;
+//				the later update of a link replaces the earlier one
+				links.put(((long) update.from << 32) | update.to, update);
+//				a queue that never runs empty must not keep the window open,
+//				once it closes only the updates already waiting go in
+				if (waiting == -1 && System.nanoTime() >= deadline) {
+					waiting = queue.size();
+				}
+				if (waiting == 0 || count >= maxBatchUpdates) {
+					break;
+				}
+				update = queue.poll();
+				if (waiting > 0) {
+					waiting--;
+				} else if (update == null) {
+					long wait = deadline - System.nanoTime();
+					if (wait > 0) {
+						try {
+							update = queue.poll(wait, TimeUnit.NANOSECONDS);
+						} catch (InterruptedException e) {
+							running = false;
+						}
+					}
+				}
+			}
+			if (count > 0) {
+				apply(links.values().toArray(new Update[links.size()]), times, count);
+			}
+			links.clear();
+		}
+	}
+
+//	one change of the service for the whole batch, a failure is reported
+//	and the updates counted as processed so nobody waits on them
+	private void apply(Update updates[], long times[], int count) {
+		long start = System.nanoTime();
+		int size = updates.length;
+		int from[] = new int[size];
+		int to[] = new int[size];
+		double cost[] = new double[size];
+		for (int i = 0; i < size; i++) {
+			from[i] = updates[i].from;
+			to[i] = updates[i].to;
+			cost[i] = updates[i].cost;
+		}
+		int links = 0;
+		int rows = 0;
+		boolean ok = false;
+		try {
+			RouteService.LinkChanges changes = service.setLinkCosts(from, to, cost, size);
+			links = changes.links();
+			rows = changes.rowsRecomputed();
+			ok = true;
+		} catch (RuntimeException e) {
+			System.err.println("Update batch of " + count + " updates failed: " + e);
+		}
+		long computed = System.nanoTime();
+		if (Metrics.ENABLED) {
+			Metrics.updateBatch(start, times, count, links, rows);
+		}
+		synchronized (this) {
+			processed += count;
+			batches++;
+			if (ok) {
+				for (int i = 0; i < count; i++) {
+					latency.record(computed - times[i]);
+				}
+				batchTime.record(computed - start);
+				superseded += count - size;
+				unchanged += size - links;
+				linksChanged += links;
+				rowsRecomputed += rows;
+			} else {
+				failed += count;
+			}
+			maxBatch = Math.max(maxBatch, count);
+			batchSizes[63 - Long.numberOfLeadingZeros(count)]++;
+			notifyAll();
+		}
+	}
+
+	public long received() {
+		return received.sum();
+	}
+
+//	lines of a file or a connection that were not an update
+	public long rejected() {
+		return rejected.sum();
+	}
+
+	public long maxQueueDepth() {
+		return maxDepth.get();
+	}
+
+	public synchronized long processed() {
+		return processed;
+	}
+
+	public synchronized long batches() {
+		return batches;
+	}
+
+	public synchronized long failed() {
+		return failed;
+	}
+
+	public synchronized long superseded() {
+		return superseded;
+	}
+
+	public synchronized long unchanged() {
+		return unchanged;
+	}
+
+	public synchronized long linksChanged() {
+		return linksChanged;
+	}
+
+	public synchronized long rowsRecomputed() {
+		return rowsRecomputed;
+	}
+
+	public synchronized long maxBatch() {
+		return maxBatch;
+	}
+
+//	batches[p] is the number of batches of 2^p up to 2^(p+1) - 1 updates
+	public synchronized long[] batchSizes() {
+		return batchSizes.clone();
+	}
+
+//	time from an update being read to the connection tables it altered
+//	computed again on the topology with it
+	public LatencyHistogram latency() {
+		return latency;
+	}
+
+//	time from a batch being taken to its tables computed again
+	public LatencyHistogram batchTime() {
+		return batchTime;
+	}
+
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		long rejectedLines = rejected.sum();
+		sb.append(String.format(Locale.ROOT, "Updates %d received, %d rejected, queue depth %d now %d max%n",
+				received.sum(), rejectedLines, queue.size(), maxDepth.get()));
+		sb.append(String.format(Locale.ROOT,
+				"Batches %d, %.1f updates each, %d max, %d superseded, %d back to their old cost, %d failed%n",
+				batches, batches == 0 ? 0. : (double) processed / batches, maxBatch, superseded, unchanged, failed));
+		sb.append(String.format(Locale.ROOT, "Links changed %d, rows recomputed %d, topology version %d%n",
+				linksChanged, rowsRecomputed, service.snapshot().version()));
+		sb.append("Cache          ").append(service.cache()).append(System.lineSeparator());
+		sb.append("Batch sizes    ");
+		for (int p = 0; p < batchSizes.length; p++) {
+			if (batchSizes[p] > 0) {
+				sb.append(' ').append(1L << p).append(p == 0 ? "" : "-" + ((2L << p) - 1)).append(':')
+						.append(batchSizes[p]);
+			}
+		}
+		sb.append(System.lineSeparator());
+		sb.append("Update latency ").append(latency).append(System.lineSeparator());
+		sb.append("Batch time     ").append(batchTime).append(System.lineSeparator());
+		return sb.toString();
+	}
+}
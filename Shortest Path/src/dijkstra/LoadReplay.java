@@ -0,0 +1,357 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the replay load driver
+ * 					- an event file is a timed stream of path queries, router
+ * 					removals and link cost changes, one event per line with
+ * 					the time in milliseconds from the start, routers from 1
+ * 					  "12.500 query 3 6"
+ * 					  "40.000 remove 4"
+ * 					  "41.250 cost 1 2 7"
+ * 					  '#' starts a comment, events must be in time order
+ * 					- generate writes a seeded stream with Poisson arrivals of
+ * 					each kind at the asked rates, the same seed gives the same file
+ * 					- run plays the stream into the route service at its times,
+ * 					queries on many threads and changes one at a time, the way
+ * 					the service is used in production
+ * 					- latency is measured from the time the event was due, not
+ * 					from when it started, so a slow service can not hide its
+ * 					queueing by slowing down the load (open loop)
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadReplay {
+	static final byte QUERY = 0;
+	static final byte REMOVE = 1;
+	static final byte COST = 2;
+
+	private final long time[];		// nanoseconds from the start of the stream
+	private final byte kind[];
+	private final int first[];		// source, removed router or link start
+	private final int second[];		// destination or link end
+	private final int cost[];		// new cost of a cost change, -1 takes the link out
+
+	private LoadReplay(long time[], byte kind[], int first[], int second[], int cost[]) {
+		this.time = time;
+		this.kind = kind;
+		this.first = first;
+		this.second = second;
+		this.cost = cost;
+	}
+
+	public int eventCount() {
+		return time.length;
+	}
+
+//	length of the stream in nanoseconds
+	public long durationNanos() {
+		return time.length == 0 ? 0 : time[time.length - 1];
+	}
+
+//	reading an event file, routers are checked against the topology size
+	public static LoadReplay load(Path file, int routerCount) throws IOException {
+		int size = 1024;
+		long time[] = new long[size];
+		byte kind[] = new byte[size];
+		int first[] = new int[size];
+		int second[] = new int[size];
+		int cost[] = new int[size];
+		int count = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				int comment = line.indexOf('#');
+				if (comment >= 0) {
+					line = line.substring(0, comment);
+				}
+				String tokens[] = line.trim().split("\\s+");
+				if (tokens[0].isEmpty()) {
+					continue;
+				}
+				if (count == size) {
+					size *= 2;
+					time = Arrays.copyOf(time, size);
+					kind = Arrays.copyOf(kind, size);
+					first = Arrays.copyOf(first, size);
+					second = Arrays.copyOf(second, size);
+					cost = Arrays.copyOf(cost, size);
+				}
+				double millis;
+				try {
+					millis = Double.parseDouble(tokens[0]);
+				} catch (NumberFormatException e) {
+					throw new IOException("Event on line " + lineNumber + " has " + tokens[0] + " for a time");
+				}
+				time[count] = (long) (millis * 1e6);
+				if (millis < 0 || count > 0 && time[count] < time[count - 1]) {
+					throw new IOException("Event on line " + lineNumber + " is out of time order");
+				}
+				String event = tokens.length > 1 ? tokens[1] : "";
+				if (event.equals("query") && tokens.length == 4) {
+					kind[count] = QUERY;
+					first[count] = router(tokens[2], lineNumber, routerCount);
+					second[count] = router(tokens[3], lineNumber, routerCount);
+				} else if (event.equals("remove") && tokens.length == 3) {
+					kind[count] = REMOVE;
+					first[count] = router(tokens[2], lineNumber, routerCount);
+				} else if (event.equals("cost") && tokens.length == 5) {
+					kind[count] = COST;
+					first[count] = router(tokens[2], lineNumber, routerCount);
+					second[count] = router(tokens[3], lineNumber, routerCount);
+					cost[count] = number(tokens[4], lineNumber);
+					if (cost[count] == 0 || cost[count] < -1) {
+						throw new IOException("Link cost on line " + lineNumber + " must be positive or -1");
+					}
+				} else {
+					throw new IOException("Event on line " + lineNumber
+							+ " needs \"ms query src dst\", \"ms remove router\" or \"ms cost from to cost\"");
+				}
+				count++;
+			}
+		}
+		return new LoadReplay(Arrays.copyOf(time, count), Arrays.copyOf(kind, count), Arrays.copyOf(first, count),
+				Arrays.copyOf(second, count), Arrays.copyOf(cost, count));
+	}
+
+	private static int router(String token, int lineNumber, int routerCount) throws IOException {
+		int router = number(token, lineNumber);
+		if (router < 1 || router > routerCount) {
+			throw new IOException("Router " + router + " on line " + lineNumber + " dose'nt exists");
+		}
+		return router - 1;
+	}
+
+	private static int number(String token, int lineNumber) throws IOException {
+		try {
+			return Integer.parseInt(token);
+		} catch (NumberFormatException e) {
+			throw new IOException("Event on line " + lineNumber + " has " + token + " for a number");
+		}
+	}
+
+//	writing a seeded event stream of the given length, rates are events per second
+//	queries pick both ends at random, removals pick routers still in the network
+//	and cost changes pick a link between two of them, the new cost is drawn
+//	from the cost range of the topology
+	public static void generate(CsrGraph graph, Path file, long seed, double seconds, double queryRate,
+			double removalRate, double costRate) throws IOException {
+		if (!(seconds > 0) || queryRate < 0 || removalRate < 0 || costRate < 0) {
+			throw new IllegalArgumentException("Stream length must be positive and rates must not be negative");
+		}
+		int n = graph.vertexCount();
+		Random random = new Random(seed);
+		int minCost = Integer.MAX_VALUE;
+		int maxCost = 1;
+		for (int e = 0; e < graph.edgeCount(); e++) {
+			minCost = Math.min(minCost, (int) Math.ceil(graph.weight(e)));
+			maxCost = Math.max(maxCost, (int) Math.ceil(graph.weight(e)));
+		}
+		minCost = Math.min(minCost, maxCost);
+		boolean removed[] = new boolean[n];
+		int left = n;
+		double rates[] = { queryRate, removalRate, costRate };
+		double next[] = new double[3];
+		for (int k = 0; k < 3; k++) {
+			next[k] = arrival(random, rates[k], 0.);
+		}
+		double end = seconds * 1000.;
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("# " + n + " routers, " + seconds + " s, " + queryRate + " queries/s, " + removalRate
+					+ " removals/s, " + costRate + " cost changes/s, seed " + seed);
+			out.newLine();
+			while (true) {
+				int k = 0;
+				for (int i = 1; i < 3; i++) {
+					if (next[i] < next[k]) {
+						k = i;
+					}
+				}
+				double at = next[k];
+				if (at > end) {
+					break;
+				}
+				next[k] = arrival(random, rates[k], at);
+				String event = null;
+				if (k == QUERY) {
+					event = "query " + (random.nextInt(n) + 1) + " " + (random.nextInt(n) + 1);
+				} else if (k == REMOVE && left > 2) {
+					int router;
+					do {
+						router = random.nextInt(n);
+					} while (removed[router]);
+					removed[router] = true;
+					left--;
+					event = "remove " + (router + 1);
+				} else if (k == COST && graph.edgeCount() > 0) {
+//					a few tries for a link with both ends still in the network
+					for (int attempt = 0; attempt < 32 && event == null; attempt++) {
+						int e = random.nextInt(graph.edgeCount());
+						int u = origin(graph, e);
+						int v = graph.target(e);
+						if (!removed[u] && !removed[v]) {
+							event = "cost " + (u + 1) + " " + (v + 1) + " "
+									+ (minCost + random.nextInt(maxCost - minCost + 1));
+						}
+					}
+				}
+				if (event != null) {
+					out.write(String.format(Locale.ROOT, "%.3f ", at) + event);
+					out.newLine();
+				}
+			}
+		}
+	}
+
+//	time of the next event of a Poisson stream in milliseconds
+	private static double arrival(Random random, double rate, double now) {
+		if (rate == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return now - Math.log(1. - random.nextDouble()) * 1000. / rate;
+	}
+
+//	router the link starts at, found from the offsets
+	private static int origin(CsrGraph graph, int e) {
+		int low = 0;
+		int high = graph.vertexCount() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (graph.begin(mid) <= e) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+//	playing the stream into the service, speed 2 plays it twice as fast
+//	and 0 as fast as it can be sent, queries run on the given executor
+	public Report run(RouteService service, double speed, ExecutorService queries) {
+		if (speed < 0) {
+			throw new IllegalArgumentException("Replay speed must not be negative: " + speed);
+		}
+		Report report = new Report(speed);
+		ExecutorService changes = Executors.newSingleThreadExecutor();
+		CountDownLatch done = new CountDownLatch(time.length);
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < time.length; i++) {
+				long due = speed == 0 ? System.nanoTime() : start + (long) (time[i] / speed);
+				for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+					LockSupport.parkNanos(wait);
+				}
+				final int event = i;
+				if (kind[i] == QUERY) {
+					queries.execute(() -> {
+						long begin = System.nanoTime();
+						try {
+							service.snapshot().route(first[event], second[event]);
+						} finally {
+							long finished = System.nanoTime();
+							report.queryLatency.record(finished - due);
+							report.queryService.record(finished - begin);
+							done.countDown();
+						}
+					});
+				} else {
+					changes.execute(() -> {
+						long begin = System.nanoTime();
+						try {
+							if (kind[event] == REMOVE) {
+								service.removeRouter(first[event]);
+								report.removals.increment();
+							} else {
+								service.setLinkCost(first[event], second[event], cost[event]);
+								report.costChanges.increment();
+							}
+						} catch (IllegalArgumentException e) {
+							report.rejected.increment();
+						} finally {
+							long finished = System.nanoTime();
+							report.changeLatency.record(finished - due);
+							report.changeService.record(finished - begin);
+							done.countDown();
+						}
+					});
+				}
+			}
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Replay interrupted", e);
+		} finally {
+			changes.shutdown();
+		}
+		report.wallNanos = System.nanoTime() - start;
+		report.streamNanos = durationNanos();
+		return report;
+	}
+
+//	what a replay measured, latency from the time every event was due
+	public static class Report {
+		public final double speed;
+		public final LatencyHistogram queryLatency = new LatencyHistogram();
+		public final LatencyHistogram queryService = new LatencyHistogram();
+		public final LatencyHistogram changeLatency = new LatencyHistogram();
+		public final LatencyHistogram changeService = new LatencyHistogram();
+		final LongAdder removals = new LongAdder();
+		final LongAdder costChanges = new LongAdder();
+		final LongAdder rejected = new LongAdder();
+		long wallNanos;
+		long streamNanos;
+
+		Report(double speed) {
+			this.speed = speed;
+		}
+
+		public long wallNanos() {
+			return wallNanos;
+		}
+
+		public double queriesPerSecond() {
+			return queryLatency.count() * 1e9 / Math.max(1, wallNanos);
+		}
+
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format(Locale.ROOT, "Replayed %d queries, %d removals and %d cost changes in %.3f s"
+					+ " (stream %.3f s, speed %s)%n", queryLatency.count(), removals.sum(), costChanges.sum(),
+					wallNanos / 1e9, streamNanos / 1e9, speed == 0 ? "unpaced" : Double.toString(speed)));
+			if (rejected.sum() > 0) {
+				sb.append(rejected.sum()).append(" changes were rejected by the service").append(System.lineSeparator());
+			}
+			sb.append(String.format(Locale.ROOT, "Throughput %.1f queries/s, %.1f changes/s%n", queriesPerSecond(),
+					changeLatency.count() * 1e9 / Math.max(1, wallNanos)));
+			sb.append("Query latency   ").append(queryLatency).append(System.lineSeparator());
+			sb.append("Query service   ").append(queryService).append(System.lineSeparator());
+			sb.append("Change latency  ").append(changeLatency).append(System.lineSeparator());
+			sb.append("Change service  ").append(changeService).append(System.lineSeparator());
+			sb.append("Query latency histogram").append(System.lineSeparator()).append(queryLatency.buckets());
+			if (changeLatency.count() > 0) {
+				sb.append("Change latency histogram").append(System.lineSeparator()).append(changeLatency.buckets());
+			}
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,421 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the counters and timers of the simulator
+ * 					- turned on with -Ddijkstra.metrics=true, ENABLED is a
+ * 					constant so the JIT drops every "if (Metrics.ENABLED)"
+ * 					block when it is off and the hot loops cost nothing
+ * 					- the shortest path loop counts in local variables and
+ * 					adds them once per run
+ * 					- the link-state update pipeline adds its queue depth,
+ * 					batch sizes and the time from an update being read to
+ * 					the connection tables it altered being computed again
+ * 					- exposed through JMX (MetricsMXBean), as JFR events
+ * 					when the JVM has Flight Recorder, and printed every
+ * 					-Ddijkstra.metrics.dump=<seconds> to standard error
+ * 					- the project builds for Java 8 which has no JFR API,
+ * 					so the event types are made with jdk.jfr.EventFactory
+ * 					looked up by name
+ *
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public final class Metrics implements MetricsMXBean {
+
+	public static final boolean ENABLED = Boolean.getBoolean("dijkstra.metrics");
+
+	private static final Metrics INSTANCE = new Metrics();
+
+	private final LongAdder shortestPathRuns = new LongAdder();
+	private final LongAdder routersSettled = new LongAdder();
+	private final LongAdder linksRelaxed = new LongAdder();
+	private final LongAdder heapInserts = new LongAdder();
+	private final LongAdder decreaseKeys = new LongAdder();
+	private final LongAdder shortestPathNanos = new LongAdder();
+	private final LongAccumulator maxShortestPathNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder pathReconstructions = new LongAdder();
+	private final LongAdder pathReconstructionNanos = new LongAdder();
+	private final LongAdder topologyLoads = new LongAdder();
+	private final LongAdder topologyLoadNanos = new LongAdder();
+	private final LongAdder graphBuilds = new LongAdder();
+	private final LongAdder graphBuildNanos = new LongAdder();
+	private final LongAdder updatesQueued = new LongAdder();
+	private final LongAdder updateQueueDepth = new LongAdder();
+	private final LongAccumulator maxUpdateQueueDepth = new LongAccumulator(Math::max, 0);
+	private final LongAdder updateBatches = new LongAdder();
+	private final LongAdder batchedUpdates = new LongAdder();
+	private final LongAccumulator maxUpdateBatch = new LongAccumulator(Math::max, 0);
+	private final LongAdder linksChanged = new LongAdder();
+	private final LongAdder rowsRecomputed = new LongAdder();
+	private final LongAdder updateBatchNanos = new LongAdder();
+	private final LongAdder updateLatencyNanos = new LongAdder();
+	private final LongAccumulator maxUpdateLatencyNanos = new LongAccumulator(Math::max, 0);
+
+//	JFR event types, null when there is no Flight Recorder
+	private static final FlightEvent SHORTEST_PATH_EVENT;
+	private static final FlightEvent LOAD_EVENT;
+	private static final FlightEvent BUILD_EVENT;
+
+	static {
+		FlightEvent shortestPath = null;
+		FlightEvent load = null;
+		FlightEvent build = null;
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+						new ObjectName("dijkstra:type=Metrics"));
+			} catch (JMException e) {
+				System.err.println("Metrics not registered with JMX: " + e);
+			}
+			shortestPath = FlightEvent.create("dijkstra.ShortestPath", "Shortest Path Run", "source", "settled",
+					"relaxed", "inserts", "decreaseKeys");
+			load = FlightEvent.create("dijkstra.TopologyLoad", "Topology Load", "routers");
+			build = FlightEvent.create("dijkstra.GraphBuild", "Graph Build", "routers", "links");
+			long seconds = Long.getLong("dijkstra.metrics.dump", 0);
+			if (seconds > 0) {
+				ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(r -> {
+					Thread thread = new Thread(r, "metrics-dump");
+					thread.setDaemon(true);
+					return thread;
+				});
+				dump.scheduleAtFixedRate(() -> System.err.println(summary()), seconds, seconds, TimeUnit.SECONDS);
+			}
+		}
+		SHORTEST_PATH_EVENT = shortestPath;
+		LOAD_EVENT = load;
+		BUILD_EVENT = build;
+	}
+
+	private Metrics() {
+	}
+
+	public static Metrics get() {
+		return INSTANCE;
+	}
+
+//	the start of one timed run, made by the start methods below
+//	event is the begun JFR event, null when no recording wants it
+	static final class Timer {
+		final long startNanos;
+		final Object event;
+
+		private Timer(FlightEvent type) {
+			this.event = type == null ? null : type.begin();
+			this.startNanos = System.nanoTime();
+		}
+	}
+
+	static Timer startShortestPath() {
+		return new Timer(SHORTEST_PATH_EVENT);
+	}
+
+	static Timer startLoad() {
+		return new Timer(LOAD_EVENT);
+	}
+
+	static Timer startBuild() {
+		return new Timer(BUILD_EVENT);
+	}
+
+//	one shortest path run
+//	source is the router index, -1 when the engine does not know it
+	static void shortestPath(Timer timer, int source, long settled, long relaxed, long inserts, long decreases) {
+		long nanos = System.nanoTime() - timer.startNanos;
+		Metrics m = INSTANCE;
+		m.shortestPathRuns.increment();
+		m.routersSettled.add(settled);
+		m.linksRelaxed.add(relaxed);
+		m.heapInserts.add(inserts);
+		m.decreaseKeys.add(decreases);
+		m.shortestPathNanos.add(nanos);
+		m.maxShortestPathNanos.accumulate(nanos);
+		if (timer.event != null) {
+			SHORTEST_PATH_EVENT.commit(timer.event, source + 1, settled, relaxed, inserts, decreases);
+		}
+	}
+
+//	one path walked back from a tree
+	static void pathReconstructed(long startNanos) {
+		INSTANCE.pathReconstructions.increment();
+		INSTANCE.pathReconstructionNanos.add(System.nanoTime() - startNanos);
+	}
+
+	static void topologyLoaded(Timer timer, int routers) {
+		INSTANCE.topologyLoads.increment();
+		INSTANCE.topologyLoadNanos.add(System.nanoTime() - timer.startNanos);
+		if (timer.event != null) {
+			LOAD_EVENT.commit(timer.event, routers);
+		}
+	}
+
+	static void graphBuilt(Timer timer, int routers, int links) {
+		INSTANCE.graphBuilds.increment();
+		INSTANCE.graphBuildNanos.add(System.nanoTime() - timer.startNanos);
+		if (timer.event != null) {
+			BUILD_EVENT.commit(timer.event, routers, links);
+		}
+	}
+
+//	one link-state update put on a queue that now holds depth updates
+	static void updateQueued(int depth) {
+		INSTANCE.updatesQueued.increment();
+		INSTANCE.updateQueueDepth.increment();
+		INSTANCE.maxUpdateQueueDepth.accumulate(depth);
+	}
+
+//	a batch of updates taken off the queue, published and its altered
+//	connection tables computed again, received are the System.nanoTime()
+//	each update was read at
+	static void updateBatch(long startNanos, long received[], int updates, int links, int rows) {
+		long published = System.nanoTime();
+		Metrics m = INSTANCE;
+		m.updateQueueDepth.add(-updates);
+		m.updateBatches.increment();
+		m.batchedUpdates.add(updates);
+		m.maxUpdateBatch.accumulate(updates);
+		m.linksChanged.add(links);
+		m.rowsRecomputed.add(rows);
+		m.updateBatchNanos.add(published - startNanos);
+		for (int i = 0; i < updates; i++) {
+			m.updateLatencyNanos.add(published - received[i]);
+			m.maxUpdateLatencyNanos.accumulate(published - received[i]);
+		}
+	}
+
+	public long getShortestPathRuns() {
+		return shortestPathRuns.sum();
+	}
+
+	public long getRoutersSettled() {
+		return routersSettled.sum();
+	}
+
+	public long getLinksRelaxed() {
+		return linksRelaxed.sum();
+	}
+
+	public long getHeapInserts() {
+		return heapInserts.sum();
+	}
+
+	public long getDecreaseKeys() {
+		return decreaseKeys.sum();
+	}
+
+	public long getShortestPathNanos() {
+		return shortestPathNanos.sum();
+	}
+
+	public long getMaxShortestPathNanos() {
+		return maxShortestPathNanos.get();
+	}
+
+	public long getPathReconstructions() {
+		return pathReconstructions.sum();
+	}
+
+	public long getPathReconstructionNanos() {
+		return pathReconstructionNanos.sum();
+	}
+
+	public long getTopologyLoads() {
+		return topologyLoads.sum();
+	}
+
+	public long getTopologyLoadNanos() {
+		return topologyLoadNanos.sum();
+	}
+
+	public long getGraphBuilds() {
+		return graphBuilds.sum();
+	}
+
+	public long getGraphBuildNanos() {
+		return graphBuildNanos.sum();
+	}
+
+	public long getUpdatesQueued() {
+		return updatesQueued.sum();
+	}
+
+	public long getUpdateQueueDepth() {
+		return updateQueueDepth.sum();
+	}
+
+	public long getMaxUpdateQueueDepth() {
+		return maxUpdateQueueDepth.get();
+	}
+
+	public long getUpdateBatches() {
+		return updateBatches.sum();
+	}
+
+	public long getBatchedUpdates() {
+		return batchedUpdates.sum();
+	}
+
+	public long getMaxUpdateBatch() {
+		return maxUpdateBatch.get();
+	}
+
+	public long getLinksChanged() {
+		return linksChanged.sum();
+	}
+
+	public long getRowsRecomputed() {
+		return rowsRecomputed.sum();
+	}
+
+	public long getUpdateBatchNanos() {
+		return updateBatchNanos.sum();
+	}
+
+	public long getUpdateLatencyNanos() {
+		return updateLatencyNanos.sum();
+	}
+
+	public long getMaxUpdateLatencyNanos() {
+		return maxUpdateLatencyNanos.get();
+	}
+
+//	the queue depth is left alone, the updates in the queues are still there
+	public void reset() {
+		for (LongAdder adder : Arrays.asList(shortestPathRuns, routersSettled, linksRelaxed, heapInserts, decreaseKeys,
+				shortestPathNanos, pathReconstructions, pathReconstructionNanos, topologyLoads, topologyLoadNanos,
+				graphBuilds, graphBuildNanos, updatesQueued, updateBatches, batchedUpdates, linksChanged,
+				rowsRecomputed, updateBatchNanos, updateLatencyNanos)) {
+			adder.reset();
+		}
+		for (LongAccumulator max : Arrays.asList(maxShortestPathNanos, maxUpdateQueueDepth, maxUpdateBatch,
+				maxUpdateLatencyNanos)) {
+			max.reset();
+		}
+	}
+
+//	one line of all the counters, times in milliseconds
+	public static String summary() {
+		Metrics m = INSTANCE;
+		long runs = m.getShortestPathRuns();
+		return "spf runs " + runs + " settled " + m.getRoutersSettled() + " relaxed " + m.getLinksRelaxed()
+				+ " inserts " + m.getHeapInserts() + " decreaseKeys " + m.getDecreaseKeys() + " spf ms "
+				+ m.getShortestPathNanos() / 1e6 + " (avg " + (runs == 0 ? 0 : m.getShortestPathNanos() / runs / 1e6)
+				+ " max " + m.getMaxShortestPathNanos() / 1e6 + ") paths " + m.getPathReconstructions() + " path ms "
+				+ m.getPathReconstructionNanos() / 1e6 + " loads " + m.getTopologyLoads() + " load ms "
+				+ m.getTopologyLoadNanos() / 1e6 + " builds " + m.getGraphBuilds() + " build ms "
+				+ m.getGraphBuildNanos() / 1e6 + updates(m);
+	}
+
+//	the update pipeline part of the summary, empty when it never ran
+	private static String updates(Metrics m) {
+		long queued = m.getUpdatesQueued();
+		long batched = m.getBatchedUpdates();
+		if (queued == 0 && batched == 0) {
+			return "";
+		}
+		return " updates " + queued + " queue " + m.getUpdateQueueDepth() + " (max " + m.getMaxUpdateQueueDepth()
+				+ ") batches " + m.getUpdateBatches() + " (max " + m.getMaxUpdateBatch() + ") links changed "
+				+ m.getLinksChanged() + " rows recomputed " + m.getRowsRecomputed() + " batch ms "
+				+ m.getUpdateBatchNanos() / 1e6 + " update latency ms (avg "
+				+ (batched == 0 ? 0 : m.getUpdateLatencyNanos() / batched / 1e6) + " max "
+				+ m.getMaxUpdateLatencyNanos() / 1e6 + ")";
+	}
+
+//	a JFR event type made at run time with long fields
+//	the duration is the time between begin and end of the event
+	private static final class FlightEvent {
+		private final Object factory;
+		private final Object type;
+		private final Method isEnabled;
+		private final Method newEvent;
+		private final Method begin;
+		private final Method end;
+		private final Method shouldCommit;
+		private final Method set;
+		private final Method commit;
+
+		private FlightEvent(Object factory, Class<?> factoryClass) throws ReflectiveOperationException {
+			this.factory = factory;
+			this.type = factoryClass.getMethod("getEventType").invoke(factory);
+			this.isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+			this.newEvent = factoryClass.getMethod("newEvent");
+			Class<?> event = Class.forName("jdk.jfr.Event");
+			this.begin = event.getMethod("begin");
+			this.end = event.getMethod("end");
+			this.shouldCommit = event.getMethod("shouldCommit");
+			this.set = event.getMethod("set", int.class, Object.class);
+			this.commit = event.getMethod("commit");
+		}
+
+//		null when the JVM has no Flight Recorder
+		static FlightEvent create(String name, String label, String... fields) {
+			try {
+				Class<?> element = Class.forName("jdk.jfr.AnnotationElement");
+				Class<?> descriptor = Class.forName("jdk.jfr.ValueDescriptor");
+				Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+				Constructor<?> newElement = element.getConstructor(Class.class, Object.class);
+				Constructor<?> newDescriptor = descriptor.getConstructor(Class.class, String.class, List.class);
+				List<Object> annotations = new ArrayList<Object>();
+				annotations.add(newElement.newInstance(Class.forName("jdk.jfr.Name"), name));
+				annotations.add(newElement.newInstance(Class.forName("jdk.jfr.Label"), label));
+				annotations.add(newElement.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "Dijkstra" }));
+				List<Object> values = new ArrayList<Object>();
+				for (String field : fields) {
+					values.add(newDescriptor.newInstance(long.class, field, Collections.emptyList()));
+				}
+				Object factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations,
+						values);
+				return new FlightEvent(factory, factoryClass);
+			} catch (ReflectiveOperationException | LinkageError e) {
+				return null;
+			}
+		}
+
+//		a begun event, null when no recording has the type enabled
+//		so a run without a recording costs one call and no event
+		Object begin() {
+			try {
+				if (!(Boolean) isEnabled.invoke(type)) {
+					return null;
+				}
+				Object event = newEvent.invoke(factory);
+				begin.invoke(event);
+				return event;
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("JFR event " + e, e);
+			}
+		}
+
+		void commit(Object event, long... fields) {
+			try {
+				end.invoke(event);
+				if (!(Boolean) shouldCommit.invoke(event)) {
+					return;
+				}
+				for (int i = 0; i < fields.length; i++) {
+					set.invoke(event, i, fields[i]);
+				}
+				commit.invoke(event);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("JFR event " + e, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the JMX view of the simulator metrics,
+ * 					registered as dijkstra:type=Metrics when metrics are on
+ * 					- times are in nanoseconds
+ * 					- the Update counters come from LinkStateUpdates
+ *
+ */
+
+public interface MetricsMXBean {
+
+	long getShortestPathRuns();
+
+	long getRoutersSettled();
+
+	long getLinksRelaxed();
+
+	long getHeapInserts();
+
+	long getDecreaseKeys();
+
+	long getShortestPathNanos();
+
+	long getMaxShortestPathNanos();
+
+	long getPathReconstructions();
+
+	long getPathReconstructionNanos();
+
+	long getTopologyLoads();
+
+	long getTopologyLoadNanos();
+
+	long getGraphBuilds();
+
+	long getGraphBuildNanos();
+
+	long getUpdatesQueued();
+
+	long getUpdateQueueDepth();
+
+	long getMaxUpdateQueueDepth();
+
+	long getUpdateBatches();
+
+	long getBatchedUpdates();
+
+	long getMaxUpdateBatch();
+
+	long getLinksChanged();
+
+	long getRowsRecomputed();
+
+	long getUpdateBatchNanos();
+
+	long getUpdateLatencyNanos();
+
+	long getMaxUpdateLatencyNanos();
+
+	void reset();
+}
@@ -0,0 +1,58 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the contract of an all pairs next hop table,
+ * 					the connection tables of every router in one structure
+ * 					- routers are indexes from 0, -1 means no next hop, for
+ * 					the router itself and for unreachable routers
+ * 					- a path is found the way packets are forwarded, from
+ * 					each router to the next hop of its own table, the cost is
+ * 					the shortest one but on equal cost paths the routers in
+ * 					between may differ from ShortestPathTree.pathTo
+ *
+ */
+
+public interface NextHopTable {
+
+	int routerCount();
+
+//	router after source on the way to target
+	int nextHop(int source, int target);
+
+//	bytes the table takes, most of it outside the Java heap
+	long bytes();
+
+//	connection table of one router
+	default int[] row(int source) {
+		int n = routerCount();
+		int row[] = new int[n];
+		for (int t = 0; t < n; t++) {
+			row[t] = nextHop(source, t);
+		}
+		return row;
+	}
+
+//	routers from source to target following the next hops
+//	an unreachable target gives a path holding only the target
+	default int[] path(int source, int target) {
+		int length = 1;
+		for (int v = source; v != target; length++) {
+			v = nextHop(v, target);
+			if (v == -1) {
+				return new int[] { target };
+			}
+			if (length > routerCount()) {
+				throw new IllegalStateException("Next hops from " + (source + 1) + " to " + (target + 1) + " loop");
+			}
+		}
+		int path[] = new int[length];
+		path[0] = source;
+		for (int i = 1; i < length; i++) {
+			path[i] = nextHop(path[i - 1], target);
+		}
+		return path;
+	}
+}
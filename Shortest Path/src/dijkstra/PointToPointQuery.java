@@ -0,0 +1,260 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the point to point shortest path query
+ * 					- route stops as soon as the destination is settled
+ * 					and gives the same path as computePaths
+ * 					- bidirectionalRoute searches forward from the source and
+ * 					backward from the destination over the reverse links and
+ * 					stops when the two searches can not find anything shorter,
+ * 					the cost is the same, on equal cost paths the routers
+ * 					in between may differ
+ * 					- arrays are reused between queries and only the routers a
+ * 					query touched are reset, so one object per thread
+ *
+ */
+
+import java.util.Arrays;
+
+public class PointToPointQuery {
+	private final CsrGraph graph;
+	private final ReverseGraph reverse;		// null when only route is used
+	private final IndexedHeap forwardQueue;
+	private final IndexedHeap backwardQueue;
+	private final double forwardDistance[];
+	private final double backwardDistance[];
+	private final int forwardPrevious[];
+	private final int backwardNext[];		// next router toward the target
+//	routers touched by the query, reset before the next one
+	private final int touched[];
+	private final boolean isTouched[];
+	private int touchedCount;
+
+	public PointToPointQuery(CsrGraph graph) {
+		this(graph, null);
+	}
+
+	public PointToPointQuery(CsrGraph graph, ReverseGraph reverse) {
+		int n = graph.vertexCount();
+		this.graph = graph;
+		this.reverse = reverse;
+		forwardQueue = Dijkstras.createQueue(graph);
+		forwardDistance = new double[n];
+		forwardPrevious = new int[n];
+		touched = new int[n];
+		isTouched = new boolean[n];
+		Arrays.fill(forwardDistance, Double.POSITIVE_INFINITY);
+		Arrays.fill(forwardPrevious, -1);
+		if (reverse != null) {
+			backwardQueue = Dijkstras.createQueue(reverse.graph);
+			backwardDistance = new double[n];
+			backwardNext = new int[n];
+			Arrays.fill(backwardDistance, Double.POSITIVE_INFINITY);
+			Arrays.fill(backwardNext, -1);
+		} else {
+			backwardQueue = null;
+			backwardDistance = null;
+			backwardNext = null;
+		}
+	}
+
+	public CsrGraph graph() {
+		return graph;
+	}
+
+//	Dijkstra from the source that stops when the target is settled
+	public Route route(int source, int target) {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long relaxed = 0;
+		long inserts = 1;
+		long decreases = 0;
+		reset();
+		int settled = 0;
+		touch(source);
+		forwardDistance[source] = 0.;
+		forwardQueue.insert(source, 0.);
+		while (!forwardQueue.isEmpty()) {
+			int u = forwardQueue.poll();
+			settled++;
+			if (u == target) {
+				break;
+			}
+			double distanceU = forwardDistance[u];
+			if (Metrics.ENABLED) {
+				relaxed += graph.degree(u);
+			}
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				int v = graph.target(e);
+				double distanceThroughU = distanceU + graph.weight(e);
+				if (distanceThroughU < forwardDistance[v]) {
+					if (Metrics.ENABLED) {
+						if (forwardQueue.contains(v)) {
+							decreases++;
+						} else {
+							inserts++;
+						}
+					}
+					touch(v);
+					forwardDistance[v] = distanceThroughU;
+					forwardPrevious[v] = u;
+					forwardQueue.insertOrDecrease(v, distanceThroughU);
+				} else if (distanceThroughU == forwardDistance[v] && u < forwardPrevious[v]) {
+					forwardPrevious[v] = u;
+				}
+			}
+		}
+		forwardQueue.clear();
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settled, relaxed, inserts, decreases);
+		}
+		return new Route(forwardPath(target), forwardDistance[target], settled);
+	}
+
+//	searching from both ends at once, the side with the smaller
+//	queue is advanced, done when the smallest keys of the two
+//	queues add up to no less than the best path seen so far
+	public Route bidirectionalRoute(int source, int target) {
+		if (reverse == null) {
+			throw new IllegalStateException("Bidirectional query needs the reverse graph");
+		}
+		reset();
+		if (source == target) {
+			return new Route(new int[] { source }, 0., 0);
+		}
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startShortestPath() : null;
+		long relaxed = 0;
+		long inserts = 2;
+		long decreases = 0;
+		CsrGraph backward = reverse.graph;
+		int settled = 0;
+		double best = Double.POSITIVE_INFINITY;
+		int meet = -1;
+		touch(source);
+		touch(target);
+		forwardDistance[source] = 0.;
+		backwardDistance[target] = 0.;
+		forwardQueue.insert(source, 0.);
+		backwardQueue.insert(target, 0.);
+		while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+			double top = forwardQueue.keyOf(forwardQueue.peek()) + backwardQueue.keyOf(backwardQueue.peek());
+			if (top >= best) {
+				break;
+			}
+			settled++;
+			if (forwardQueue.size() <= backwardQueue.size()) {
+				int u = forwardQueue.poll();
+				double distanceU = forwardDistance[u];
+				if (Metrics.ENABLED) {
+					relaxed += graph.degree(u);
+				}
+				for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+					int v = graph.target(e);
+					double distanceThroughU = distanceU + graph.weight(e);
+					if (distanceThroughU < forwardDistance[v]) {
+						if (Metrics.ENABLED) {
+							if (forwardQueue.contains(v)) {
+								decreases++;
+							} else {
+								inserts++;
+							}
+						}
+						touch(v);
+						forwardDistance[v] = distanceThroughU;
+						forwardPrevious[v] = u;
+						forwardQueue.insertOrDecrease(v, distanceThroughU);
+					}
+					double through = forwardDistance[v] + backwardDistance[v];
+					if (through < best) {
+						best = through;
+						meet = v;
+					}
+				}
+			} else {
+				int u = backwardQueue.poll();
+				double distanceU = backwardDistance[u];
+				if (Metrics.ENABLED) {
+					relaxed += backward.degree(u);
+				}
+				for (int e = backward.begin(u), end = backward.end(u); e < end; e++) {
+					int v = backward.target(e);
+					double distanceThroughU = distanceU + backward.weight(e);
+					if (distanceThroughU < backwardDistance[v]) {
+						if (Metrics.ENABLED) {
+							if (backwardQueue.contains(v)) {
+								decreases++;
+							} else {
+								inserts++;
+							}
+						}
+						touch(v);
+						backwardDistance[v] = distanceThroughU;
+						backwardNext[v] = u;
+						backwardQueue.insertOrDecrease(v, distanceThroughU);
+					}
+					double through = forwardDistance[v] + backwardDistance[v];
+					if (through < best) {
+						best = through;
+						meet = v;
+					}
+				}
+			}
+		}
+		forwardQueue.clear();
+		backwardQueue.clear();
+		if (Metrics.ENABLED) {
+			Metrics.shortestPath(timer, source, settled, relaxed, inserts, decreases);
+		}
+		if (meet == -1) {
+			return new Route(new int[] { target }, Double.POSITIVE_INFINITY, settled);
+		}
+//		source to the meeting router, then on toward the target
+		int first[] = forwardPath(meet);
+		int length = first.length;
+		for (int v = backwardNext[meet]; v != -1; v = backwardNext[v]) {
+			length++;
+		}
+		int path[] = Arrays.copyOf(first, length);
+		int i = first.length;
+		for (int v = backwardNext[meet]; v != -1; v = backwardNext[v]) {
+			path[i++] = v;
+		}
+		return new Route(path, best, settled);
+	}
+
+	private int[] forwardPath(int target) {
+		int length = 0;
+		for (int v = target; v != -1; v = forwardPrevious[v]) {
+			length++;
+		}
+		int path[] = new int[length];
+		for (int v = target; v != -1; v = forwardPrevious[v]) {
+			path[--length] = v;
+		}
+		return path;
+	}
+
+	private void touch(int v) {
+		if (!isTouched[v]) {
+			isTouched[v] = true;
+			touched[touchedCount++] = v;
+		}
+	}
+
+//	undoing what the last query wrote
+	private void reset() {
+		for (int i = 0; i < touchedCount; i++) {
+			int v = touched[i];
+			isTouched[v] = false;
+			forwardDistance[v] = Double.POSITIVE_INFINITY;
+			forwardPrevious[v] = -1;
+			if (backwardDistance != null) {
+				backwardDistance[v] = Double.POSITIVE_INFINITY;
+				backwardNext[v] = -1;
+			}
+		}
+		touchedCount = 0;
+	}
+}
@@ -0,0 +1,50 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the reverse adjacency of a CSR graph
+ * 					- links entering router v are the links leaving v in graph
+ * 					- origin gives the slot of every reversed link in the
+ * 					forward graph so both can share per link state
+ *
+ */
+
+import java.util.Arrays;
+
+public final class ReverseGraph {
+	public final CsrGraph graph;	// every link u -> v stored as v -> u
+	private final int origin[];		// forward slot of every reversed link
+
+	public ReverseGraph(CsrGraph forward) {
+		int n = forward.vertexCount();
+		int m = forward.edgeCount();
+		int offsets[] = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			offsets[forward.target(e) + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int next[] = Arrays.copyOf(offsets, n);
+		int targets[] = new int[m];
+		double weights[] = new double[m];
+		origin = new int[m];
+//		walking the routers in order keeps the entering links sorted by router
+		for (int u = 0; u < n; u++) {
+			for (int e = forward.begin(u), end = forward.end(u); e < end; e++) {
+				int slot = next[forward.target(e)]++;
+				targets[slot] = u;
+				weights[slot] = forward.weight(e);
+				origin[slot] = e;
+			}
+		}
+		graph = new CsrGraph(n, offsets, targets, weights);
+	}
+
+//	slot in the forward graph of the reversed link
+	public int origin(int edge) {
+		return origin[edge];
+	}
+}
@@ -0,0 +1,65 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the answer to a point to point query
+ * 					- the routers from source to target like getShortestPathTo
+ * 					- the total cost, infinity when there is no path
+ * 					- an unreachable target gives a path holding only the target
+ *
+ */
+
+public class Route {
+	private final int path[];		// routers from source to target
+	private final double cost;		// total cost of the path
+	private final int settled;		// routers the search settled to find it
+
+	public Route(int path[], double cost, int settled) {
+		this.path = path;
+		this.cost = cost;
+		this.settled = settled;
+	}
+
+	public int source() {
+		return path[0];
+	}
+
+	public int target() {
+		return path[path.length - 1];
+	}
+
+	public int[] path() {
+		return path;
+	}
+
+	public double cost() {
+		return cost;
+	}
+
+	public boolean isReachable() {
+		return cost != Double.POSITIVE_INFINITY;
+	}
+
+	public int settled() {
+		return settled;
+	}
+
+//	router after the source, -1 when there is none
+	public int nextHop() {
+		return path.length > 1 ? path[1] : -1;
+	}
+
+//	routers numbered from 1 as in the menu, "1 -> 6 -> 7"
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < path.length; i++) {
+			if (i > 0) {
+				sb.append(" -> ");
+			}
+			sb.append(path[i] + 1);
+		}
+		return sb.toString();
+	}
+}
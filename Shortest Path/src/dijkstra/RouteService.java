@@ -0,0 +1,427 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the route query service
+ * 					- answers path and connection table queries from many
+ * 					clients at once over HTTP on localhost
+ * 					- the topology is an immutable snapshot, a router removal
+ * 					or link change builds the next snapshot and publishes it
+ * 					in one atomic swap, queries already running keep the
+ * 					snapshot they started on, readers never take a lock
+ * 					- changes are applied one at a time, a batch of link
+ * 					changes (see LinkStateUpdates) is one change and computes
+ * 					again the cached connection tables it altered before
+ * 					it returns
+ * 					- connection tables come from a cache of shortest path trees
+ * 					shared by all the snapshots, a change carries over the
+ * 					trees it can not alter
+ * 					- requests run on virtual threads when the JVM has them
+ * 					(Java 21 and later) and on a fixed pool otherwise
+ *
+ * 					GET  /route?src=1&dst=6            one line as in batch mode
+ * 					GET  /paths?src=1&dst=6&k=10       k loopless paths, one line each, k up to 64
+ * 					GET  /table?src=3                  one line per destination
+ * 					GET  /version                      current snapshot version
+ * 					GET  /cache                        cache counters
+ * 					GET  /metrics                      Metrics.summary, with -Ddijkstra.metrics=true
+ * 					POST /remove?router=4              takes the router out
+ * 					POST /link?from=1&to=2&cost=5      cost -1 takes the link out
+ * 					routers are numbered from 1, every response carries the
+ * 					version it was answered from in X-Topology-Version
+ *
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class RouteService {
+//	largest k a /paths request may ask for
+//	can be set with -Ddijkstra.kpaths.max=256 for traffic engineering studies
+	public static int maxPaths = Integer.getInteger("dijkstra.kpaths.max", 64);
+
+//	one published version of the topology, never modified
+	public static final class Snapshot {
+		private final CsrGraph graph;
+		private final long version;
+		private final ShortestPathCache cache;
+//		query objects of this graph handed from request to request,
+//		they go away with the snapshot
+		private final ConcurrentLinkedQueue<PointToPointQuery> queries = new ConcurrentLinkedQueue<PointToPointQuery>();
+
+		Snapshot(CsrGraph graph, long version, ShortestPathCache cache) {
+			this.graph = graph;
+			this.version = version;
+			this.cache = cache;
+		}
+
+		public CsrGraph graph() {
+			return graph;
+		}
+
+		public long version() {
+			return version;
+		}
+
+		public Route route(int source, int target) {
+			ShortestPathTree tree = cache.get(source, version);
+			if (tree != null) {
+				return new Route(tree.pathTo(target), tree.distanceTo(target), 0);
+			}
+			PointToPointQuery query = queries.poll();
+			if (query == null) {
+				query = new PointToPointQuery(graph);
+			}
+			try {
+				return query.route(source, target);
+			} finally {
+				queries.offer(query);
+			}
+		}
+
+		public ShortestPathTree shortestPaths(int source) {
+			return cache.shortestPaths(graph, source, version);
+		}
+
+		public List<Route> kShortestPaths(int source, int target, int k) {
+			return KShortestPaths.compute(graph, source, target, k);
+		}
+	}
+
+//	what one setLinkCosts call changed
+	public static final class LinkChanges {
+		private final long version;		// version published, the old one when no link changed
+		private final int links;		// links whose cost changed
+		private final int rows;			// connection tables computed again
+
+		LinkChanges(long version, int links, int rows) {
+			this.version = version;
+			this.links = links;
+			this.rows = rows;
+		}
+
+		public long version() {
+			return version;
+		}
+
+		public int links() {
+			return links;
+		}
+
+		public int rowsRecomputed() {
+			return rows;
+		}
+	}
+
+	private final AtomicReference<Snapshot> current;
+	private final ShortestPathCache cache;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public RouteService(CsrGraph graph) {
+		this(graph, new ShortestPathCache((long) Dijkstras.cacheMegabytes << 20));
+	}
+
+	public RouteService(CsrGraph graph, ShortestPathCache cache) {
+		this.cache = cache;
+		current = new AtomicReference<Snapshot>(new Snapshot(graph, 0, cache));
+	}
+
+	public ShortestPathCache cache() {
+		return cache;
+	}
+
+//	the snapshot a query should read, a change published later does
+//	not affect it
+	public Snapshot snapshot() {
+		return current.get();
+	}
+
+//	taking a router out, router index from 0, returns the new version
+	public synchronized long removeRouter(int router) {
+		Snapshot old = current.get();
+		checkRouter(old.graph, router);
+		long version = publish(old, old.graph.withoutRouter(router));
+		cache.routerRemoved(router, old.version, version);
+		return version;
+	}
+
+//	changing the cost of a link, -1 takes it out, returns the new version
+	public synchronized long setLinkCost(int u, int v, double cost) {
+		checkCost(cost);
+		Snapshot old = current.get();
+		checkRouter(old.graph, u);
+		checkRouter(old.graph, v);
+		long version = publish(old, old.graph.withLinkCost(u, v, cost));
+		cache.linkChanged(u, v, cost, old.version, version);
+		return version;
+	}
+
+//	changing the costs of count links in one new version, link i is from[i]
+//	to to[i], -1 takes it out, at most one change per link
+//	links already at their cost are left out and no version is published
+//	when none is left
+//	the cached trees the change drops are computed again on the new version
+//	before it returns, so the connection tables it altered are ready then
+//	and not left to the next query of each source
+	public synchronized LinkChanges setLinkCosts(int from[], int to[], double cost[], int count) {
+		Snapshot old = current.get();
+		int changedFrom[] = new int[count];
+		int changedTo[] = new int[count];
+		double changedCost[] = new double[count];
+		Set<Long> links = new HashSet<Long>();
+		int changed = 0;
+		for (int i = 0; i < count; i++) {
+			checkRouter(old.graph, from[i]);
+			checkRouter(old.graph, to[i]);
+			checkCost(cost[i]);
+			if (!links.add(((long) from[i] << 32) | to[i])) {
+				throw new IllegalArgumentException(
+						"Link from router " + (from[i] + 1) + " to " + (to[i] + 1) + " is changed twice");
+			}
+//			an edge list can have the same link twice, the change sets them all
+			boolean same = true;
+			boolean present = false;
+			for (int e = old.graph.begin(from[i]), end = old.graph.end(from[i]); e < end; e++) {
+				if (old.graph.target(e) == to[i]) {
+					present = true;
+					same &= old.graph.weight(e) == cost[i];
+				}
+			}
+			if (present ? !same : cost[i] != -1) {
+				changedFrom[changed] = from[i];
+				changedTo[changed] = to[i];
+				changedCost[changed] = cost[i];
+				changed++;
+			}
+		}
+		if (changed == 0) {
+			return new LinkChanges(old.version, 0, 0);
+		}
+		long version = publish(old, old.graph.withLinkCosts(changedFrom, changedTo, changedCost, changed));
+		int sources[] = cache.linksChanged(changedFrom, changedTo, changedCost, changed, old.version, version);
+		recompute(current.get(), sources);
+		return new LinkChanges(version, changed, sources.length);
+	}
+
+//	trees of the sources on the common fork join pool, they go to the cache
+	private static void recompute(Snapshot snapshot, int sources[]) {
+		if (sources.length == 0) {
+			return;
+		}
+		try {
+			ForkJoinPool.commonPool().submit(() -> IntStream.of(sources).parallel().forEach(snapshot::shortestPaths))
+					.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Connection table recompute interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Connection table recompute failed", e.getCause());
+		}
+	}
+
+	private long publish(Snapshot old, CsrGraph graph) {
+		Snapshot next = new Snapshot(graph, old.version + 1, cache);
+		current.set(next);
+		return next.version;
+	}
+
+//	a finite cost above 0 or -1, NaN and infinity would pass a test for
+//	cost <= 0 and leave a link no engine can compare
+	static void checkCost(double cost) {
+		if (!(cost == -1 || (cost > 0 && !Double.isInfinite(cost)))) {
+			throw new IllegalArgumentException("Link cost must be positive or -1: " + cost);
+		}
+	}
+
+	private static void checkRouter(CsrGraph graph, int router) {
+		if (router < 0 || router >= graph.vertexCount()) {
+			throw new IllegalArgumentException("Router " + (router + 1) + " dose'nt exists");
+		}
+	}
+
+//	serving on localhost, port 0 picks a free one, returns the address bound
+	public synchronized InetSocketAddress start(int port) throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("Route service is already running");
+		}
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		executor = requestExecutor();
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+		return server.getAddress();
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdown();
+			try {
+				executor.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			server = null;
+			executor = null;
+		}
+	}
+
+//	a virtual thread per request when the JVM has them, the
+//	project still builds for Java 8 so it is looked up by name
+	static ExecutorService requestExecutor() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+		}
+	}
+
+//	the exchange is closed whatever happens so a client never waits on
+//	a dropped connection
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			respond(exchange);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void respond(HttpExchange exchange) throws IOException {
+		Snapshot snapshot = current.get();
+		int status = 200;
+		String body;
+		try {
+			String method = exchange.getRequestMethod();
+			String path = exchange.getRequestURI().getPath();
+			Map<String, String> params = parameters(exchange.getRequestURI());
+			boolean get = method.equals("GET");
+			boolean post = method.equals("POST");
+			StringBuilder sb = new StringBuilder();
+			if (get && path.equals("/route")) {
+				int source = router(params, "src", snapshot.graph);
+				int target = router(params, "dst", snapshot.graph);
+				Route route = snapshot.route(source, target);
+				BatchQueries.appendRoute(sb, source, target, route.cost(), route.path());
+			} else if (get && path.equals("/paths")) {
+				int source = router(params, "src", snapshot.graph);
+				int target = router(params, "dst", snapshot.graph);
+				List<Route> routes = snapshot.kShortestPaths(source, target, pathCount(params, "k"));
+				for (Route route : routes) {
+					BatchQueries.appendRoute(sb, source, target, route.cost(), route.path());
+				}
+				if (routes.isEmpty()) {
+					BatchQueries.appendRoute(sb, source, target, Double.POSITIVE_INFINITY, new int[] { target });
+				}
+			} else if (get && path.equals("/table")) {
+				int source = router(params, "src", snapshot.graph);
+				BatchQueries.appendTable(sb, source, snapshot.shortestPaths(source).nextHops());
+			} else if (get && path.equals("/version")) {
+				sb.append(snapshot.version).append('\n');
+			} else if (get && path.equals("/cache")) {
+				sb.append(cache).append('\n');
+			} else if (get && path.equals("/metrics")) {
+				sb.append(Metrics.summary()).append('\n');
+			} else if (post && path.equals("/remove")) {
+				removeRouter(router(params, "router", snapshot.graph));
+				snapshot = current.get();
+				sb.append(snapshot.version).append('\n');
+			} else if (post && path.equals("/link")) {
+				setLinkCost(router(params, "from", snapshot.graph), router(params, "to", snapshot.graph),
+						number(params, "cost"));
+				snapshot = current.get();
+				sb.append(snapshot.version).append('\n');
+			} else {
+				status = 404;
+				sb.append("Unknown request ").append(method).append(' ').append(path).append('\n');
+			}
+			body = sb.toString();
+		} catch (IllegalArgumentException e) {
+			status = 400;
+			body = e.getMessage() + "\n";
+		} catch (RuntimeException e) {
+//			an engine failed, the parallel ones wrap the cause in IllegalStateException
+			status = 500;
+			body = (e.getMessage() != null ? e.getMessage() : e.toString()) + "\n";
+		}
+		byte bytes[] = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.getResponseHeaders().set("X-Topology-Version", Long.toString(snapshot.version));
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> parameters(URI uri) {
+		Map<String, String> params = new HashMap<String, String>();
+		String query = uri.getQuery();
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					params.put(pair.substring(0, equals), pair.substring(equals + 1));
+				}
+			}
+		}
+		return params;
+	}
+
+	private static double number(Map<String, String> params, String name) {
+		String value = params.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing parameter " + name);
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+		}
+	}
+
+//	number of paths asked for, bounded so one request can not run Yen's
+//	algorithm through every loopless path of the topology
+	private static int pathCount(Map<String, String> params, String name) {
+		double value = number(params, name);
+		if (value != (int) value || value < 1 || value > maxPaths) {
+			throw new IllegalArgumentException("Parameter " + name + " must be a whole number from 1 to " + maxPaths
+					+ ": " + params.get(name));
+		}
+		return (int) value;
+	}
+
+//	router parameter numbered from 1, returned as index from 0
+	private static int router(Map<String, String> params, String name, CsrGraph graph) {
+		double value = number(params, name);
+		int router = (int) value;
+		if (router != value) {
+			throw new IllegalArgumentException("Parameter " + name + " is not a router: " + params.get(name));
+		}
+		checkRouter(graph, router - 1);
+		return router - 1;
+	}
+}
@@ -0,0 +1,154 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the next hop table in run length form
+ * 					- a row is kept as runs of destinations next to each
+ * 					other that share one next hop, (first destination, hop)
+ * 					- routers numbered along the topology have few runs per
+ * 					row so the table is far smaller than the n x n matrix
+ * 					- lookup is a binary search over the runs of the row
+ * 					- the runs live in direct buffers outside the Java heap
+ *
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class RunLengthNextHopTable implements NextHopTable {
+//	ints in one buffer, rows never cross buffers
+	private static final int CHUNK_INTS = 1 << 28;
+//	rows compressed by estimateBytes
+	static final int SAMPLE_ROWS = 32;
+
+	private final int routerCount;
+	private final IntBuffer chunks[];
+	private final int rowChunk[];	// buffer holding the runs of every row
+	private final int rowOffset[];	// first int of the row in that buffer
+	private final int rowRuns[];	// number of runs of the row
+	private final long runCount;
+
+	private RunLengthNextHopTable(int rows[][]) {
+		int n = rows.length;
+		routerCount = n;
+		rowChunk = new int[n];
+		rowOffset = new int[n];
+		rowRuns = new int[n];
+//		placing the rows in buffers first so each buffer is allocated once
+		long runs = 0;
+		int chunkCount = 0;
+		int used = CHUNK_INTS;
+		int chunkSizes[] = new int[Math.max(1, n)];
+		for (int s = 0; s < n; s++) {
+			int length = rows[s].length;
+			if (used + length > CHUNK_INTS) {
+				chunkCount++;
+				used = 0;
+			}
+			rowChunk[s] = chunkCount - 1;
+			rowOffset[s] = used;
+			rowRuns[s] = length / 2;
+			used += length;
+			chunkSizes[chunkCount - 1] = used;
+			runs += length / 2;
+		}
+		runCount = runs;
+		chunks = new IntBuffer[chunkCount];
+		for (int c = 0; c < chunkCount; c++) {
+			chunks[c] = ByteBuffer.allocateDirect(chunkSizes[c] * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+		}
+		for (int s = 0; s < n; s++) {
+			IntBuffer chunk = chunks[rowChunk[s]];
+			int offset = rowOffset[s];
+			for (int i = 0; i < rows[s].length; i++) {
+				chunk.put(offset + i, rows[s][i]);
+			}
+		}
+	}
+
+//	table of the graph, rows computed in parallel
+	public static RunLengthNextHopTable compute(CsrGraph graph) {
+		final int rows[][] = new int[graph.vertexCount()][];
+		ConnectionTables.forEachRow(graph, ForkJoinPool.commonPool(), (row, source) -> rows[source] = runs(row));
+		return new RunLengthNextHopTable(rows);
+	}
+
+//	bytes the table of the graph would take, from the runs of a few rows
+//	picked with a fixed seed so the estimate is the same on every call
+	public static long estimateBytes(CsrGraph graph) {
+		int n = graph.vertexCount();
+		int samples = Math.min(n, SAMPLE_ROWS);
+		if (samples == 0) {
+			return 0;
+		}
+		Random random = new Random(n);
+		long runs = 0;
+		for (int i = 0; i < samples; i++) {
+			int source = samples == n ? i : random.nextInt(n);
+			runs += runs(Dijkstras.computePaths(graph, source).nextHops()).length / 2;
+		}
+		return runs * n / samples * 8 + n * 12L;
+	}
+
+//	compressing another table, such as the dense one
+	public static RunLengthNextHopTable of(NextHopTable table) {
+		int rows[][] = new int[table.routerCount()][];
+		for (int s = 0; s < rows.length; s++) {
+			rows[s] = runs(table.row(s));
+		}
+		return new RunLengthNextHopTable(rows);
+	}
+
+//	(first destination, hop) pairs of a row
+	static int[] runs(int row[]) {
+		int count = 0;
+		for (int t = 0; t < row.length; t++) {
+			if (t == 0 || row[t] != row[t - 1]) {
+				count++;
+			}
+		}
+		int runs[] = new int[count * 2];
+		int i = 0;
+		for (int t = 0; t < row.length; t++) {
+			if (t == 0 || row[t] != row[t - 1]) {
+				runs[i++] = t;
+				runs[i++] = row[t];
+			}
+		}
+		return runs;
+	}
+
+	public int routerCount() {
+		return routerCount;
+	}
+
+	public long runCount() {
+		return runCount;
+	}
+
+//	last run starting at or before the target
+	public int nextHop(int source, int target) {
+		IntBuffer chunk = chunks[rowChunk[source]];
+		int offset = rowOffset[source];
+		int low = 0;
+		int high = rowRuns[source] - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (chunk.get(offset + 2 * middle) <= target) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return chunk.get(offset + 2 * low + 1);
+	}
+
+	public long bytes() {
+		return runCount * 8 + routerCount * 12L;
+	}
+}
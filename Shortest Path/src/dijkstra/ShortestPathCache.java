@@ -0,0 +1,234 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the cache of shortest path trees
+ * 					- one tree per source router and topology version, the
+ * 					distance and previous arrays of ShortestPathTree as is
+ * 					- bounded by the bytes of those arrays, the least recently
+ * 					used tree is evicted first
+ * 					- on a topology change the trees the change can not alter
+ * 					are carried over to the new version, the rest are dropped
+ * 					- safe to use from many threads, the shortest path run of
+ * 					a miss is done outside the lock
+ *
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ShortestPathCache {
+//	bytes counted for a tree besides its arrays
+	private static final int TREE_OVERHEAD = 64;
+
+	private static final class Key {
+		final int source;
+		final long version;
+
+		Key(int source, long version) {
+			this.source = source;
+			this.version = version;
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return source == key.source && version == key.version;
+		}
+
+		public int hashCode() {
+			return source * 31 + Long.hashCode(version);
+		}
+	}
+
+	private final long maxBytes;	// limit on the bytes of the cached trees
+	private long bytes;				// bytes of the cached trees
+//	access ordered so the first entry is the least recently used
+	private LinkedHashMap<Key, ShortestPathTree> trees = new LinkedHashMap<Key, ShortestPathTree>(16, 0.75f, true);
+	private long hits;
+	private long misses;
+	private long evictions;		// dropped to stay under maxBytes
+	private long invalidations;	// dropped by a topology change
+	private long carriedOver;	// kept across a topology change
+
+	public ShortestPathCache(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	static long sizeOf(ShortestPathTree tree) {
+		return TREE_OVERHEAD + tree.vertexCount() * 12L;
+	}
+
+//	cached tree of the source at that version, null on a miss
+	public synchronized ShortestPathTree get(int source, long version) {
+		ShortestPathTree tree = trees.get(new Key(source, version));
+		if (tree == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return tree;
+	}
+
+//	caching a tree, trees larger than the whole cache are not kept
+	public synchronized void put(ShortestPathTree tree, long version) {
+		long size = sizeOf(tree);
+		if (size > maxBytes) {
+			return;
+		}
+		ShortestPathTree old = trees.put(new Key(tree.source, version), tree);
+		if (old != null) {
+			bytes -= sizeOf(old);
+		}
+		bytes += size;
+		Iterator<ShortestPathTree> eldest = trees.values().iterator();
+		while (bytes > maxBytes) {
+			bytes -= sizeOf(eldest.next());
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+//	cached tree or a new shortest path run on the graph of that version
+//	a large graph is run in parallel with delta-stepping
+	public ShortestPathTree shortestPaths(CsrGraph graph, int source, long version) {
+		ShortestPathTree tree = get(source, version);
+		if (tree == null) {
+			tree = DeltaStepping.computePaths(graph, source);
+			put(tree, version);
+		}
+		return tree;
+	}
+
+//	the router was taken out going from oldVersion to newVersion
+//	a tree where it is nobody's previous router keeps every other path,
+//	only the router itself becomes unreachable
+	public synchronized void routerRemoved(int router, long oldVersion, long newVersion) {
+		LinkedHashMap<Key, ShortestPathTree> kept = new LinkedHashMap<Key, ShortestPathTree>(16, 0.75f, true);
+		for (Map.Entry<Key, ShortestPathTree> entry : trees.entrySet()) {
+			ShortestPathTree tree = entry.getValue();
+			if (entry.getKey().version == oldVersion && router < tree.vertexCount() && tree.source != router
+					&& !isPrevious(tree, router)) {
+				if (tree.isReachable(router)) {
+					double distance[] = Arrays.copyOf(tree.distance, tree.distance.length);
+					int previous[] = Arrays.copyOf(tree.previous, tree.previous.length);
+					distance[router] = Double.POSITIVE_INFINITY;
+					previous[router] = -1;
+					tree = new ShortestPathTree(tree.source, distance, previous);
+				}
+				kept.put(new Key(tree.source, newVersion), tree);
+				carriedOver++;
+			} else {
+				bytes -= sizeOf(tree);
+				invalidations++;
+			}
+		}
+		trees = kept;
+	}
+
+//	the cost of the link from u to v changed going from oldVersion to
+//	newVersion, -1 when it was taken out
+	public void linkChanged(int u, int v, double cost, long oldVersion, long newVersion) {
+		linksChanged(new int[] { u }, new int[] { v }, new double[] { cost }, 1, oldVersion, newVersion);
+	}
+
+//	the costs of count links changed together, link i from from[i] to to[i]
+//	a tree is kept when none of the links is in it and no new cost gives
+//	the end of its link a shorter path, or an equal one through a lower
+//	router, then its links kept their costs and none got below them
+//	returns the sources of the trees of oldVersion that were dropped
+	public synchronized int[] linksChanged(int from[], int to[], double cost[], int count, long oldVersion,
+			long newVersion) {
+		LinkedHashMap<Key, ShortestPathTree> kept = new LinkedHashMap<Key, ShortestPathTree>(16, 0.75f, true);
+		int dropped[] = new int[trees.size()];
+		int droppedCount = 0;
+		for (Map.Entry<Key, ShortestPathTree> entry : trees.entrySet()) {
+			ShortestPathTree tree = entry.getValue();
+			boolean unaffected = entry.getKey().version == oldVersion;
+			for (int i = 0; i < count && unaffected; i++) {
+				int u = from[i];
+				int v = to[i];
+				if (u >= tree.vertexCount() || v >= tree.vertexCount() || tree.previous[v] == u) {
+					unaffected = false;
+				} else {
+					double through = tree.distance[u] + cost[i];
+					unaffected = cost[i] == -1 || through > tree.distance[v]
+							|| (through == tree.distance[v] && u > tree.previous[v]);
+				}
+			}
+			if (unaffected) {
+				kept.put(new Key(tree.source, newVersion), tree);
+				carriedOver++;
+			} else {
+				if (entry.getKey().version == oldVersion) {
+					dropped[droppedCount++] = tree.source;
+				}
+				bytes -= sizeOf(tree);
+				invalidations++;
+			}
+		}
+		trees = kept;
+		return Arrays.copyOf(dropped, droppedCount);
+	}
+
+	private static boolean isPrevious(ShortestPathTree tree, int router) {
+		for (int p : tree.previous) {
+			if (p == router) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized void clear() {
+		invalidations += trees.size();
+		trees.clear();
+		bytes = 0;
+	}
+
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	public synchronized long bytes() {
+		return bytes;
+	}
+
+	public long maxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized long hits() {
+		return hits;
+	}
+
+	public synchronized long misses() {
+		return misses;
+	}
+
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	public synchronized long invalidations() {
+		return invalidations;
+	}
+
+	public synchronized long carriedOver() {
+		return carriedOver;
+	}
+
+	public synchronized String toString() {
+		return "trees " + trees.size() + " bytes " + bytes + "/" + maxBytes + " hits " + hits + " misses " + misses
+				+ " evictions " + evictions + " invalidations " + invalidations + " carried over " + carriedOver;
+	}
+}
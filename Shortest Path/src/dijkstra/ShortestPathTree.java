@@ -0,0 +1,116 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the result of one shortest path run
+ * 					on the CSR graph
+ * 					- distance and previous router are kept in primitive
+ * 					arrays indexed by router instead of in Vertex objects
+ * 					- previous is -1 for the source and unreachable routers
+ *
+ */
+
+import java.util.Arrays;
+
+public class ShortestPathTree {
+	final int source;			// router the paths start from
+	final double distance[];	// minimum distance of every router
+	final int previous[];		// previous router on the path, -1 if none
+
+	public ShortestPathTree(int source, double distance[], int previous[]) {
+		this.source = source;
+		this.distance = distance;
+		this.previous = previous;
+	}
+
+	public int source() {
+		return source;
+	}
+
+	public int vertexCount() {
+		return distance.length;
+	}
+
+	public double distanceTo(int target) {
+		return distance[target];
+	}
+
+	public int previous(int target) {
+		return previous[target];
+	}
+
+	public boolean isReachable(int target) {
+		return distance[target] != Double.POSITIVE_INFINITY;
+	}
+
+//	same as getShortestPathTo, routers from the source to the target
+//	an unreachable target gives a path holding only the target
+	public int[] pathTo(int target) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		int length = 0;
+		for (int v = target; v != -1; v = previous[v]) {
+			length++;
+		}
+//		filling from the back so no reverse is needed
+		int path[] = new int[length];
+		for (int v = target; v != -1; v = previous[v]) {
+			path[--length] = v;
+		}
+		if (Metrics.ENABLED) {
+			Metrics.pathReconstructed(start);
+		}
+		return path;
+	}
+
+//	router right after the source on the path to target
+//	-1 for the source itself and for unreachable routers
+	public int nextHop(int target) {
+		if (target == source || previous[target] == -1) {
+			return -1;
+		}
+		int v = target;
+		while (previous[v] != source) {
+			v = previous[v];
+		}
+		return v;
+	}
+
+//	next hop of every router, the connection table of the source
+	public int[] nextHops() {
+		int n = distance.length;
+		int hops[] = new int[n];
+		fillNextHops(source, previous, hops, new int[n]);
+		return hops;
+	}
+
+//	works out the next hops from a previous array into hops
+//	stack is scratch space of the same length so callers can reuse it
+	static void fillNextHops(int source, int previous[], int hops[], int stack[]) {
+		int n = previous.length;
+		Arrays.fill(hops, -2);	// -2 means not worked out yet
+		hops[source] = -1;
+		for (int t = 0; t < n; t++) {
+//			walking up until a router with a known hop, then filling the walk back in
+			int depth = 0;
+			int v = t;
+			while (hops[v] == -2) {
+				if (previous[v] == -1) {
+					hops[v] = -1;
+					break;
+				}
+				if (previous[v] == source) {
+					hops[v] = v;
+					break;
+				}
+				stack[depth++] = v;
+				v = previous[v];
+			}
+			int hop = hops[v];
+			while (depth > 0) {
+				hops[stack[--depth]] = hop;
+			}
+		}
+	}
+}
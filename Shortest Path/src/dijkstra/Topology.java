@@ -0,0 +1,208 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the loaded network topology
+ * 					- the CSR graph is built once when the topology is loaded
+ * 					and kept until the topology is modified
+ * 					- every query gets its own distance and previous arrays
+ * 					so the menu options only pay for the shortest path run
+ * 					- sparse topologies have no matrix, only the graph
+ * 					- shortest path trees are cached per source and version,
+ * 					a modification drops only the trees it can change
+ * 					- landmarks of the goal directed query are kept when routers
+ * 					or links are removed, only a removed landmark is replaced
+ *
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class Topology {
+	private final int matrix[][];	// topology matrix as read from the file, null if sparse
+	private CsrGraph graph;			// graph built from the matrix
+	private long version;			// incremented on every modification
+	private PointToPointQuery query;	// reused by route while the graph is unchanged
+	private ContractionHierarchy hierarchy;	// built on demand for the current graph
+	private CsrGraph hierarchyGraph;		// graph the hierarchy was built from
+	private LandmarkQuery landmarks;		// built on demand, kept through removals
+	private final ShortestPathCache cache = new ShortestPathCache((long) Dijkstras.cacheMegabytes << 20);
+
+	public Topology(int matrix[][]) {
+		this.matrix = matrix;
+		this.graph = CsrGraph.fromMatrix(matrix);
+	}
+
+//	topology loaded from a sparse file, there is no matrix
+	public Topology(CsrGraph graph) {
+		this.matrix = null;
+		this.graph = graph;
+	}
+
+//	loading a topology file of any format
+//	a matrix file keeps its matrix so it can be displayed
+	public static Topology load(Path file) throws IOException {
+		if (TopologyFormat.detect(file) == TopologyFormat.MATRIX) {
+			return new Topology(TopologyLoader.loadMatrix(file));
+		}
+		return new Topology(TopologyLoader.loadGraph(file));
+	}
+
+//	saving the graph as a binary snapshot, Topology.load reads it back
+	public void saveSnapshot(Path file) throws IOException {
+		GraphSnapshot.write(graph, file);
+	}
+
+	public boolean hasMatrix() {
+		return matrix != null;
+	}
+
+	public int[][] matrix() {
+		return matrix;
+	}
+
+	public CsrGraph graph() {
+		return graph;
+	}
+
+	public int routerCount() {
+		return graph.vertexCount();
+	}
+
+	public long version() {
+		return version;
+	}
+
+//	router numbers start from 1 like in the menu
+	public boolean hasRouter(int router) {
+		return router >= 1 && router <= routerCount();
+	}
+
+//	shortest paths from the given router (index from 0)
+//	the tree is cached, it must not be modified
+	public ShortestPathTree shortestPaths(int source) {
+		return cache.shortestPaths(graph, source, version);
+	}
+
+	public ShortestPathCache cache() {
+		return cache;
+	}
+
+//	path between two routers, read from the cached tree of the source
+//	if there is one, else the search stops at the target
+//	not thread safe, the query arrays are shared between calls
+	public Route route(int source, int target) {
+		ShortestPathTree tree = cache.get(source, version);
+		if (tree != null) {
+			return new Route(tree.pathTo(target), tree.distanceTo(target), 0);
+		}
+		if (query == null || query.graph() != graph) {
+			query = new PointToPointQuery(graph);
+		}
+		return query.route(source, target);
+	}
+
+//	contraction hierarchy of the current graph, preprocessed on first
+//	use and again after the topology is modified
+	public ContractionHierarchy contractionHierarchy() {
+		if (hierarchy == null || hierarchyGraph != graph) {
+			hierarchy = ContractionHierarchy.build(graph);
+			hierarchyGraph = graph;
+		}
+		return hierarchy;
+	}
+
+	public boolean hasContractionHierarchy() {
+		return hierarchy != null && hierarchyGraph == graph;
+	}
+
+//	landmark query of the current graph, the landmarks are chosen on
+//	first use and kept up to date by removeRouter and removeLink
+//	not thread safe, the query arrays are shared between calls
+	public LandmarkQuery landmarkQuery() {
+		if (landmarks == null) {
+			landmarks = LandmarkQuery.build(graph);
+		}
+		return landmarks;
+	}
+
+	public boolean hasLandmarkQuery() {
+		return landmarks != null;
+	}
+
+//	up to k loopless paths between two routers in order of cost,
+//	the first is the one route gives, index from 0
+	public List<Route> kShortestPaths(int source, int target, int k) {
+		return KShortestPaths.compute(graph, source, target, k);
+	}
+
+//	connection tables of all the routers, computed in parallel
+	public int[][] connectionTables() {
+		return ConnectionTables.compute(graph);
+	}
+
+//	every equal cost path from the given router (index from 0)
+	public EqualCostTree equalCostTree(int source) {
+		return EqualCostTree.compute(graph, source);
+	}
+
+//	same tables in the smaller of the two off heap layouts, run length when
+//	a few sample rows say it is under half the matrix or the matrix is too large
+	public NextHopTable nextHopTable() {
+		long dense = DenseNextHopTable.bytesFor(graph.vertexCount());
+		if (dense > DenseNextHopTable.maxBytes() || RunLengthNextHopTable.estimateBytes(graph) * 2 < dense) {
+			return RunLengthNextHopTable.compute(graph);
+		}
+		return DenseNextHopTable.compute(graph);
+	}
+
+//	taking a router out of the network, router index from 0
+//	all its links are marked -1 in the matrix and left out of the graph
+	public void removeRouter(int router) {
+		if (matrix != null) {
+			for (int i = 0; i < matrix.length; i++) {
+				if (i == router) {
+					matrix[router][i] = 0;
+				} else {
+					matrix[router][i] = -1;
+					matrix[i][router] = -1;
+				}
+			}
+		}
+		graph = graph.withoutRouter(router);
+		version++;
+		if (landmarks != null) {
+			landmarks.removeRouter(graph, router);
+		}
+		cache.routerRemoved(router, version - 1, version);
+	}
+
+//	taking the link from u to v out, router indexes from 0
+	public void removeLink(int u, int v) {
+		setLinkCost(u, v, -1);
+	}
+
+//	changing the cost of the link from u to v, -1 takes it out
+	public void setLinkCost(int u, int v, int cost) {
+		if (cost == 0 || cost < -1) {
+			throw new IllegalArgumentException("Link cost must be positive or -1: " + cost);
+		}
+		if (matrix != null) {
+			matrix[u][v] = cost;
+		}
+		graph = graph.withLinkCost(u, v, cost);
+		version++;
+//		a lower cost or a new link can make the landmark bounds too high
+		if (landmarks != null) {
+			if (cost == -1 && graph.vertexCount() == landmarks.graph().vertexCount()) {
+				landmarks.removeLink(graph, u, v);
+			} else {
+				landmarks = null;
+			}
+		}
+		cache.linkChanged(u, v, cost, version - 1, version);
+	}
+}
@@ -0,0 +1,77 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the topology file formats
+ * 					- MATRIX     n rows of n distances, -1 no link, 0 same router
+ * 					- EDGE_LIST  one "from to cost" line per link, "n n 0"
+ * 					sets the router count when the last routers have no links
+ * 					- ADJACENCY  one "router: neighbour cost neighbour cost ..."
+ * 					line per router
+ * 					- SNAPSHOT   binary CSR snapshot written by GraphSnapshot
+ * 					- routers are numbered from 1 in the sparse formats and
+ * 					lines starting with # are comments
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public enum TopologyFormat {
+	MATRIX, EDGE_LIST, ADJACENCY, SNAPSHOT;
+
+//	how much of the file is looked at to find the format
+	private static final int SAMPLE = 64 << 10;
+
+//	working out the format from the first line that is not a comment
+//	a colon means adjacency list, three numbers not starting with
+//	0 mean edge list (a matrix row always starts with 0 for router 1)
+	public static TopologyFormat detect(Path file) throws IOException {
+		ByteBuffer sample = ByteBuffer.allocate(SAMPLE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (sample.hasRemaining() && channel.read(sample) > 0) {
+			}
+		}
+		sample.flip();
+		if (GraphSnapshot.isSnapshot(sample)) {
+			return SNAPSHOT;
+		}
+		int tokens = 0;
+		boolean inToken = false;
+		boolean firstIsZero = false;
+		boolean comment = false;
+		while (sample.hasRemaining()) {
+			byte b = sample.get();
+			if (b == '\n') {
+				if (tokens > 0) {
+					break;
+				}
+				comment = false;
+			} else if (comment) {
+				continue;
+			} else if (b == '#' && tokens == 0 && !inToken) {
+				comment = true;
+			} else if (b == ':') {
+				return ADJACENCY;
+			} else if (b == ' ' || b == '\t' || b == '\r' || b == ',') {
+				inToken = false;
+			} else if (!inToken) {
+				inToken = true;
+				if (tokens++ == 0) {
+					firstIsZero = b == '0';
+				}
+			} else if (tokens == 1) {
+				firstIsZero = false;
+			}
+		}
+		if (tokens == 3 && !firstIsZero) {
+			return EDGE_LIST;
+		}
+		return MATRIX;
+	}
+}
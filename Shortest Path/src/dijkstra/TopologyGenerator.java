@@ -0,0 +1,353 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the synthetic topology generator
+ * 					- the same shape, size, seed and costs always give the
+ * 					same topology so a load test can be repeated exactly
+ * 					- geometric  routers at random points of a unit square,
+ * 					linked when they are closer than the radius that gives
+ * 					the asked average degree, cost grows with the distance
+ * 					- waxman     Waxman's model, a pair at distance d is linked
+ * 					with probability beta * exp(-d / (alpha * L)), alpha is
+ * 					set from the average degree, pairs farther than ten times
+ * 					alpha * L are not tried (less than 0.1% of the links)
+ * 					- ba         Barabasi-Albert preferential attachment, every
+ * 					new router links to degree / 2 routers picked in proportion
+ * 					to the links they already have
+ * 					- grid       square grid, every router linked to its neighbours
+ * 					- random     every router links to a random earlier router,
+ * 					which keeps the topology connected, and to random others
+ * 					until the average degree is reached
+ * 					- dense      every pair linked, like a full topology matrix
+ * 					- links go both ways with the same cost, costs are whole
+ * 					numbers from the cost range
+ * 					- write saves a graph in any of the loader formats
+ *
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TopologyGenerator {
+
+//	probability scale of the Waxman model
+	static final double WAXMAN_BETA = 0.4;
+//	Waxman pairs are tried up to this many times alpha * L apart
+	static final double WAXMAN_CUTOFF = 10.;
+
+	private final String shape;
+	private final int routerCount;
+	private final long seed;
+	private double degree = 4.;		// average links per router
+	private int minCost = 1;
+	private int maxCost = 20;
+
+	public TopologyGenerator(String shape, int routerCount, long seed) {
+		if (!Arrays.asList("geometric", "waxman", "ba", "grid", "random", "dense").contains(shape)) {
+			throw new IllegalArgumentException("Unknown topology shape " + shape
+					+ ", expected geometric, waxman, ba, grid, random or dense");
+		}
+		if (routerCount < 1) {
+			throw new IllegalArgumentException("A topology needs at least one router: " + routerCount);
+		}
+		this.shape = shape;
+		this.routerCount = routerCount;
+		this.seed = seed;
+	}
+
+//	average number of links per router, not used by the grid
+	public TopologyGenerator degree(double degree) {
+		if (!(degree > 0)) {
+			throw new IllegalArgumentException("Average degree must be positive: " + degree);
+		}
+		this.degree = degree;
+		return this;
+	}
+
+//	range of the link costs, both ends included
+	public TopologyGenerator costs(int minCost, int maxCost) {
+		if (minCost < 1 || maxCost < minCost) {
+			throw new IllegalArgumentException("Cost range must be positive: " + minCost + "-" + maxCost);
+		}
+		this.minCost = minCost;
+		this.maxCost = maxCost;
+		return this;
+	}
+
+	public CsrGraph generate() {
+		Random random = new Random(seed);
+		CsrGraph.Builder builder = new CsrGraph.Builder(routerCount);
+		switch (shape) {
+		case "geometric":
+			geometric(builder, random);
+			break;
+		case "waxman":
+			waxman(builder, random);
+			break;
+		case "ba":
+			barabasiAlbert(builder, random);
+			break;
+		case "random":
+			random(builder, random);
+			break;
+		case "dense":
+			dense(builder, random);
+			break;
+		default:
+			grid(builder, random);
+			break;
+		}
+		return builder.build();
+	}
+
+//	pairs closer than the radius, found through a grid of cells one radius wide
+	private void geometric(CsrGraph.Builder builder, Random random) {
+		int n = routerCount;
+		double radius = Math.min(Math.sqrt(2.), Math.sqrt(degree / (Math.PI * n)));
+		double x[] = new double[n];
+		double y[] = new double[n];
+		place(random, x, y);
+		Cells cells = new Cells(x, y, radius);
+		for (int u = 0; u < n; u++) {
+			int cx = cells.cell(x[u]);
+			int cy = cells.cell(y[u]);
+			for (int gx = Math.max(0, cx - 1); gx <= Math.min(cells.side - 1, cx + 1); gx++) {
+				for (int gy = Math.max(0, cy - 1); gy <= Math.min(cells.side - 1, cy + 1); gy++) {
+					int c = gx * cells.side + gy;
+					for (int i = cells.first[c]; i < cells.first[c + 1]; i++) {
+						int v = cells.routers[i];
+						if (v > u) {
+							double d = Math.hypot(x[u] - x[v], y[u] - y[v]);
+							if (d <= radius) {
+								link(builder, u, v, distanceCost(d, radius));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+//	expected degree of beta * 2 pi (alpha L)^2 n gives alpha, L is the side of the square
+	private void waxman(CsrGraph.Builder builder, Random random) {
+		int n = routerCount;
+		double scale = Math.sqrt(degree / (2 * Math.PI * WAXMAN_BETA * n));	// alpha * L
+		double cutoff = Math.min(Math.sqrt(2.), WAXMAN_CUTOFF * scale);
+		double x[] = new double[n];
+		double y[] = new double[n];
+		place(random, x, y);
+		Cells cells = new Cells(x, y, cutoff);
+		for (int u = 0; u < n; u++) {
+			int cx = cells.cell(x[u]);
+			int cy = cells.cell(y[u]);
+			for (int gx = Math.max(0, cx - 1); gx <= Math.min(cells.side - 1, cx + 1); gx++) {
+				for (int gy = Math.max(0, cy - 1); gy <= Math.min(cells.side - 1, cy + 1); gy++) {
+					int c = gx * cells.side + gy;
+					for (int i = cells.first[c]; i < cells.first[c + 1]; i++) {
+						int v = cells.routers[i];
+						if (v > u) {
+							double d = Math.hypot(x[u] - x[v], y[u] - y[v]);
+							if (d <= cutoff && random.nextDouble() < WAXMAN_BETA * Math.exp(-d / scale)) {
+								link(builder, u, v, distanceCost(d, cutoff));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+//	every link end is remembered so picking a random end picks
+//	a router in proportion to its links, the first routers form a ring
+	private void barabasiAlbert(CsrGraph.Builder builder, Random random) {
+		int n = routerCount;
+		int m = Math.max(1, (int) Math.round(degree / 2));
+		int ends[] = new int[2 * m * n + 2];
+		int count = 0;
+		int picked[] = new int[m];
+		int start = Math.min(n, m + 1);
+		for (int v = 1; v < start; v++) {
+			link(builder, v - 1, v, randomCost(random));
+			ends[count++] = v - 1;
+			ends[count++] = v;
+		}
+		for (int v = start; v < n; v++) {
+			int links = 0;
+			while (links < m) {
+				int u = count == 0 ? 0 : ends[random.nextInt(count)];
+				boolean again = false;
+				for (int i = 0; i < links; i++) {
+					again |= picked[i] == u;
+				}
+				if (!again) {
+					picked[links++] = u;
+				}
+			}
+			for (int i = 0; i < m; i++) {
+				link(builder, v, picked[i], randomCost(random));
+				ends[count++] = picked[i];
+				ends[count++] = v;
+			}
+		}
+	}
+
+	private void grid(CsrGraph.Builder builder, Random random) {
+		int n = routerCount;
+		int side = (int) Math.ceil(Math.sqrt(n));
+		for (int v = 0; v < n; v++) {
+			if ((v + 1) % side != 0 && v + 1 < n) {
+				link(builder, v, v + 1, randomCost(random));
+			}
+			if (v + side < n) {
+				link(builder, v, v + side, randomCost(random));
+			}
+		}
+	}
+
+//	degree / 2 links per router, the first to an earlier router
+	private void random(CsrGraph.Builder builder, Random random) {
+		int n = routerCount;
+		int m = Math.max(1, (int) Math.round(degree / 2));
+		for (int v = 1; v < n; v++) {
+			link(builder, v, random.nextInt(v), randomCost(random));
+			for (int k = 1; k < m; k++) {
+				int u = random.nextInt(n);
+				if (u != v) {
+					link(builder, v, u, randomCost(random));
+				}
+			}
+		}
+	}
+
+	private void dense(CsrGraph.Builder builder, Random random) {
+		for (int u = 0; u < routerCount; u++) {
+			for (int v = u + 1; v < routerCount; v++) {
+				link(builder, u, v, randomCost(random));
+			}
+		}
+	}
+
+	private static void place(Random random, double x[], double y[]) {
+		for (int v = 0; v < x.length; v++) {
+			x[v] = random.nextDouble();
+			y[v] = random.nextDouble();
+		}
+	}
+
+	private int randomCost(Random random) {
+		return minCost + random.nextInt(maxCost - minCost + 1);
+	}
+
+//	cost from the bottom of the range for routers next to each other
+//	to the top for the longest link the shape allows
+	private int distanceCost(double d, double longest) {
+		return minCost + (int) Math.round((maxCost - minCost) * Math.min(1., d / longest));
+	}
+
+	private static void link(CsrGraph.Builder builder, int u, int v, int cost) {
+		builder.addEdge(u, v, cost);
+		builder.addEdge(v, u, cost);
+	}
+
+//	routers of the unit square bucketed in square cells at least as
+//	wide as the distance looked for, so only the next cells are searched
+	private static class Cells {
+		final int side;
+		final double width;
+		final int first[];		// routers of cell c are routers[first[c]] to first[c + 1] - 1
+		final int routers[];
+
+		Cells(double x[], double y[], double width) {
+			this.side = (int) Math.max(1, Math.min(2 * Math.ceil(Math.sqrt(x.length)), Math.floor(1. / width)));
+			this.width = 1. / side;
+			int n = x.length;
+			first = new int[side * side + 1];
+			routers = new int[n];
+			for (int v = 0; v < n; v++) {
+				first[index(x[v], y[v]) + 1]++;
+			}
+			for (int c = 0; c < side * side; c++) {
+				first[c + 1] += first[c];
+			}
+			int next[] = Arrays.copyOf(first, side * side);
+			for (int v = 0; v < n; v++) {
+				routers[next[index(x[v], y[v])]++] = v;
+			}
+		}
+
+		int cell(double coordinate) {
+			return Math.min(side - 1, (int) (coordinate / width));
+		}
+
+		private int index(double x, double y) {
+			return cell(x) * side + cell(y);
+		}
+
+	}
+
+//	saving a graph in one of the formats the loader reads, routers from 1
+	public static void write(CsrGraph graph, Path file, TopologyFormat format) throws IOException {
+		if (format == TopologyFormat.SNAPSHOT) {
+			GraphSnapshot.write(graph, file);
+			return;
+		}
+		int n = graph.vertexCount();
+		if (format == TopologyFormat.MATRIX && (long) n * n > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A matrix of " + n + " routers is too large, use the edge list");
+		}
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+			switch (format) {
+			case MATRIX:
+				int row[] = new int[n];
+				for (int u = 0; u < n; u++) {
+					Arrays.fill(row, -1);
+					row[u] = 0;
+					for (int e = graph.begin(u); e < graph.end(u); e++) {
+						row[graph.target(e)] = (int) graph.weight(e);
+					}
+					for (int v = 0; v < n; v++) {
+						if (v > 0) {
+							out.write(' ');
+						}
+						out.write(Integer.toString(row[v]));
+					}
+					out.newLine();
+				}
+				break;
+			case EDGE_LIST:
+				int highest = 0;
+				for (int u = 0; u < n; u++) {
+					for (int e = graph.begin(u); e < graph.end(u); e++) {
+						out.write((u + 1) + " " + (graph.target(e) + 1) + " " + (int) graph.weight(e));
+						out.newLine();
+						highest = Math.max(highest, Math.max(u, graph.target(e)) + 1);
+					}
+				}
+//				the loader counts routers up to the highest one it sees, a
+//				cost 0 line keeps trailing routers without links
+				if (highest < n) {
+					out.write(n + " " + n + " 0");
+					out.newLine();
+				}
+				break;
+			default:
+				for (int u = 0; u < n; u++) {
+					out.write((u + 1) + ":");
+					for (int e = graph.begin(u); e < graph.end(u); e++) {
+						out.write(" " + (graph.target(e) + 1) + " " + (int) graph.weight(e));
+					}
+					out.newLine();
+				}
+				break;
+			}
+		}
+	}
+}
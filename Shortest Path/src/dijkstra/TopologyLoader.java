@@ -0,0 +1,292 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the streaming loader for topology files
+ * 					- the file is memory mapped window by window and the digits
+ * 					are parsed straight from the bytes, no line or token strings
+ * 					- the matrix can be loaded into int[n][n] like loadFile does
+ * 					or its links sent straight to a CSR graph builder so the
+ * 					dense matrix never exists
+ * 					- edge list and adjacency list files (see TopologyFormat)
+ * 					are always loaded into the CSR graph
+ *
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TopologyLoader {
+
+//	size of the part of the file mapped at a time
+	static final int WINDOW = 64 << 20;
+
+//	receives the numbers of a matrix file as they are parsed
+	interface CellSink {
+		void cell(int row, int column, int value) throws IOException;
+
+//		called once a row with at least one number is complete
+		void endRow(int row, int columns) throws IOException;
+	}
+
+//	fills the dense matrix, the size is taken from the first row
+	private static class MatrixSink implements CellSink {
+		int graph[][];
+		int firstRow[] = new int[16];
+
+		public void cell(int row, int column, int value) throws IOException {
+			checkDistance(row, column, value);
+			if (graph == null) {
+				if (column == firstRow.length) {
+					firstRow = Arrays.copyOf(firstRow, column * 2);
+				}
+				firstRow[column] = value;
+				return;
+			}
+			if (row >= graph.length || column >= graph.length) {
+				throw new IOException("Topology matrix is larger than " + graph.length + " x " + graph.length
+						+ " at row " + (row + 1));
+			}
+			graph[row][column] = value;
+		}
+
+		public void endRow(int row, int columns) throws IOException {
+			if (graph == null) {
+//				the first row gives the number of routers
+				graph = new int[columns][];
+				graph[0] = Arrays.copyOf(firstRow, columns);
+				firstRow = null;
+				for (int i = 1; i < columns; i++) {
+					graph[i] = new int[columns];
+				}
+			} else if (columns != graph.length) {
+				throw new IOException("Row " + (row + 1) + " has " + columns + " distances, expected " + graph.length);
+			}
+		}
+	}
+
+//	links of the matrix go straight to the builder
+	private static class GraphSink implements CellSink {
+		final CsrGraph.Builder builder = new CsrGraph.Builder(0);
+		int columns = -1;
+
+		public void cell(int row, int column, int value) throws IOException {
+			checkDistance(row, column, value);
+			if (value != 0 && value != -1) {
+				builder.addEdge(row, column, value);
+			}
+		}
+
+		public void endRow(int row, int columns) throws IOException {
+			if (this.columns == -1) {
+				this.columns = columns;
+			} else if (columns != this.columns) {
+				throw new IOException("Row " + (row + 1) + " has " + columns + " distances, expected " + this.columns);
+			}
+		}
+	}
+
+//	one "from to cost" line per link, routers numbered from 1
+	private static class EdgeListSink implements CellSink {
+		final CsrGraph.Builder builder = new CsrGraph.Builder(0);
+		final int link[] = new int[3];
+
+		public void cell(int row, int column, int value) throws IOException {
+			if (column >= 3) {
+				throw new IOException("Link " + (row + 1) + " has more than from, to and cost");
+			}
+			link[column] = value;
+		}
+
+		public void endRow(int row, int columns) throws IOException {
+			if (columns != 3) {
+				throw new IOException("Link " + (row + 1) + " needs from, to and cost");
+			}
+			addLink(builder, row, link[0], link[1], link[2]);
+		}
+	}
+
+//	one "router: neighbour cost neighbour cost ..." line per router
+	private static class AdjacencySink implements CellSink {
+		final CsrGraph.Builder builder = new CsrGraph.Builder(0);
+		int router;
+		int neighbour;
+
+		public void cell(int row, int column, int value) throws IOException {
+			if (column == 0) {
+				if (value < 1) {
+					throw new IOException("Router " + value + " on line " + (row + 1) + " dose'nt exists");
+				}
+				router = value;
+				builder.ensureVertexCount(router);
+			} else if (column % 2 == 1) {
+				neighbour = value;
+			} else {
+				addLink(builder, row, router, neighbour, value);
+			}
+		}
+
+		public void endRow(int row, int columns) throws IOException {
+			if (columns % 2 == 0) {
+				throw new IOException("Router on line " + (row + 1) + " has a neighbour without a cost");
+			}
+		}
+	}
+
+//	-1 is the only negative distance of a matrix, a cost below it would
+//	give cheaper and cheaper paths round a loop
+	private static void checkDistance(int row, int column, int value) throws IOException {
+		if (value < -1) {
+			throw new IOException("Distance at row " + (row + 1) + " column " + (column + 1) + " is negative: " + value);
+		}
+	}
+
+//	routers are numbered from 1 in the files and from 0 in the graph
+//	cost 0 and -1 mean no link like in the matrix, but the routers
+//	still count so "n n 0" gives n routers when the last have no links
+	private static void addLink(CsrGraph.Builder builder, int row, int from, int to, int cost) throws IOException {
+		if (from < 1 || to < 1) {
+			throw new IOException("Link on line " + (row + 1) + " uses a router below 1");
+		}
+		if (cost < -1) {
+			throw new IOException("Link on line " + (row + 1) + " has negative cost " + cost);
+		}
+		builder.ensureVertexCount(Math.max(from, to));
+		if (cost != 0 && cost != -1) {
+			builder.addEdge(from - 1, to - 1, cost);
+		}
+	}
+
+//	loading the topology matrix, same result as Additional.loadFile
+	public static int[][] loadMatrix(Path file) throws IOException {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startLoad() : null;
+		MatrixSink sink = new MatrixSink();
+		int rows = scan(file, sink);
+		if (sink.graph == null) {
+			return new int[0][0];
+		}
+		if (rows != sink.graph.length) {
+			throw new IOException("Topology matrix has " + rows + " rows but " + sink.graph.length + " columns");
+		}
+		if (Metrics.ENABLED) {
+			Metrics.topologyLoaded(timer, rows);
+		}
+		return sink.graph;
+	}
+
+//	loading any topology file into a CSR graph, the format is detected
+	public static CsrGraph loadGraph(Path file) throws IOException {
+		return loadGraph(file, TopologyFormat.detect(file));
+	}
+
+	public static CsrGraph loadGraph(Path file, TopologyFormat format) throws IOException {
+		Metrics.Timer timer = Metrics.ENABLED ? Metrics.startLoad() : null;
+		CsrGraph graph;
+		switch (format) {
+		case EDGE_LIST:
+			EdgeListSink links = new EdgeListSink();
+			scan(file, links);
+			graph = links.builder.build();
+			break;
+		case ADJACENCY:
+			AdjacencySink adjacency = new AdjacencySink();
+			scan(file, adjacency);
+			graph = adjacency.builder.build();
+			break;
+		case SNAPSHOT:
+			graph = GraphSnapshot.map(file);
+			break;
+		default:
+			graph = loadMatrixGraph(file);
+		}
+		if (Metrics.ENABLED) {
+			Metrics.topologyLoaded(timer, graph.vertexCount());
+		}
+		return graph;
+	}
+
+//	loading the matrix file straight into a CSR graph
+//	0 and -1 mean no link, only the links are kept
+	static CsrGraph loadMatrixGraph(Path file) throws IOException {
+		GraphSink sink = new GraphSink();
+		int rows = scan(file, sink);
+		if (sink.columns != -1 && rows != sink.columns) {
+			throw new IOException("Topology matrix has " + rows + " rows but " + sink.columns + " columns");
+		}
+		sink.builder.ensureVertexCount(rows);
+		return sink.builder.build();
+	}
+
+//	parses every number in the file and returns the number of rows
+//	blank lines and # comments are skipped, rows are separated by new lines
+//	colons and commas separate numbers like spaces do
+	static int scan(Path file, CellSink sink) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int row = 0;
+			int column = 0;
+			int value = 0;
+			boolean negative = false;
+			boolean inNumber = false;
+			boolean comment = false;
+			long line = 1;
+			for (long position = 0; position < size; position += WINDOW) {
+				int length = (int) Math.min(WINDOW, size - position);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+//				the parser state carries over so a number may span two windows
+				for (int i = 0; i < length; i++) {
+					byte b = buffer.get(i);
+					if (comment && b != '\n') {
+						continue;
+					}
+					if (b >= '0' && b <= '9') {
+//						a long run of digits would wrap round to a wrong cost
+						if (value > (Integer.MAX_VALUE - (b - '0')) / 10) {
+							throw new IOException("Number on line " + line + " (row " + (row + 1)
+									+ ") is larger than " + Integer.MAX_VALUE);
+						}
+						value = value * 10 + (b - '0');
+						inNumber = true;
+					} else if (b == '-' && !inNumber && !negative) {
+						negative = true;
+					} else if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == ',' || b == ':') {
+						if (inNumber) {
+							sink.cell(row, column++, negative ? -value : value);
+						} else if (negative) {
+							throw new IOException("Lone '-' on line " + line);
+						}
+						value = 0;
+						negative = false;
+						inNumber = false;
+						if (b == '\n') {
+							if (column > 0) {
+								sink.endRow(row++, column);
+							}
+							column = 0;
+							comment = false;
+							line++;
+						}
+					} else if (b == '#' && !inNumber && !negative) {
+						comment = true;
+					} else {
+						throw new IOException("Unexpected character '" + (char) b + "' on line " + line);
+					}
+				}
+			}
+//			last row may have no new line at the end
+			if (inNumber) {
+				sink.cell(row, column++, negative ? -value : value);
+			}
+			if (column > 0) {
+				sink.endRow(row++, column);
+			}
+			return row;
+		}
+	}
+}
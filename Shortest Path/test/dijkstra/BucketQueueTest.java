@@ -0,0 +1,72 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the choice of Dial's buckets
+ * 					- only whole number costs of 0 or more up to the bucket
+ * 					limit get the bucket queue, anything else the heap
+ * 					- a matrix with a cost below -1 is refused when it is
+ * 					loaded and never reaches the buckets, Floyd-Warshall or
+ * 					the landmark bounds
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BucketQueueTest {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void bucketsOnlyForSmallWholeNumberCosts() {
+		CsrGraph small = new CsrGraph.Builder(3).addEdge(0, 1, 4).addEdge(1, 2, 0).build();
+		assertEquals(4, small.maxIntegerWeight());
+		assertTrue(Dijkstras.createQueue(small) instanceof BucketQueue, "small whole numbers");
+		CsrGraph fraction = new CsrGraph.Builder(2).addEdge(0, 1, 1.5).build();
+		assertEquals(-1, fraction.maxIntegerWeight());
+		assertFalse(Dijkstras.createQueue(fraction) instanceof BucketQueue, "fraction");
+		CsrGraph large = new CsrGraph.Builder(2).addEdge(0, 1, Dijkstras.bucketLimit + 1).build();
+		assertFalse(Dijkstras.createQueue(large) instanceof BucketQueue, "over the bucket limit");
+	}
+
+//	the matrix the buckets used to be chosen for, a link of -3 each way
+	@Test
+	void negativeCostsNeverReachTheBuckets() throws IOException {
+		int matrix[][] = { { 0, -3, 5 }, { -3, 0, 2 }, { 5, 2, 0 } };
+		CsrGraph graph = CsrGraph.fromMatrix(matrix);
+		assertEquals(-1, graph.maxIntegerWeight());
+		assertFalse(Dijkstras.createQueue(graph) instanceof BucketQueue, "negative costs get the heap");
+		assertFalse(FloydWarshall.isSuitable(graph), "Floyd-Warshall");
+		assertFalse(LandmarkQuery.isSuitable(graph), "landmark bounds");
+
+		Path file = folder.resolve("negative.txt");
+		Files.write(file, Arrays.asList("0 -3 5", "-3 0 2", "5 2 0"), StandardCharsets.US_ASCII);
+		IOException matrixError = assertThrows(IOException.class, () -> TopologyLoader.loadMatrix(file));
+		assertEquals("Distance at row 1 column 2 is negative: -3", matrixError.getMessage());
+		assertThrows(IOException.class, () -> TopologyLoader.loadGraph(file, TopologyFormat.MATRIX));
+	}
+
+//	one way negative links have no loop, the heap still gives the tree
+	@Test
+	void negativeLinkWithoutLoopRunsOnTheHeap() {
+		CsrGraph graph = CsrGraph.fromMatrix(new int[][] { { 0, 4, 1 }, { 0, 0, 0 }, { 0, -3, 0 } });
+		ShortestPathTree tree = Dijkstras.computePaths(graph, 0);
+		assertEquals(-2., tree.distanceTo(1));
+		assertEquals(2, tree.previous(1));
+	}
+}
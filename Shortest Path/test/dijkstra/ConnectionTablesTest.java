@@ -0,0 +1,50 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the parallel connection tables
+ * 					- the parallel, sequential and Floyd-Warshall tables must
+ * 					hold the next hops of the trees Dijkstras.computePaths gives
+ * 					- every other trial is a near full mesh so the parallel
+ * 					tables go through Floyd-Warshall as well
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ConnectionTablesTest {
+
+	static final int TRIALS = 40;
+
+	static CsrGraph graph(Random random, int trial) {
+		if (trial % 2 == 0) {
+			return RandomTopologies.graph(random, trial);
+		}
+		int n = 2 + random.nextInt(40);
+		return RandomTopologies.graph(random, n, 2 * n, 1 + random.nextInt(5), true);
+	}
+
+	@Test
+	void everyTableHoldsTheTreeNextHops() {
+		Random random = new Random(11);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = graph(random, trial);
+			int n = graph.vertexCount();
+			int parallel[][] = ConnectionTables.compute(graph);
+			int sequential[][] = ConnectionTables.computeSequential(graph);
+			int allPairs[][] = FloydWarshall.connectionTables(graph);
+			for (int s = 0; s < n; s++) {
+				int want[] = RandomTopologies.reference(graph, s).nextHops();
+				assertArrayEquals(want, parallel[s], "parallel row " + s);
+				assertArrayEquals(want, sequential[s], "sequential row " + s);
+				assertArrayEquals(want, allPairs[s], "Floyd-Warshall row " + s);
+			}
+		}
+	}
+}
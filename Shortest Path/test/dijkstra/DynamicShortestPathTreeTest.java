@@ -0,0 +1,98 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the incremental shortest path tree
+ * 					- random sequences of router removals, link removals and
+ * 					cost changes, up and down, are applied to the tree
+ * 					- after every step the tree must be the one a full
+ * 					Dijkstras.computePaths run gives on the changed graph,
+ * 					previous routers included
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DynamicShortestPathTreeTest {
+
+	static final int TRIALS = 60;
+
+	@Test
+	void everyStepMatchesAFullRecompute() {
+		Random random = new Random(41);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			int source = random.nextInt(n);
+			DynamicShortestPathTree tree = new DynamicShortestPathTree(graph, source);
+//			cost of every link slot as the tree should see it
+			double weight[] = new double[graph.edgeCount()];
+			for (int e = 0; e < weight.length; e++) {
+				weight[e] = graph.weight(e);
+			}
+			assertTree(graph, weight, tree, "first tree");
+			for (int step = 0; step < 40 && graph.edgeCount() > 0; step++) {
+				String change;
+				int choice = random.nextInt(10);
+				if (choice == 0) {
+					int router = random.nextInt(n);
+					tree.removeRouter(router);
+					for (int u = 0; u < n; u++) {
+						for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+							if (u == router || graph.target(e) == router) {
+								weight[e] = Double.POSITIVE_INFINITY;
+							}
+						}
+					}
+					change = "remove router " + router;
+				} else {
+//					a link of the graph, the tree changes the first of parallel links
+					int u;
+					do {
+						u = random.nextInt(n);
+					} while (graph.degree(u) == 0);
+					int v = graph.target(graph.begin(u) + random.nextInt(graph.degree(u)));
+					int e = graph.findEdge(u, v);
+					if (choice == 1) {
+						tree.removeLink(u, v);
+						weight[e] = Double.POSITIVE_INFINITY;
+						change = "remove link " + u + " " + v;
+					} else {
+						double cost = 1 + random.nextInt(choice < 6 ? 20 : 3);
+						tree.setLinkCost(u, v, cost);
+						weight[e] = cost;
+						change = "link " + u + " " + v + " cost " + cost;
+					}
+				}
+				assertTree(graph, weight, tree, "trial " + trial + " step " + step + " " + change);
+			}
+		}
+	}
+
+	private static void assertTree(CsrGraph graph, double weight[], DynamicShortestPathTree tree, String message) {
+		int n = graph.vertexCount();
+		CsrGraph.Builder builder = new CsrGraph.Builder(n);
+		for (int u = 0; u < n; u++) {
+			for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+				if (weight[e] != Double.POSITIVE_INFINITY) {
+					builder.addEdge(u, graph.target(e), weight[e]);
+				}
+			}
+		}
+		ShortestPathTree want = RandomTopologies.reference(builder.build(), tree.source());
+		ShortestPathTree got = tree.snapshot();
+		for (int t = 0; t < n; t++) {
+			assertEquals(want.distanceTo(t), got.distanceTo(t), message + ", distance to " + t);
+			assertEquals(want.distanceTo(t), tree.distanceTo(t), message + ", distance to " + t);
+			assertEquals(want.previous(t), got.previous(t), message + ", previous of " + t);
+		}
+		assertArrayEquals(want.nextHops(), got.nextHops(), message + ", next hops");
+	}
+}
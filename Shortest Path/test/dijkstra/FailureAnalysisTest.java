@@ -0,0 +1,209 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the failure analysis
+ * 					- the costs a scenario changed are checked against full
+ * 					shortest path runs on a copy of the graph without the
+ * 					failed routers and links
+ * 					- single routers, single links and router pairs are tried,
+ * 					a link fails both ways unless the scenario file says oneway
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FailureAnalysisTest {
+
+	static final int TRIALS = 20;
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void changedCostsMatchARecompute() {
+		Random random = new Random(21);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			FailureAnalysis analysis = new FailureAnalysis(graph);
+			List<FailureAnalysis.Scenario> scenarios = new ArrayList<FailureAnalysis.Scenario>();
+			List<int[]> failed = new ArrayList<int[]>();
+			for (int r = 0; r < n; r++) {
+				failed.add(new int[] { r });
+			}
+			scenarios.addAll(FailureAnalysis.singleRouters(n));
+			List<FailureAnalysis.Scenario> pairs = FailureAnalysis.routerPairs(n);
+			for (int i = 0; i < 20; i++) {
+				int index = random.nextInt(pairs.size());
+				FailureAnalysis.Scenario pair = pairs.get(index);
+				scenarios.add(pair);
+				failed.add(pairRouters(n, index));
+			}
+			for (int s = 0; s < scenarios.size(); s++) {
+				CsrGraph after = graph;
+				for (int r : failed.get(s)) {
+					after = after.withoutRouter(r);
+				}
+				assertChanges(graph, after, failed.get(s), analysis.analyze(scenarios.get(s)));
+			}
+//			parallel links fail together and a link fails both ways,
+//			one scenario for every pair of linked routers
+			Map<String, int[]> linked = new HashMap<String, int[]>();
+			for (int u = 0; u < n; u++) {
+				for (int v = 0; v < n; v++) {
+					if (graph.findEdge(u, v) != -1 && (u < v || graph.findEdge(v, u) == -1)) {
+						linked.put("link " + (u + 1) + " " + (v + 1), new int[] { u, v });
+					}
+				}
+			}
+			List<FailureAnalysis.Scenario> links = FailureAnalysis.singleLinks(graph);
+			assertEquals(linked.size(), links.size(), "link scenarios");
+			for (FailureAnalysis.Scenario link : links) {
+				int pair[] = linked.remove(link.toString());
+				assertNotNull(pair, link + " is a pair of linked routers named once");
+				assertChanges(graph, graph.withLinkCost(pair[0], pair[1], -1).withLinkCost(pair[1], pair[0], -1),
+						new int[0], analysis.analyze(link));
+			}
+		}
+	}
+
+	@Test
+	void scenarioFileFailsLinksBothWaysUnlessOneWay() throws IOException {
+		Random random = new Random(22);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			if (graph.edgeCount() == 0) {
+				continue;
+			}
+			FailureAnalysis analysis = new FailureAnalysis(graph);
+			StringBuilder file = new StringBuilder("# random failures\n");
+			List<CsrGraph> after = new ArrayList<CsrGraph>();
+			List<int[]> failed = new ArrayList<int[]>();
+			for (int line = 0; line < 20; line++) {
+				CsrGraph changed = graph;
+				StringBuilder scenario = new StringBuilder();
+				int router = -1;
+				if (n > 2 && random.nextInt(3) == 0) {
+					router = random.nextInt(n);
+					changed = changed.withoutRouter(router);
+					scenario.append("router ").append(router + 1);
+				}
+				for (int links = 1 + random.nextInt(2); links > 0; links--) {
+					int e = random.nextInt(graph.edgeCount());
+					int u = 0;
+					while (graph.end(u) <= e) {
+						u++;
+					}
+					int v = graph.target(e);
+					boolean oneWay = random.nextBoolean();
+					changed = changed.withLinkCost(u, v, -1);
+					if (!oneWay) {
+						changed = changed.withLinkCost(v, u, -1);
+					}
+					scenario.append(scenario.length() > 0 ? ", " : "").append("link ").append(u + 1).append(' ')
+							.append(v + 1).append(oneWay ? " oneway" : "");
+				}
+				file.append(scenario).append('\n');
+				after.add(changed);
+				failed.add(router == -1 ? new int[0] : new int[] { router });
+			}
+			Path path = folder.resolve("scenarios" + trial + ".txt");
+			Files.write(path, file.toString().getBytes(StandardCharsets.UTF_8));
+			List<FailureAnalysis.Scenario> scenarios = FailureAnalysis.load(path, graph);
+			String lines[] = file.toString().split("\n");
+			assertEquals(after.size(), scenarios.size(), "scenarios read");
+			for (int i = 0; i < scenarios.size(); i++) {
+				assertEquals(lines[i + 1], scenarios.get(i).toString(), "scenario " + i + " as read");
+				assertChanges(graph, after.get(i), failed.get(i), analysis.analyze(scenarios.get(i)));
+			}
+		}
+	}
+
+	@Test
+	void scenarioFileErrors() throws IOException {
+		CsrGraph graph = new CsrGraph.Builder(3).addEdge(0, 1, 1).addEdge(1, 2, 1).build();
+		assertLoadError(graph, "link 2 1\nlink 1 3\n", "No link between router 1 and router 3 on line 2");
+		assertLoadError(graph, "link 2 1 oneway\n", "No link from router 2 to router 1 on line 1");
+		assertLoadError(graph, "link 1 2 both\n",
+				"Scenario on line 1 needs \"router r\", \"link u v\" or \"link u v oneway\"");
+		assertLoadError(graph, "router 4\n", "Router 4 on line 1 dose'nt exists");
+	}
+
+	private void assertLoadError(CsrGraph graph, String text, String message) throws IOException {
+		Path path = folder.resolve("bad.txt");
+		Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+		assertEquals(message, assertThrows(IOException.class, () -> FailureAnalysis.load(path, graph)).getMessage());
+	}
+
+//	the pair a router pair scenario fails, counted the slow way
+	private static int[] pairRouters(int n, int index) {
+		for (int a = 0; a < n; a++) {
+			for (int b = a + 1; b < n; b++) {
+				if (index-- == 0) {
+					return new int[] { a, b };
+				}
+			}
+		}
+		throw new IllegalArgumentException("No pair " + index);
+	}
+
+	@Test
+	void routerPairsAreEveryPairOnce() {
+		for (int n = 0; n < 30; n++) {
+			List<FailureAnalysis.Scenario> pairs = FailureAnalysis.routerPairs(n);
+			assertEquals(n * (n - 1) / 2, pairs.size(), "pairs of " + n);
+			for (int i = 0; i < pairs.size(); i++) {
+				int want[] = pairRouters(n, i);
+				assertEquals("router " + (want[0] + 1) + ", router " + (want[1] + 1), pairs.get(i).toString(),
+						"pair " + i + " of " + n);
+			}
+		}
+	}
+
+	private static void assertChanges(CsrGraph before, CsrGraph after, int failed[], FailureAnalysis.Result result) {
+		int n = before.vertexCount();
+		boolean isFailed[] = new boolean[n];
+		for (int r : failed) {
+			isFailed[r] = true;
+		}
+		Set<String> want = new TreeSet<String>();
+		for (int s = 0; s < n; s++) {
+			if (isFailed[s]) {
+				continue;
+			}
+			ShortestPathTree treeBefore = RandomTopologies.reference(before, s);
+			ShortestPathTree treeAfter = RandomTopologies.reference(after, s);
+			for (int t = 0; t < n; t++) {
+				if (!isFailed[t] && treeBefore.distanceTo(t) != treeAfter.distanceTo(t)) {
+					want.add(s + " " + t + " " + treeBefore.distanceTo(t) + " " + treeAfter.distanceTo(t));
+				}
+			}
+		}
+		Set<String> got = new TreeSet<String>();
+		for (int i = 0; i < result.changedCount(); i++) {
+			got.add(result.source(i) + " " + result.target(i) + " " + result.costBefore(i) + " " + result.costAfter(i));
+		}
+		assertEquals(want, got, result.scenario().toString());
+	}
+}
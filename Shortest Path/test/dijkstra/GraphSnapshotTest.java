@@ -0,0 +1,122 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the binary topology snapshot
+ * 					- random graphs are written and mapped back, with and
+ * 					without verification, and must have the same links and
+ * 					the same shortest paths
+ * 					- a changed byte fails the checksum, a file cut short or
+ * 					with a wrong header fails on every load, a bad link with
+ * 					a good checksum fails the structure check
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphSnapshotTest {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void mappedGraphIsTheGraphWritten() throws IOException {
+		Random random = new Random(51);
+		for (int trial = 0; trial < 30; trial++) {
+			CsrGraph graph = trial == 0 ? new CsrGraph.Builder(1).build() : RandomTopologies.graph(random, trial);
+			Path file = folder.resolve("graph" + trial + ".snap");
+			GraphSnapshot.write(graph, file);
+			assertEquals(TopologyFormat.SNAPSHOT, TopologyFormat.detect(file));
+			for (CsrGraph mapped : Arrays.asList(GraphSnapshot.map(file, true), GraphSnapshot.map(file, false),
+					TopologyLoader.loadGraph(file))) {
+				assertTrue(mapped.isMapped(), "read in place");
+				RandomTopologies.assertSameGraph(graph, mapped);
+				for (int s = 0; s < graph.vertexCount(); s++) {
+					assertArrayEquals(RandomTopologies.reference(graph, s).nextHops(),
+							RandomTopologies.reference(mapped, s).nextHops(), "next hops of " + s);
+				}
+			}
+		}
+	}
+
+	@Test
+	void changedByteFailsTheChecksum() throws IOException {
+		CsrGraph graph = RandomTopologies.graph(new Random(52), 40, 3, 9, true);
+		Path file = folder.resolve("changed.snap");
+		GraphSnapshot.write(graph, file);
+		byte bytes[] = Files.readAllBytes(file);
+//		a cost byte, the structure is still sound so only the checksum sees it
+		bytes[GraphSnapshot.HEADER_SIZE + 3] ^= 1;
+		Files.write(file, bytes);
+		IOException error = assertThrows(IOException.class, () -> GraphSnapshot.map(file, true));
+		assertTrue(error.getMessage().endsWith("failed its checksum"), error.getMessage());
+//		the fast load does not read the payload
+		assertEquals(graph.vertexCount(), GraphSnapshot.map(file, false).vertexCount());
+	}
+
+	@Test
+	void badLinkWithAGoodChecksumFailsTheStructureCheck() throws IOException {
+		CsrGraph graph = RandomTopologies.graph(new Random(53), 20, 3, 9, true);
+		Path file = folder.resolve("link.snap");
+		GraphSnapshot.write(graph, file);
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+		int n = graph.vertexCount();
+		int m = graph.edgeCount();
+		int targetsAt = GraphSnapshot.HEADER_SIZE + 8 * m + 4 * (n + 1);
+		bytes.putInt(targetsAt, n + 5);
+		CRC32 crc = new CRC32();
+		crc.update(bytes.array(), GraphSnapshot.HEADER_SIZE, bytes.capacity() - GraphSnapshot.HEADER_SIZE);
+		bytes.putLong(16, crc.getValue());
+		Files.write(file, bytes.array());
+		IOException error = assertThrows(IOException.class, () -> GraphSnapshot.map(file, true));
+		assertEquals("Snapshot " + file + " has link 0 to router " + (n + 6) + " of " + n, error.getMessage());
+	}
+
+	@Test
+	void brokenFilesFailOnEveryLoad() throws IOException {
+		CsrGraph graph = RandomTopologies.graph(new Random(54), 20, 3, 9, true);
+		Path file = folder.resolve("broken.snap");
+		GraphSnapshot.write(graph, file);
+		byte good[] = Files.readAllBytes(file);
+
+		Files.write(file, Arrays.copyOf(good, good.length - 4));
+		assertBroken(file, "bytes, expected");
+		Files.write(file, Arrays.copyOf(good, 10));
+		assertBroken(file, "shorter than its header");
+
+		byte version[] = good.clone();
+		version[4] = 9;
+		Files.write(file, version);
+		assertBroken(file, "is not supported");
+
+		byte offsets[] = good.clone();
+		ByteBuffer.wrap(offsets).order(ByteOrder.LITTLE_ENDIAN).putInt(GraphSnapshot.HEADER_SIZE
+				+ 8 * graph.edgeCount() + 4 * graph.vertexCount(), graph.edgeCount() - 1);
+		Files.write(file, offsets);
+		assertBroken(file, "has corrupt offsets");
+	}
+
+	private static void assertBroken(Path file, String message) {
+		for (boolean verify : new boolean[] { true, false }) {
+			IOException error = assertThrows(IOException.class, () -> GraphSnapshot.map(file, verify));
+			assertTrue(error.getMessage().contains(message), error.getMessage());
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the link state update pipeline
+ * 					- random updates go through the queue and RouteService and
+ * 					the published topology must route like a full recompute
+ * 					of the same changes, the tables a batch altered are
+ * 					computed again before the batch is done
+ * 					- a batch stops at the largest size and with no hold-down
+ * 					window takes only what was already waiting
+ * 					- stop applies what is still queued and a batch that fails
+ * 					does not end the batch thread
+ * 					- a cost that is not a finite number above 0 or -1 is
+ * 					refused when it is submitted
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LinkStateUpdatesTest {
+
+	@Test
+	void batchesRouteLikeAFullRecompute() throws InterruptedException {
+		Random random = new Random(31);
+		for (int trial = 0; trial < 10; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			RouteService service = new RouteService(graph);
+			LinkStateUpdates updates = new LinkStateUpdates(service, random.nextInt(3), 16);
+			updates.start();
+			try {
+				CsrGraph want = graph;
+				for (int round = 0; round < 10; round++) {
+//					some trees are cached so the cache has to drop the right ones
+					for (int s = 0; s < n; s += 1 + random.nextInt(3)) {
+						service.snapshot().shortestPaths(s);
+					}
+					for (int i = 0, count = 1 + random.nextInt(30); i < count; i++) {
+						int u = random.nextInt(n);
+						int v = (u + 1 + random.nextInt(n - 1)) % n;
+						double cost = random.nextInt(4) == 0 ? -1 : 1 + random.nextInt(5);
+						updates.submit(u, v, cost);
+						want = want.withLinkCost(u, v, cost);
+					}
+					updates.awaitProcessed();
+					RouteService.Snapshot snapshot = service.snapshot();
+					for (int s = 0; s < n; s++) {
+						assertArrayEquals(RandomTopologies.reference(want, s).nextHops(),
+								snapshot.shortestPaths(s).nextHops(), "round " + round + " router " + s);
+					}
+				}
+			} finally {
+				updates.stop();
+			}
+			assertEquals(updates.received(), updates.processed(), "every update processed");
+			assertEquals(0, updates.failed(), "no batch failed");
+		}
+	}
+
+	@Test
+	void stopAppliesQueuedUpdates() throws InterruptedException {
+		Random random = new Random(32);
+		RouteService service = new RouteService(RandomTopologies.graph(random, 100, 3, 5, true));
+		LinkStateUpdates updates = new LinkStateUpdates(service, 20, 8);
+		updates.start();
+		for (int i = 0; i < 200; i++) {
+			int u = random.nextInt(100);
+			updates.submit(u, (u + 1 + random.nextInt(99)) % 100, 1 + random.nextInt(9));
+		}
+		updates.stop();
+		assertEquals(200, updates.received(), "updates received");
+		assertEquals(200, updates.processed(), "updates processed before the thread ended");
+		assertThrows(IllegalStateException.class, () -> updates.submit(0, 1, 3));
+	}
+
+	@Test
+	void costsThatAreNotFiniteAreRefused() throws InterruptedException {
+		LinkStateUpdates updates = new LinkStateUpdates(
+				new RouteService(RandomTopologies.graph(new Random(34), 10, 3, 5, true)), 0, 8);
+		for (double cost : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, -2 }) {
+			assertThrows(IllegalArgumentException.class, () -> updates.submit(0, 1, cost), "cost " + cost);
+		}
+		updates.submit(0, 1, -1);
+		updates.submit(1, 2, 0.5);
+		assertEquals(2, updates.received(), "updates received");
+	}
+
+//	the trees a batch dropped are in the cache again when it is done
+	@Test
+	void batchRecomputesTheTablesItAltered() throws InterruptedException {
+		Random random = new Random(37);
+		CsrGraph graph = RandomTopologies.graph(random, 60, 3, 5, true);
+		RouteService service = new RouteService(graph);
+		for (int s = 0; s < 60; s++) {
+			service.snapshot().shortestPaths(s);
+		}
+		LinkStateUpdates updates = new LinkStateUpdates(service, 0, 64);
+		updates.start();
+		int u = 0;
+		int v = graph.target(graph.begin(u));
+		updates.submit(u, v, -1);
+		updates.awaitProcessed();
+		updates.stop();
+		assertTrue(updates.rowsRecomputed() > 0, "the tree of router 1 used its own link");
+		ShortestPathCache cache = service.cache();
+		long misses = cache.misses();
+		CsrGraph want = graph.withLinkCost(u, v, -1);
+		for (int s = 0; s < 60; s++) {
+			assertArrayEquals(RandomTopologies.reference(want, s).nextHops(),
+					service.snapshot().shortestPaths(s).nextHops(), "router " + s);
+		}
+		assertEquals(misses, cache.misses(), "every table was ready");
+	}
+
+	@Test
+	void batchesStopAtTheLargestSize() throws InterruptedException {
+		int largest = LinkStateUpdates.maxBatchUpdates;
+		LinkStateUpdates.maxBatchUpdates = 10;
+		try {
+			RouteService service = new RouteService(RandomTopologies.graph(new Random(35), 50, 3, 5, true));
+			LinkStateUpdates updates = new LinkStateUpdates(service, 200, 128);
+			for (int i = 0; i < 100; i++) {
+				updates.submit(i % 50, (i + 1) % 50, 1 + i % 7);
+			}
+			updates.start();
+			updates.awaitProcessed();
+			updates.stop();
+			assertEquals(10, updates.maxBatch(), "largest batch");
+			assertEquals(10, updates.batches(), "batches");
+		} finally {
+			LinkStateUpdates.maxBatchUpdates = largest;
+		}
+	}
+
+//	with no window a batch is what was queued when it started
+	@Test
+	void noHoldDownTakesWhatIsWaiting() throws InterruptedException {
+		RouteService service = new RouteService(RandomTopologies.graph(new Random(36), 50, 3, 5, true));
+		LinkStateUpdates updates = new LinkStateUpdates(service, 0, 128);
+		for (int i = 0; i < 30; i++) {
+			updates.submit(i % 50, (i + 1) % 50, 2);
+		}
+		updates.start();
+		updates.awaitProcessed();
+		updates.submit(0, 2, 3);
+		updates.awaitProcessed();
+		updates.stop();
+		assertEquals(2, updates.batches(), "batches");
+		assertEquals(30, updates.maxBatch(), "largest batch");
+	}
+
+	@Test
+	void failedBatchKeepsThePipelineRunning() throws InterruptedException {
+		final int calls[] = { 0 };
+		RouteService service = new RouteService(RandomTopologies.graph(new Random(33), 20, 3, 5, true)) {
+			public synchronized RouteService.LinkChanges setLinkCosts(int from[], int to[], double cost[], int count) {
+				if (calls[0]++ == 0) {
+					throw new IllegalStateException("first batch fails");
+				}
+				return super.setLinkCosts(from, to, cost, count);
+			}
+		};
+		LinkStateUpdates updates = new LinkStateUpdates(service, 0, 8);
+		updates.start();
+		try {
+			updates.submit(0, 5, 2);
+			updates.awaitProcessed();
+			updates.submit(0, 6, 2);
+			updates.awaitProcessed();
+		} finally {
+			updates.stop();
+		}
+		assertEquals(2, updates.batches(), "batches");
+		assertEquals(1, updates.failed(), "updates of failed batches");
+		assertEquals(2, updates.processed(), "updates processed");
+		assertEquals(2., service.snapshot().graph().weight(service.snapshot().graph().findEdge(0, 6)), "cost of 1 7");
+	}
+}
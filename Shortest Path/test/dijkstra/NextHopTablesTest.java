@@ -0,0 +1,49 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the compact next hop tables
+ * 					- the dense and run length tables must give the rows of
+ * 					the trees Dijkstras.computePaths gives, one lookup at a time
+ * 					and a row at a time
+ * 					- a table rebuilt from another must hold the same rows
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class NextHopTablesTest {
+
+	static final int TRIALS = 40;
+
+	@Test
+	void tablesHoldTheTreeNextHops() {
+		Random random = new Random(12);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = ConnectionTablesTest.graph(random, trial);
+			int n = graph.vertexCount();
+			DenseNextHopTable dense = DenseNextHopTable.compute(graph);
+			RunLengthNextHopTable runs = RunLengthNextHopTable.compute(graph);
+			RunLengthNextHopTable copy = RunLengthNextHopTable.of(dense);
+			assertEquals(n, dense.routerCount(), "dense routers");
+			assertEquals(n, runs.routerCount(), "run length routers");
+			for (int s = 0; s < n; s++) {
+				int want[] = RandomTopologies.reference(graph, s).nextHops();
+				assertArrayEquals(want, dense.row(s), "dense row " + s);
+				assertArrayEquals(want, runs.row(s), "run length row " + s);
+				assertArrayEquals(want, copy.row(s), "copied row " + s);
+				for (int t = 0; t < n; t++) {
+					assertEquals(want[t], dense.nextHop(s, t), "dense " + s + " to " + t);
+					assertEquals(want[t], runs.nextHop(s, t), "run length " + s + " to " + t);
+				}
+			}
+		}
+	}
+}
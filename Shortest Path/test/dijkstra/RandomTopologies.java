@@ -0,0 +1,116 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the small random topologies and the
+ * 					reference results the engine tests compare against
+ * 					- graphs may be one way or both ways, have parallel links
+ * 					and routers nobody reaches, so the corner cases come up
+ * 					- costs are small whole numbers so equal cost paths are
+ * 					common and the tie rule is exercised
+ * 					- the reference is Dijkstras.computePaths, checked itself
+ * 					against Bellman-Ford
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+final class RandomTopologies {
+
+	private RandomTopologies() {
+	}
+
+//	degree links tried per router, a link to the router itself is skipped
+	static CsrGraph graph(Random random, int n, int degree, int maxCost, boolean bothWays) {
+		CsrGraph.Builder builder = new CsrGraph.Builder(n);
+		for (int u = 0; u < n; u++) {
+			for (int j = 0; j < degree; j++) {
+				int v = random.nextInt(n);
+				if (v == u) {
+					continue;
+				}
+				int cost = 1 + random.nextInt(maxCost);
+				builder.addEdge(u, v, cost);
+				if (bothWays) {
+					builder.addEdge(v, u, cost);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+//	one of a few shapes picked by the trial number, from 2 to 60 routers
+	static CsrGraph graph(Random random, int trial) {
+		int n = 2 + random.nextInt(59);
+		return graph(random, n, 1 + random.nextInt(4), trial % 3 == 0 ? 2 : 1 + random.nextInt(20), trial % 2 == 0);
+	}
+
+	static ShortestPathTree reference(CsrGraph graph, int source) {
+		return Dijkstras.computePaths(graph, source);
+	}
+
+//	distances by Bellman-Ford, nothing shared with the engines
+	static double[] bellmanFord(CsrGraph graph, int source) {
+		int n = graph.vertexCount();
+		double distance[] = new double[n];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		distance[source] = 0.;
+		for (boolean changed = true; changed;) {
+			changed = false;
+			for (int u = 0; u < n; u++) {
+				for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+					double through = distance[u] + graph.weight(e);
+					if (through < distance[graph.target(e)]) {
+						distance[graph.target(e)] = through;
+						changed = true;
+					}
+				}
+			}
+		}
+		return distance;
+	}
+
+//	cheapest link from u to v, infinity when there is none
+	static double cheapestLink(CsrGraph graph, int u, int v) {
+		double cost = Double.POSITIVE_INFINITY;
+		for (int e = graph.begin(u), end = graph.end(u); e < end; e++) {
+			if (graph.target(e) == v) {
+				cost = Math.min(cost, graph.weight(e));
+			}
+		}
+		return cost;
+	}
+
+//	the path goes from source to target over links of the graph and costs cost
+	static void assertPath(CsrGraph graph, int path[], int source, int target, double cost) {
+		assertEquals(source, path[0], "path starts at the source");
+		assertEquals(target, path[path.length - 1], "path ends at the target");
+		double sum = 0.;
+		for (int i = 1; i < path.length; i++) {
+			double link = cheapestLink(graph, path[i - 1], path[i]);
+			assertTrue(link != Double.POSITIVE_INFINITY, "no link from " + path[i - 1] + " to " + path[i]);
+			sum += link;
+		}
+		assertEquals(cost, sum, "cost of " + Arrays.toString(path));
+	}
+
+//	same routers and the same links in the same order
+	static void assertSameGraph(CsrGraph want, CsrGraph got) {
+		assertEquals(want.vertexCount(), got.vertexCount(), "routers");
+		assertEquals(want.edgeCount(), got.edgeCount(), "links");
+		for (int u = 0; u < want.vertexCount(); u++) {
+			assertEquals(want.begin(u), got.begin(u), "first link of " + u);
+			assertEquals(want.end(u), got.end(u), "end of the links of " + u);
+		}
+		for (int e = 0; e < want.edgeCount(); e++) {
+			assertEquals(want.target(e), got.target(e), "target of link " + e);
+			assertEquals(want.weight(e), got.weight(e), "cost of link " + e);
+		}
+	}
+}
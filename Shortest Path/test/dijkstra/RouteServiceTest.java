@@ -0,0 +1,146 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the HTTP route service
+ * 					- routes, k paths and connection tables are asked over
+ * 					HTTP and compared with the same lines computed
+ * 					directly on the graph, before and after link changes
+ * 					and router removals posted to the service
+ * 					- bad routers, costs that are not a finite number above 0
+ * 					or -1 and unknown requests are refused
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RouteServiceTest {
+
+	RouteService service;
+	InetSocketAddress address;
+
+	@AfterEach
+	void stop() {
+		if (service != null) {
+			service.stop();
+		}
+	}
+
+	private void start(CsrGraph graph) throws IOException {
+		service = new RouteService(graph);
+		address = service.start(0);
+	}
+
+	@Test
+	void answersMatchTheGraphAcrossChanges() throws IOException {
+		Random random = new Random(61);
+		CsrGraph graph = RandomTopologies.graph(random, 12, 3, 9, true);
+		start(graph);
+		for (int change = 0; change < 8; change++) {
+			assertEquals(change + "\n", request("GET", "/version", 200), "version");
+			int n = graph.vertexCount();
+			for (int s = 0; s < n; s++) {
+				ShortestPathTree want = RandomTopologies.reference(graph, s);
+				StringBuilder table = new StringBuilder();
+				BatchQueries.appendTable(table, s, want.nextHops());
+				assertEquals(table.toString(), request("GET", "/table?src=" + (s + 1), 200), "table of " + s);
+				for (int t = 0; t < n; t++) {
+					StringBuilder route = new StringBuilder();
+					BatchQueries.appendRoute(route, s, t, want.distanceTo(t), want.pathTo(t));
+					assertEquals(route.toString(), request("GET", "/route?src=" + (s + 1) + "&dst=" + (t + 1), 200),
+							"route " + s + " to " + t);
+				}
+				int t = random.nextInt(n);
+				int k = 1 + random.nextInt(5);
+				StringBuilder paths = new StringBuilder();
+				for (Route route : KShortestPaths.compute(graph, s, t, k)) {
+					BatchQueries.appendRoute(paths, s, t, route.cost(), route.path());
+				}
+				if (paths.length() == 0) {
+					BatchQueries.appendRoute(paths, s, t, Double.POSITIVE_INFINITY, new int[] { t });
+				}
+				assertEquals(paths.toString(),
+						request("GET", "/paths?src=" + (s + 1) + "&dst=" + (t + 1) + "&k=" + k, 200),
+						k + " paths " + s + " to " + t);
+			}
+//			a link taken out, given a new cost, or a router taken out
+			int u = random.nextInt(n);
+			int v = (u + 1 + random.nextInt(n - 1)) % n;
+			if (change == 5) {
+				graph = graph.withoutRouter(u);
+				assertEquals((change + 1) + "\n", request("POST", "/remove?router=" + (u + 1), 200), "removal");
+			} else {
+				int cost = change % 3 == 0 ? -1 : 1 + random.nextInt(9);
+				graph = graph.withLinkCost(u, v, cost);
+				assertEquals((change + 1) + "\n",
+						request("POST", "/link?from=" + (u + 1) + "&to=" + (v + 1) + "&cost=" + cost, 200), "link");
+			}
+		}
+	}
+
+	@Test
+	void badRequestsAreRefused() throws IOException {
+		start(RandomTopologies.graph(new Random(62), 6, 2, 9, true));
+		assertEquals("Router 7 dose'nt exists\n", request("GET", "/route?src=1&dst=7", 400));
+		assertEquals("Missing parameter dst\n", request("GET", "/route?src=1", 400));
+		assertEquals("Parameter src is not a router: 1.5\n", request("GET", "/table?src=1.5", 400));
+		assertEquals("Parameter k must be a whole number from 1 to " + RouteService.maxPaths + ": 0\n",
+				request("GET", "/paths?src=1&dst=2&k=0", 400));
+		for (String cost : new String[] { "NaN", "Infinity", "-Infinity", "0", "-2", "x" }) {
+			request("POST", "/link?from=1&to=2&cost=" + cost, 400);
+		}
+		assertEquals("Link cost must be positive or -1: NaN\n", request("POST", "/link?from=1&to=2&cost=NaN", 400));
+		assertEquals("Unknown request GET /link\n", request("GET", "/link?from=1&to=2&cost=3", 404));
+		request("GET", "/nowhere", 404);
+//		nothing refused was published
+		assertEquals("0\n", request("GET", "/version", 200));
+	}
+
+	@Test
+	void costsThatAreNotFiniteAreRefused() {
+		RouteService offline = new RouteService(RandomTopologies.graph(new Random(63), 6, 2, 9, true));
+		for (double cost : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, -0.5 }) {
+			assertThrows(IllegalArgumentException.class, () -> offline.setLinkCost(0, 1, cost), "cost " + cost);
+			assertThrows(IllegalArgumentException.class,
+					() -> offline.setLinkCosts(new int[] { 0 }, new int[] { 1 }, new double[] { cost }, 1),
+					"batch cost " + cost);
+		}
+		assertEquals(0, offline.snapshot().version());
+	}
+
+	private String request(String method, String path, int status) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(),
+				address.getPort(), path).openConnection();
+		connection.setRequestMethod(method);
+//		a connection per request, kept alive each one waits on a delayed ack
+		connection.setRequestProperty("Connection", "close");
+		try {
+			assertEquals(status, connection.getResponseCode(), method + " " + path);
+			try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				byte buffer[] = new byte[4096];
+				for (int read; (read = in.read(buffer)) != -1;) {
+					body.write(buffer, 0, read);
+				}
+				return new String(body.toByteArray(), StandardCharsets.UTF_8);
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
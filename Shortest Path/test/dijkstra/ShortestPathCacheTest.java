@@ -0,0 +1,137 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the differential tests of the shortest path cache
+ * 					- a cache full of trees goes through random router removals,
+ * 					link changes and batches of link changes, every tree it
+ * 					carries over to the new version must be the tree a new
+ * 					run on the new graph gives
+ * 					- a batch returns exactly the sources whose trees it dropped
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ShortestPathCacheTest {
+
+	@Test
+	void carriedOverTreesMatchARecompute() {
+		Random random = new Random(71);
+		long carried = 0;
+		long dropped = 0;
+		for (int trial = 0; trial < 40; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			ShortestPathCache cache = new ShortestPathCache(1L << 30);
+			long version = 0;
+			fill(cache, graph, version);
+			for (int change = 0; change < 12; change++) {
+				CsrGraph next;
+				Set<Integer> sources = new HashSet<Integer>();
+				int kind = random.nextInt(4);
+				boolean batch = false;
+				if (kind == 0 && n > 2) {
+					int router = random.nextInt(n);
+					next = graph.withoutRouter(router);
+					cache.routerRemoved(router, version, version + 1);
+				} else if (kind == 1) {
+					int u = random.nextInt(n);
+					int v = (u + 1 + random.nextInt(n - 1)) % n;
+					double cost = cost(random, graph, u, v);
+					next = graph.withLinkCost(u, v, cost);
+					cache.linkChanged(u, v, cost, version, version + 1);
+				} else {
+					batch = true;
+					int count = 1 + random.nextInt(4);
+					int from[] = new int[count];
+					int to[] = new int[count];
+					double cost[] = new double[count];
+					Set<Long> links = new HashSet<Long>();
+					int changed = 0;
+					for (int i = 0; i < count; i++) {
+						int u = random.nextInt(n);
+						int v = (u + 1 + random.nextInt(n - 1)) % n;
+						if (links.add(((long) u << 32) | v)) {
+							from[changed] = u;
+							to[changed] = v;
+							cost[changed] = cost(random, graph, u, v);
+							changed++;
+						}
+					}
+					next = graph.withLinkCosts(from, to, cost, changed);
+					for (int s : cache.linksChanged(from, to, cost, changed, version, version + 1)) {
+						assertTrue(sources.add(s), "source " + s + " dropped once");
+					}
+				}
+				version++;
+				for (int s = 0; s < n; s++) {
+					ShortestPathTree tree = cache.get(s, version);
+					if (tree == null) {
+						dropped++;
+						if (batch) {
+							assertTrue(sources.remove(s), "dropped tree of " + s + " is returned");
+						}
+						continue;
+					}
+					carried++;
+					ShortestPathTree want = RandomTopologies.reference(next, s);
+					for (int t = 0; t < n; t++) {
+						assertEquals(want.distanceTo(t), tree.distanceTo(t),
+								"carried over distance " + s + " to " + t + " in trial " + trial);
+						assertEquals(want.previous(t), tree.previous(t),
+								"carried over previous of " + t + " from " + s + " in trial " + trial);
+					}
+				}
+				assertTrue(sources.isEmpty(), "sources returned but kept " + sources);
+				assertNull(cache.get(0, version - 1), "old version is gone");
+				graph = next;
+				fill(cache, graph, version);
+			}
+		}
+//		both sides of the rule are exercised
+		assertTrue(carried > 1000, "trees carried over " + carried);
+		assertTrue(dropped > 1000, "trees dropped " + dropped);
+	}
+
+	@Test
+	void removedRouterIsUnreachableInTheTreesKept() {
+		CsrGraph graph = new CsrGraph.Builder(4).addEdge(0, 1, 1).addEdge(0, 2, 1).addEdge(2, 3, 1)
+				.addEdge(1, 3, 5).build();
+		ShortestPathCache cache = new ShortestPathCache(1L << 20);
+		fill(cache, graph, 0);
+		cache.routerRemoved(1, 0, 1);
+		ShortestPathTree tree = cache.get(0, 1);
+		assertArrayEquals(RandomTopologies.reference(graph.withoutRouter(1), 0).nextHops(), tree.nextHops());
+		assertEquals(Double.POSITIVE_INFINITY, tree.distanceTo(1));
+		assertNull(cache.get(1, 1), "tree of the router taken out");
+	}
+
+//	a new cost for a link, taken out, cheaper, dearer or a new link
+	private static double cost(Random random, CsrGraph graph, int u, int v) {
+		if (random.nextInt(4) == 0) {
+			return -1;
+		}
+		return 1 + random.nextInt(graph.findEdge(u, v) >= 0 ? 20 : 5);
+	}
+
+	private static void fill(ShortestPathCache cache, CsrGraph graph, long version) {
+		for (int s = 0; s < graph.vertexCount(); s++) {
+			if (cache.get(s, version) == null) {
+				cache.put(RandomTopologies.reference(graph, s), version);
+			}
+		}
+		assertEquals(graph.vertexCount(), cache.size(), "one tree per source at version " + version);
+	}
+}
@@ -0,0 +1,289 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the differential tests of the shortest path engines
+ * 					- every engine is run on small random topologies and its
+ * 					costs compared with Dijkstras.computePaths
+ * 					- engines that promise the tie rule (lower previous router
+ * 					on equal distances) must give the same tree, the others
+ * 					only a valid path of the same cost
+ * 					- k shortest paths are checked against every loopless
+ * 					path of small graphs listed by brute force
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ShortestPathEnginesTest {
+
+	static final int TRIALS = 60;
+
+	static ForkJoinPool pool;
+
+	@BeforeAll
+	static void startPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	static void stopPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	void referenceMatchesBellmanFord() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			for (int s = 0; s < graph.vertexCount(); s++) {
+				ShortestPathTree tree = RandomTopologies.reference(graph, s);
+				double want[] = RandomTopologies.bellmanFord(graph, s);
+				for (int t = 0; t < graph.vertexCount(); t++) {
+					assertEquals(want[t], tree.distanceTo(t), "distance " + s + " to " + t);
+					if (tree.isReachable(t)) {
+						RandomTopologies.assertPath(graph, tree.pathTo(t), s, t, want[t]);
+					}
+				}
+			}
+		}
+	}
+
+//	the tie rule makes the tree the same whatever queue is used
+	@Test
+	void everyQueueGivesTheSameTree() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			IndexedHeap queues[] = { new IndexedBinaryHeap(n), new IndexedDaryHeap(4, n),
+					new IndexedDaryHeap(8, n), new BucketQueue(graph.maxIntegerWeight(), n) };
+			double distance[] = new double[n];
+			int previous[] = new int[n];
+			for (int s = 0; s < n; s++) {
+				double want[] = RandomTopologies.bellmanFord(graph, s);
+				int wantPrevious[] = null;
+				for (IndexedHeap queue : queues) {
+					Dijkstras.computePaths(graph, s, queue, distance, previous);
+					assertTrue(queue.isEmpty(), queue.getClass().getSimpleName() + " is left empty");
+					assertArrayEquals(want, distance, queue.getClass().getSimpleName() + " distances from " + s);
+					if (wantPrevious == null) {
+						wantPrevious = previous.clone();
+					}
+					assertArrayEquals(wantPrevious, previous, queue.getClass().getSimpleName() + " tree of " + s);
+				}
+			}
+		}
+	}
+
+	@Test
+	void deltaSteppingMatchesDijkstra() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			double delta = trial % 4 == 0 ? DeltaStepping.automaticDelta(graph) : 1 + random.nextInt(10);
+			for (int s = 0; s < graph.vertexCount(); s++) {
+				ShortestPathTree want = RandomTopologies.reference(graph, s);
+				ShortestPathTree tree = DeltaStepping.computePaths(graph, s, delta, pool);
+				for (int t = 0; t < graph.vertexCount(); t++) {
+					assertEquals(want.distanceTo(t), tree.distanceTo(t), "distance " + s + " to " + t);
+					assertEquals(want.previous(t), tree.previous(t), "previous of " + t + " from " + s);
+				}
+			}
+		}
+	}
+
+	@Test
+	void floydWarshallMatchesDijkstra() {
+		Random random = new Random(4);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			int distance[] = FloydWarshall.distances(graph, pool);
+			for (int s = 0; s < n; s++) {
+				ShortestPathTree want = RandomTopologies.reference(graph, s);
+				for (int t = 0; t < n; t++) {
+					double expected = want.isReachable(t) ? want.distanceTo(t) : FloydWarshall.INFINITE;
+					assertEquals(expected, distance[s * n + t], "distance " + s + " to " + t);
+				}
+			}
+		}
+	}
+
+	@Test
+	void equalCostTreeFindsEveryShortestPath() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			int n = graph.vertexCount();
+			for (int s = 0; s < n; s++) {
+				ShortestPathTree want = RandomTopologies.reference(graph, s);
+				EqualCostTree tree = EqualCostTree.compute(graph, s);
+				Integer order[] = new Integer[n];
+				for (int t = 0; t < n; t++) {
+					order[t] = t;
+				}
+				Arrays.sort(order, (a, b) -> Double.compare(want.distanceTo(a), want.distanceTo(b)));
+				long paths[] = new long[n];
+				@SuppressWarnings("unchecked")
+				Set<Integer> hops[] = new Set[n];
+//				routers in order of distance, so the predecessors are done first
+				for (int t : order) {
+					hops[t] = new HashSet<Integer>();
+					assertEquals(want.distanceTo(t), tree.distanceTo(t), "distance " + s + " to " + t);
+					if (t == s) {
+						paths[t] = 1;
+						assertArrayEquals(new int[0], tree.predecessors(t), "predecessors of the source");
+						continue;
+					}
+					if (!want.isReachable(t)) {
+						continue;
+					}
+					int predecessors[] = new int[0];
+					for (int u = 0; u < n; u++) {
+						if (want.isReachable(u)
+								&& want.distanceTo(u) + RandomTopologies.cheapestLink(graph, u, t) == want.distanceTo(t)) {
+							predecessors = Arrays.copyOf(predecessors, predecessors.length + 1);
+							predecessors[predecessors.length - 1] = u;
+							paths[t] += paths[u];
+							if (u == s) {
+								hops[t].add(t);
+							} else {
+								hops[t].addAll(hops[u]);
+							}
+						}
+					}
+					assertArrayEquals(predecessors, tree.predecessors(t), "predecessors of " + t + " from " + s);
+					assertArrayEquals(want.pathTo(t), tree.pathTo(t), "path " + s + " to " + t);
+				}
+				for (int t = 0; t < n; t++) {
+					assertEquals(paths[t], tree.pathCount(t), "paths " + s + " to " + t);
+					int expected[] = new int[hops[t].size()];
+					int i = 0;
+					for (int h : hops[t]) {
+						expected[i++] = h;
+					}
+					Arrays.sort(expected);
+					assertArrayEquals(expected, tree.nextHops(t), "next hops " + s + " to " + t);
+				}
+			}
+		}
+	}
+
+	@Test
+	void pointToPointQueriesMatchDijkstra() {
+		Random random = new Random(6);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			PointToPointQuery query = new PointToPointQuery(graph, new ReverseGraph(graph));
+			ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+			LandmarkQuery landmarks = LandmarkQuery.build(graph, 1 + random.nextInt(4));
+			for (int s = 0; s < graph.vertexCount(); s++) {
+				ShortestPathTree want = RandomTopologies.reference(graph, s);
+				for (int t = 0; t < graph.vertexCount(); t++) {
+					Route route = query.route(s, t);
+					assertRoute(graph, want, s, t, route, "unidirectional");
+					if (want.isReachable(t)) {
+						assertArrayEquals(want.pathTo(t), route.path(), "unidirectional path " + s + " to " + t);
+					}
+					assertRoute(graph, want, s, t, query.bidirectionalRoute(s, t), "bidirectional");
+					assertRoute(graph, want, s, t, hierarchy.route(s, t), "contraction hierarchy");
+					Route alt = landmarks.route(s, t);
+					assertRoute(graph, want, s, t, alt, "landmarks");
+					if (want.isReachable(t)) {
+						assertArrayEquals(want.pathTo(t), alt.path(), "landmark path " + s + " to " + t);
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertRoute(CsrGraph graph, ShortestPathTree want, int s, int t, Route route, String engine) {
+		assertEquals(want.distanceTo(t), route.cost(), engine + " cost " + s + " to " + t);
+		assertEquals(want.isReachable(t), route.isReachable(), engine + " reaches " + t + " from " + s);
+		if (route.isReachable()) {
+			RandomTopologies.assertPath(graph, route.path(), s, t, route.cost());
+		}
+	}
+
+//	small graphs so every loopless path can be listed by brute force
+	@Test
+	void kShortestPathsAreLooplessAndInOrder() {
+		Random random = new Random(7);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, 2 + random.nextInt(8), 1 + random.nextInt(3),
+					trial % 3 == 0 ? 2 : 1 + random.nextInt(9), trial % 2 == 0);
+			int n = graph.vertexCount();
+			for (int q = 0; q < 10; q++) {
+				int s = random.nextInt(n);
+				int t = random.nextInt(n);
+				ShortestPathTree want = RandomTopologies.reference(graph, s);
+				int k = 1 + random.nextInt(6);
+				List<Route> routes = KShortestPaths.compute(graph, s, t, k, pool);
+				if (!want.isReachable(t)) {
+					assertTrue(routes.isEmpty(), "no paths " + s + " to " + t);
+					continue;
+				}
+				assertFalse(routes.isEmpty(), "paths " + s + " to " + t);
+				assertTrue(routes.size() <= k, "at most " + k + " paths");
+				assertEquals(want.distanceTo(t), routes.get(0).cost(), "first path is the shortest");
+				assertArrayEquals(want.pathTo(t), routes.get(0).path(), "first path is the tree path");
+				List<Double> costs = new ArrayList<Double>();
+				loopless(graph, s, t, 0., new boolean[n], costs);
+				Collections.sort(costs);
+				assertEquals(Math.min(k, costs.size()), routes.size(), k + " paths of " + costs.size());
+				for (int i = 0; i < routes.size(); i++) {
+					assertEquals(costs.get(i), routes.get(i).cost(), "cost of path " + i + " " + s + " to " + t);
+				}
+				Set<String> seen = new HashSet<String>();
+				double last = 0.;
+				for (Route route : routes) {
+					assertTrue(route.cost() >= last, "costs do not go down");
+					last = route.cost();
+					RandomTopologies.assertPath(graph, route.path(), s, t, route.cost());
+					assertTrue(seen.add(Arrays.toString(route.path())), "paths are distinct");
+					Set<Integer> routers = new HashSet<Integer>();
+					for (int v : route.path()) {
+						assertTrue(routers.add(v), "path " + Arrays.toString(route.path()) + " has no loop");
+					}
+				}
+			}
+		}
+	}
+
+//	cost of every loopless path from last to the target that avoids the
+//	routers already on the path, over the cheapest of parallel links
+	private static void loopless(CsrGraph graph, int last, int target, double cost, boolean onPath[],
+			List<Double> costs) {
+		if (last == target) {
+			costs.add(cost);
+			return;
+		}
+		onPath[last] = true;
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			double link = RandomTopologies.cheapestLink(graph, last, v);
+			if (!onPath[v] && link != Double.POSITIVE_INFINITY) {
+				loopless(graph, v, target, cost + link, onPath, costs);
+			}
+		}
+		onPath[last] = false;
+	}
+}
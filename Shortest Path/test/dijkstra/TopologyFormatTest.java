@@ -0,0 +1,103 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the sparse topology formats
+ * 					- the format is detected from the first line that is not
+ * 					a comment, matrices, edge lists and adjacency lists of the
+ * 					same routers must load into the same graph
+ * 					- random graphs written as edge and adjacency lists load
+ * 					back with the same links in the same order
+ * 					- links without a cost, routers below 1 and costs below -1
+ * 					are refused
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TopologyFormatTest {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void formatIsFoundFromTheFirstLine() throws IOException {
+		assertEquals(TopologyFormat.MATRIX, detect("0 3 -1\n3 0 2\n-1 2 0\n"));
+		assertEquals(TopologyFormat.MATRIX, detect("# three routers\n\n0 3 -1\n3 0 2\n-1 2 0\n"));
+		assertEquals(TopologyFormat.MATRIX, detect("0 1\n1 0\n"));
+		assertEquals(TopologyFormat.MATRIX, detect("0\n"));
+		assertEquals(TopologyFormat.EDGE_LIST, detect("1 2 3\n2 3 2\n"));
+		assertEquals(TopologyFormat.EDGE_LIST, detect("# from to cost\n10,2,3\r\n"));
+		assertEquals(TopologyFormat.EDGE_LIST, detect("   1\t2\t3\n"));
+		assertEquals(TopologyFormat.ADJACENCY, detect("1: 2 3\n2:\n"));
+		assertEquals(TopologyFormat.ADJACENCY, detect("# router: neighbour cost\n1:2 3 3 1\n"));
+	}
+
+	private TopologyFormat detect(String text) throws IOException {
+		return TopologyFormat.detect(file(text));
+	}
+
+//	the same three routers in every text format
+	@Test
+	void everyFormatGivesTheSameGraph() throws IOException {
+		CsrGraph want = CsrGraph.fromMatrix(new int[][] { { 0, 3, -1 }, { 3, 0, 2 }, { -1, 2, 0 } });
+		String files[] = { "0 3 -1\n3 0 2\n-1 2 0\n", "1 2 3\n2 1 3\n2 3 2\n3 2 2\n",
+				"# links\n1, 2, 3\n2, 1, 3\n\n2, 3, 2\n3, 2, 2", "1: 2 3\n2: 1 3 3 2\n3: 2 2\n",
+				"1:2 3\r\n2:1 3 3 2\r\n3:2 2\r\n" };
+		for (String text : files) {
+			RandomTopologies.assertSameGraph(want, TopologyLoader.loadGraph(file(text)));
+			RandomTopologies.assertSameGraph(want, Topology.load(file(text)).graph());
+		}
+	}
+
+	@Test
+	void sparseFilesLoadTheGraphWritten() throws IOException {
+		Random random = new Random(91);
+		for (int trial = 0; trial < 40; trial++) {
+			CsrGraph graph = RandomTopologies.graph(random, trial);
+			for (TopologyFormat format : new TopologyFormat[] { TopologyFormat.EDGE_LIST, TopologyFormat.ADJACENCY }) {
+				Path file = folder.resolve("graph" + trial + "." + format);
+				TopologyGenerator.write(graph, file, format);
+				if (graph.edgeCount() > 0) {
+					assertEquals(format, TopologyFormat.detect(file), "format of trial " + trial);
+				}
+				RandomTopologies.assertSameGraph(graph, TopologyLoader.loadGraph(file, format));
+			}
+		}
+	}
+
+	@Test
+	void badLinksAreRefused() throws IOException {
+		assertRefused(TopologyFormat.EDGE_LIST, "1 2 3\n2 3\n", "Link 2 needs from, to and cost");
+		assertRefused(TopologyFormat.EDGE_LIST, "1 2 3 4\n", "Link 1 has more than from, to and cost");
+		assertRefused(TopologyFormat.EDGE_LIST, "1 2 3\n2 0 3\n", "Link on line 2 uses a router below 1");
+		assertRefused(TopologyFormat.EDGE_LIST, "1 2 -4\n", "Link on line 1 has negative cost -4");
+		assertRefused(TopologyFormat.ADJACENCY, "1: 2 3\n0: 1 3\n", "Router 0 on line 2 dose'nt exists");
+		assertRefused(TopologyFormat.ADJACENCY, "1: 2 3 3\n", "Router on line 1 has a neighbour without a cost");
+		assertRefused(TopologyFormat.ADJACENCY, "1: 2 -2\n", "Link on line 1 has negative cost -2");
+	}
+
+	private void assertRefused(TopologyFormat format, String text, String message) throws IOException {
+		Path file = file(text);
+		assertEquals(message, assertThrows(IOException.class, () -> TopologyLoader.loadGraph(file, format))
+				.getMessage(), format + " " + text);
+	}
+
+	private Path file(String text) throws IOException {
+		Path file = Files.createTempFile(folder, "topology", ".txt");
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+		return file;
+	}
+}
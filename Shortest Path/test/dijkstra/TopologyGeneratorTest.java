@@ -0,0 +1,110 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the tests of the synthetic topology generator
+ * 					- every shape gives the same topology for the same seed,
+ * 					links both ways with one cost inside the cost range
+ * 					- a generated topology written in any loader format loads
+ * 					back as the same graph, routers without links included
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TopologyGeneratorTest {
+
+	static final String SHAPES[] = { "geometric", "waxman", "ba", "grid", "random", "dense" };
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void sameSeedGivesTheSameTopology() {
+		for (String shape : SHAPES) {
+			CsrGraph graph = new TopologyGenerator(shape, 80, 7).degree(3).costs(2, 9).generate();
+			RandomTopologies.assertSameGraph(graph,
+					new TopologyGenerator(shape, 80, 7).degree(3).costs(2, 9).generate());
+			assertEquals(80, graph.vertexCount(), shape + " routers");
+			assertTrue(graph.edgeCount() > 0, shape + " has links");
+			for (int u = 0; u < graph.vertexCount(); u++) {
+				for (int e = graph.begin(u); e < graph.end(u); e++) {
+					int v = graph.target(e);
+					assertNotEquals(u, v, shape + " link to itself");
+					assertTrue(graph.weight(e) >= 2 && graph.weight(e) <= 9, shape + " cost " + graph.weight(e));
+					assertEquals(RandomTopologies.cheapestLink(graph, u, v), RandomTopologies.cheapestLink(graph, v, u),
+							shape + " link " + u + " " + v + " both ways");
+				}
+			}
+		}
+	}
+
+	@Test
+	void writtenTopologiesLoadBack() throws IOException {
+		for (String shape : SHAPES) {
+//			a low degree leaves geometric and waxman routers without links
+			for (long seed = 1; seed <= 5; seed++) {
+				CsrGraph graph = new TopologyGenerator(shape, 60, seed).degree(1).generate();
+				for (TopologyFormat format : TopologyFormat.values()) {
+					if (format == TopologyFormat.MATRIX && hasParallelLinks(graph)) {
+//						a matrix keeps one cost per pair
+						continue;
+					}
+					Path file = folder.resolve(shape + seed + "." + format);
+					TopologyGenerator.write(graph, file, format);
+					assertEquals(format, TopologyFormat.detect(file), shape + " " + format);
+					RandomTopologies.assertSameGraph(format == TopologyFormat.MATRIX ? byTarget(graph) : graph,
+							TopologyLoader.loadGraph(file));
+				}
+			}
+		}
+	}
+
+	@Test
+	void edgeListKeepsTrailingRoutersWithoutLinks() throws IOException {
+		CsrGraph graph = new CsrGraph.Builder(5).addEdge(0, 1, 3).addEdge(1, 0, 3).build();
+		Path file = folder.resolve("isolated.txt");
+		TopologyGenerator.write(graph, file, TopologyFormat.EDGE_LIST);
+		assertEquals("1 2 3\n2 1 3\n5 5 0\n",
+				new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).replace("\r\n", "\n"));
+		RandomTopologies.assertSameGraph(graph, TopologyLoader.loadGraph(file));
+	}
+
+//	the graph with the links of every router in target order, as a matrix row has them
+	private static CsrGraph byTarget(CsrGraph graph) {
+		int n = graph.vertexCount();
+		CsrGraph.Builder builder = new CsrGraph.Builder(n);
+		for (int u = 0; u < n; u++) {
+			for (int v = 0; v < n; v++) {
+				int e = graph.findEdge(u, v);
+				if (e >= 0) {
+					builder.addEdge(u, v, graph.weight(e));
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private static boolean hasParallelLinks(CsrGraph graph) {
+		for (int u = 0; u < graph.vertexCount(); u++) {
+			for (int e = graph.begin(u); e < graph.end(u); e++) {
+				if (graph.findEdge(u, graph.target(e)) != e) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,152 @@
+package dijkstra;
+/**
+ *
+ * @project   	Implementing Dijkstra's Algorithm
+ * @build     	v -1.0
+ *
+ * @Description  This file contains the differential tests of the streaming matrix loader
+ * 					- random matrices are written with spaces, tabs, commas,
+ * 					Windows line ends, blank lines and comments and must load
+ * 					like the line by line String.split parser loadFile used
+ * 					- the CSR graph loaded straight from the file must be the
+ * 					graph CsrGraph.fromMatrix builds from the dense matrix
+ * 					- numbers too large for an int, rows of the wrong length,
+ * 					stray characters and costs below -1 are refused
+ *
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TopologyLoaderTest {
+
+	@TempDir
+	Path folder;
+
+//	the topologies shipped with the project
+	@Test
+	void projectTopologiesLoadLikeTheLineParser() throws IOException {
+		for (String name : new String[] { "topology.txt", "topology_8.txt" }) {
+			Path file = Paths.get(name);
+			int want[][] = splitLines(file);
+			assertArrayEquals(want, TopologyLoader.loadMatrix(file), name);
+			RandomTopologies.assertSameGraph(CsrGraph.fromMatrix(want), TopologyLoader.loadMatrixGraph(file));
+			assertEquals(TopologyFormat.MATRIX, TopologyFormat.detect(file), name);
+		}
+	}
+
+	@Test
+	void randomMatricesLoadLikeTheLineParser() throws IOException {
+		Random random = new Random(81);
+		for (int trial = 0; trial < 50; trial++) {
+			int n = 1 + random.nextInt(30);
+			int matrix[][] = new int[n][n];
+			for (int u = 0; u < n; u++) {
+				for (int v = 0; v < n; v++) {
+					int kind = random.nextInt(4);
+					matrix[u][v] = u == v ? 0 : kind == 0 ? -1 : kind == 1 ? Integer.MAX_VALUE - random.nextInt(10)
+							: 1 + random.nextInt(kind == 2 ? 9 : 100000);
+				}
+			}
+			Path file = folder.resolve("matrix" + trial + ".txt");
+			boolean plain = trial % 2 == 0;
+			write(random, matrix, file, plain);
+			if (plain) {
+				assertArrayEquals(matrix, splitLines(file), "line parser of trial " + trial);
+			}
+			assertArrayEquals(matrix, TopologyLoader.loadMatrix(file), "matrix of trial " + trial);
+			RandomTopologies.assertSameGraph(CsrGraph.fromMatrix(matrix), TopologyLoader.loadMatrixGraph(file));
+			RandomTopologies.assertSameGraph(CsrGraph.fromMatrix(matrix),
+					TopologyLoader.loadGraph(file, TopologyFormat.MATRIX));
+		}
+	}
+
+//	plain files have one space between numbers like the old files, the
+//	others mix every separator the loader takes
+	private static void write(Random random, int matrix[][], Path file, boolean plain) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		String separators[] = { " ", "\t", ", ", "  ", "," };
+		if (!plain) {
+			sb.append("# router matrix\n\n");
+		}
+		for (int u = 0; u < matrix.length; u++) {
+			if (!plain && random.nextInt(4) == 0) {
+				sb.append(random.nextBoolean() ? "\n" : "   # no links changed\n");
+			}
+			for (int v = 0; v < matrix.length; v++) {
+				if (v > 0) {
+					sb.append(plain ? " " : separators[random.nextInt(separators.length)]);
+				}
+				sb.append(matrix[u][v]);
+			}
+			if (u < matrix.length - 1 || random.nextBoolean()) {
+				sb.append(!plain && random.nextBoolean() ? "\r\n" : "\n");
+			}
+		}
+		Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+	}
+
+//	what loadFile did before the streaming loader, one String.split per line
+	private static int[][] splitLines(Path file) throws IOException {
+		List<int[]> rows = new ArrayList<int[]>();
+		for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+			String cells[] = line.trim().split("\\s+");
+			int row[] = new int[cells.length];
+			for (int i = 0; i < cells.length; i++) {
+				row[i] = Integer.parseInt(cells[i]);
+			}
+			rows.add(row);
+		}
+		return rows.toArray(new int[rows.size()][]);
+	}
+
+	@Test
+	void emptyFileIsAnEmptyMatrix() throws IOException {
+		Path file = folder.resolve("empty.txt");
+		Files.write(file, "# nothing yet\n\n".getBytes(StandardCharsets.US_ASCII));
+		assertArrayEquals(new int[0][0], TopologyLoader.loadMatrix(file));
+		assertEquals(0, TopologyLoader.loadMatrixGraph(file).vertexCount());
+	}
+
+	@Test
+	void badMatricesAreRefused() throws IOException {
+		assertRefused("0 2147483648\n1 0\n", "Number on line 1 (row 1) is larger than 2147483647");
+		assertRefused("0 1\n1 0 99999999999999999999\n", "Number on line 2 (row 2) is larger than 2147483647");
+		assertRefused("0 1 2\n1 0\n2 1 0\n", "Row 2 has 2 distances, expected 3");
+		assertRefused("0 1 2\n1 0 1\n", "Topology matrix has 2 rows but 3 columns");
+		assertRefused("0 - 1\n1 0\n", "Lone '-' on line 1");
+		assertRefused("0 1\n1 0x\n", "Unexpected character 'x' on line 2");
+		assertRefused("0 1\n1 1.5\n", "Unexpected character '.' on line 2");
+		assertRefused("0 -2\n1 0\n", "Distance at row 1 column 2 is negative: -2");
+
+//		the dense matrix is sized by the first row so a row too many fails early
+		Path file = folder.resolve("long.txt");
+		Files.write(file, "0 1\n1 0\n1 1\n".getBytes(StandardCharsets.US_ASCII));
+		assertEquals("Topology matrix is larger than 2 x 2 at row 3",
+				assertThrows(IOException.class, () -> TopologyLoader.loadMatrix(file)).getMessage());
+		assertEquals("Topology matrix has 3 rows but 2 columns",
+				assertThrows(IOException.class, () -> TopologyLoader.loadMatrixGraph(file)).getMessage());
+	}
+
+	private void assertRefused(String text, String message) throws IOException {
+		Path file = folder.resolve("bad.txt");
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+		assertEquals(message, assertThrows(IOException.class, () -> TopologyLoader.loadMatrix(file)).getMessage(),
+				"matrix of " + text);
+		assertEquals(message, assertThrows(IOException.class, () -> TopologyLoader.loadMatrixGraph(file))
+				.getMessage(), "graph of " + text);
+	}
+}